@@ -20,6 +20,18 @@ dependencies {
     implementation("org.projectlombok:lombok:1.18.34")
 
     annotationProcessor("org.projectlombok:lombok:1.18.34")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// Gerador de carga da API e medições: compilados à parte para não entrar no jar da aplicação
+sourceSets {
+    create("load") {
+        compileClasspath += sourceSets["main"].output + configurations["compileClasspath"]
+        runtimeClasspath += sourceSets["main"].output + configurations["runtimeClasspath"]
+    }
 }
 
 tasks.test {
@@ -46,3 +58,58 @@ tasks.register("runBoard") {
         }
     }
 }
+
+// Propriedades board.* passadas ao Gradle com -D seguem para a aplicação
+fun boardSystemProperties() = System.getProperties().entries
+    .filter { it.key.toString().startsWith("board.") }
+    .associate { it.key.toString() to it.value }
+
+// API HTTP/JSON (porta em -Dboard.server.port, padrão 8080)
+tasks.register("runApiServer") {
+    group = "application"
+    description = "Run the Board HTTP/JSON API"
+    dependsOn("classes")
+
+    doLast {
+        javaexec {
+            mainClass.set("br.com.dio.Main")
+            classpath = sourceSets["main"].runtimeClasspath
+            args("--server")
+            systemProperty("file.encoding", "UTF-8")
+            systemProperties(boardSystemProperties())
+        }
+    }
+}
+
+// Teste de carga contra uma API em execução (-Dboard.load.url, -Dboard.load.clients, -Dboard.load.duration-s)
+tasks.register("apiLoadTest") {
+    group = "verification"
+    description = "Run the HTTP API load generator"
+    dependsOn("loadClasses")
+
+    doLast {
+        javaexec {
+            mainClass.set("br.com.dio.api.ApiLoadGenerator")
+            classpath = sourceSets["load"].runtimeClasspath
+            systemProperty("file.encoding", "UTF-8")
+            systemProperties(boardSystemProperties())
+        }
+    }
+}
+
+// Bytes alocados por linha no mapeamento de cards (-Dboard.load.rows, -Dboard.load.columns)
+tasks.register("rowMappingAllocation") {
+    group = "verification"
+    description = "Measure per-row allocation when mapping card rows"
+    dependsOn("loadClasses")
+
+    doLast {
+        javaexec {
+            mainClass.set("br.com.dio.persistence.dao.RowMappingAllocationBenchmark")
+            classpath = sourceSets["load"].runtimeClasspath
+            jvmArgs("-XX:-DoEscapeAnalysis")
+            systemProperty("file.encoding", "UTF-8")
+            systemProperties(boardSystemProperties())
+        }
+    }
+}
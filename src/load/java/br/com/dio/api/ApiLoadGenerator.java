@@ -0,0 +1,163 @@
+package br.com.dio.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Teste de carga da API: {@code board.load.clients} clientes simultâneos, cada um enviando uma
+ * requisição após a outra durante {@code board.load.duration-s} segundos contra
+ * {@code board.load.url}. Ao final imprime vazão, erros e percentis de latência.
+ * <p>
+ * A carga padrão mistura detalhes do board, páginas de cards e buscas no board
+ * {@code board.load.board-id} (criado com alguns cards se não for informado) e grava um card em
+ * {@code board.load.write-percent}% das requisições. Com {@code board.load.path}, todas as
+ * requisições são {@code GET} nesse caminho. Os clientes usam envio assíncrono, então milhares
+ * deles não exigem milhares de threads no gerador.
+ */
+public final class ApiLoadGenerator {
+
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 600_000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final String fixedPath;
+    private final int writePercent;
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private long boardId;
+    private long deadline;
+
+    private ApiLoadGenerator(final String baseUrl, final String fixedPath, final int writePercent) {
+        this.baseUrl = baseUrl;
+        this.fixedPath = fixedPath;
+        this.writePercent = writePercent;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var generator = new ApiLoadGenerator(
+                System.getProperty("board.load.url", "http://localhost:8080"),
+                System.getProperty("board.load.path"),
+                Integer.getInteger("board.load.write-percent", 0));
+        generator.run(Integer.getInteger("board.load.clients", 2_000),
+                Duration.ofSeconds(Long.getLong("board.load.duration-s", 30)),
+                Long.getLong("board.load.board-id", 0));
+    }
+
+    private void run(final int clients, final Duration duration, final long configuredBoardId) throws Exception {
+        if (fixedPath == null) {
+            boardId = configuredBoardId > 0 ? configuredBoardId : createBoard();
+        }
+        System.out.printf("Carga: %d clientes por %ds contra %s%n", clients, duration.toSeconds(), baseUrl);
+
+        var start = System.nanoTime();
+        deadline = start + duration.toNanos();
+        var finished = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            next(finished);
+        }
+        finished.await();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        var total = completed.sum();
+        System.out.printf("Requisições: %d (erros: %d) em %.1fs%n", total, errors.sum(), elapsed.toMillis() / 1000.0);
+        System.out.printf("Vazão: %.0f req/s%n", total / (elapsed.toNanos() / 1e9));
+        System.out.printf("Latência p50=%s p95=%s p99=%s p99.9=%s%n",
+                percentile(total, 0.50), percentile(total, 0.95), percentile(total, 0.99), percentile(total, 0.999));
+    }
+
+    private void next(final CountDownLatch finished) {
+        if (System.nanoTime() - deadline >= 0) {
+            finished.countDown();
+            return;
+        }
+        var sentAt = System.nanoTime();
+        client.sendAsync(nextRequest(), HttpResponse.BodyHandlers.discarding())
+                .whenCompleteAsync((response, failure) -> {
+                    record(System.nanoTime() - sentAt);
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.increment();
+                    }
+                    next(finished);
+                });
+    }
+
+    private HttpRequest nextRequest() {
+        if (fixedPath != null) {
+            return get(fixedPath);
+        }
+        var random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < writePercent) {
+            return post("/boards/" + boardId + "/cards",
+                    "{\"title\":\"Carga " + random.nextInt(1_000_000) + "\",\"description\":\"gerado pelo teste de carga\"}");
+        }
+        var roll = random.nextInt(100);
+        if (roll < 45) {
+            return get("/boards/" + boardId);
+        }
+        if (roll < 90) {
+            return get("/boards/" + boardId + "/cards?pageSize=20");
+        }
+        return get("/boards/" + boardId + "/search?q=carga");
+    }
+
+    private long createBoard() throws Exception {
+        var response = client.send(post("/boards", "{\"name\":\"Teste de carga " + System.currentTimeMillis() + "\"}"),
+                HttpResponse.BodyHandlers.ofString(UTF_8));
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Não foi possível criar o board de carga: " + response.body());
+        }
+        var body = response.body();
+        var idStart = body.indexOf("\"id\":") + 5;
+        var id = Long.parseLong(body.substring(idStart, body.indexOf(',', idStart)));
+        for (int i = 0; i < 50; i++) {
+            client.send(post("/boards/" + id + "/cards", "{\"title\":\"Card de carga " + i + "\"}"),
+                    HttpResponse.BodyHandlers.discarding());
+        }
+        System.out.println("Board de carga criado: " + id);
+        return id;
+    }
+
+    private HttpRequest get(final String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private HttpRequest post(final String path, final String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, UTF_8))
+                .build();
+    }
+
+    private void record(final long nanos) {
+        completed.increment();
+        latencies.incrementAndGet((int) Math.min(BUCKETS - 1, nanos / BUCKET_NANOS));
+    }
+
+    private String percentile(final long total, final double fraction) {
+        var target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += latencies.get(bucket);
+            if (seen >= target && seen > 0) {
+                return String.format("%.1fms", (bucket + 1) * BUCKET_NANOS / 1e6);
+            }
+        }
+        return "-";
+    }
+
+}
@@ -0,0 +1,181 @@
+package br.com.dio.persistence.dao;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * Mede os bytes alocados por linha ao mapear cards com {@link CardDAO#findByBoardId(Long)}, lendo
+ * de um {@link ResultSet} em memória com {@code board.load.rows} linhas (padrão 50 mil) espalhadas
+ * por {@code board.load.columns} colunas (padrão 5) de um único board.
+ * <p>
+ * A alocação vem de {@code ThreadMXBean.getThreadAllocatedBytes} na thread que mapeia. O
+ * {@link ResultSet} é um proxy com os valores já convertidos, mas cada chamada com argumentos ainda
+ * aloca o vetor do proxy; esse custo é medido à parte e descontado, de modo que o resultado mostra
+ * só o que o DAO aloca. A JVM deve rodar com {@code -XX:-DoEscapeAnalysis} (como na task
+ * {@code rowMappingAllocation}): com a análise de escape ligada, o vetor some só em parte das
+ * chamadas e o desconto deixa de ser exato. Como usa apenas a API pública do DAO, roda igual antes
+ * e depois de uma mudança no mapeamento.
+ */
+public final class RowMappingAllocationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private final Object[][] rows;
+    private long calls;
+
+    private RowMappingAllocationBenchmark(final int rowCount, final int columnCount) {
+        rows = new Object[rowCount][];
+        var kinds = new String[]{"INITIAL", "PENDING", "FINAL", "CANCEL"};
+        for (int i = 0; i < rowCount; i++) {
+            var column = i % columnCount;
+            rows[i] = new Object[]{
+                    (long) i + 1,
+                    "Card " + i,
+                    "Descrição do card " + i,
+                    (long) column + 1,
+                    null,
+                    0L,
+                    "Coluna " + column,
+                    column,
+                    kinds[Math.min(column, kinds.length - 1)],
+                    1L,
+                    "Board"
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var rowCount = Integer.getInteger("board.load.rows", 50_000);
+        var columnCount = Integer.getInteger("board.load.columns", 5);
+        var benchmark = new RowMappingAllocationBenchmark(rowCount, columnCount);
+
+        if (!ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:-DoEscapeAnalysis")) {
+            System.err.println("Aviso: sem -XX:-DoEscapeAnalysis o custo do proxy não é descontado com exatidão.");
+        }
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+        var perCall = benchmark.proxyBytesPerCall(threads, threadId);
+
+        var best = Double.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            benchmark.calls = 0;
+            var before = threads.getThreadAllocatedBytes(threadId);
+            var cards = new CardDAO(benchmark.connection()).findByBoardId(1L);
+            var allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            if (cards.size() != rowCount) {
+                throw new IllegalStateException("Esperadas " + rowCount + " linhas, mapeadas " + cards.size());
+            }
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, (allocated - benchmark.calls * perCall) / (double) rowCount);
+            }
+        }
+        System.out.printf(Locale.ROOT, "linhas=%d colunas=%d bytes/linha=%.1f (proxy: %.1f bytes/chamada)%n",
+                rowCount, columnCount, best, perCall);
+    }
+
+    /**
+     * Custo de uma chamada ao {@link ResultSet} em memória, medido com leituras que não alocam.
+     */
+    private double proxyBytesPerCall(final com.sun.management.ThreadMXBean threads, final long threadId)
+            throws Exception {
+        var best = Double.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            var rs = resultSet();
+            rs.next();
+            var before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < rows.length; i++) {
+                rs.getLong(1);
+            }
+            var allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, allocated / (double) rows.length);
+            }
+        }
+        return best;
+    }
+
+    private Connection connection() {
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "prepareStatement" -> statement();
+            case "isReadOnly", "isClosed" -> false;
+            default -> null;
+        });
+    }
+
+    private PreparedStatement statement() {
+        return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "executeQuery" -> resultSet();
+            default -> null;
+        });
+    }
+
+    private ResultSet resultSet() {
+        var cursor = new int[]{-1};
+        var lastRead = new Object[1];
+        return proxy(ResultSet.class, (method, args) -> {
+            // Só as chamadas com argumentos alocam o vetor do proxy
+            if (args != null) {
+                calls++;
+            }
+            switch (method) {
+                case "next" -> {
+                    return ++cursor[0] < rows.length;
+                }
+                case "wasNull" -> {
+                    return lastRead[0] == null;
+                }
+                case "close", "isClosed" -> {
+                    return false;
+                }
+                default -> {
+                    // getLong, getString, getObject... por posição ou rótulo
+                }
+            }
+            var value = rows[cursor[0]][index(args[0])];
+            lastRead[0] = value;
+            if (value == null && (method.equals("getLong") || method.equals("getInt"))) {
+                return method.equals("getLong") ? 0L : 0;
+            }
+            return value;
+        });
+    }
+
+    private static int index(final Object column) {
+        if (column instanceof Integer position) {
+            return position - 1;
+        }
+        return switch ((String) column) {
+            case "id" -> 0;
+            case "title" -> 1;
+            case "description" -> 2;
+            case "board_column_id" -> 3;
+            case "active_block_id" -> 4;
+            case "version" -> 5;
+            case "column_name" -> 6;
+            case "column_order" -> 7;
+            case "kind" -> 8;
+            case "board_id" -> 9;
+            case "board_name" -> 10;
+            default -> throw new IllegalArgumentException("Coluna desconhecida: " + column);
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object handle(String method, Object[] args) throws Exception;
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args));
+    }
+
+}
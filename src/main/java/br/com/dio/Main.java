@@ -1,20 +1,73 @@
 package br.com.dio;
 
+import br.com.dio.api.ApiServer;
+import br.com.dio.persistence.cache.BlockedCardIndex;
+import br.com.dio.persistence.cache.ColumnCardCounters;
+import br.com.dio.persistence.history.CardFlowAnalytics;
+import br.com.dio.persistence.history.CardMovementAppender;
 import br.com.dio.persistence.migration.MigrationStrategy;
+import br.com.dio.persistence.search.CardSearchIndex;
 import br.com.dio.ui.MainMenu;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
 
-import static br.com.dio.persistence.config.ConnectionConfig.getConnection;
+import static br.com.dio.persistence.config.ConnectionConfig.getDataSource;
+import static br.com.dio.persistence.config.ConnectionConfig.getReadDataSource;
+import static br.com.dio.persistence.config.ConnectionConfig.shutdown;
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
 
 
 public class Main {
 
-    public static void main(String[] args) throws SQLException {
-        try(var connection = getConnection()){
-            new MigrationStrategy(connection).executeMigration();
+    /**
+     * Com o argumento {@code --server} (ou {@code board.server.port} definida), sobe a API HTTP em
+     * vez do menu interativo.
+     */
+    public static void main(String[] args) throws SQLException, IOException {
+        for (var shard : shardsOf(getDataSource())) {
+            try(var connection = shard.getConnection()){
+                new MigrationStrategy(connection).executeMigration();
+            }
         }
-        new MainMenu().execute();
+        BlockedCardIndex.shared().reload(getDataSource());
+        ColumnCardCounters.shared().reload(getDataSource());
+        CardSearchIndex.shared().rebuild(getDataSource());
+        BlockedCardIndex.shared().scheduleConsistencyCheck(getDataSource(),
+                Long.getLong("board.index.blocked.check-period-ms", 300_000));
+        ColumnCardCounters.shared().scheduleReconciliation(getDataSource(),
+                Long.getLong("board.counters.reconcile-period-ms", 300_000));
+        CardFlowAnalytics.shared().rebuild(getDataSource());
+        CardMovementAppender.shared().addListener(CardFlowAnalytics.shared()::record);
+        CardMovementAppender.shared().start(getDataSource());
+        if (Arrays.asList(args).contains("--server") || System.getProperty("board.server.port") != null) {
+            startServer();
+            return;
+        }
+        try {
+            new MainMenu().execute();
+        } finally {
+            BlockedCardIndex.shared().shutdown();
+            ColumnCardCounters.shared().shutdown();
+            CardMovementAppender.shared().shutdown(Duration.ofSeconds(5));
+            shutdown();
+        }
+    }
+
+    private static void startServer() throws IOException {
+        var server = new ApiServer(new InetSocketAddress(Integer.getInteger("board.server.port", 8080)),
+                getDataSource(), getReadDataSource());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(Duration.ofSeconds(5));
+            BlockedCardIndex.shared().shutdown();
+            ColumnCardCounters.shared().shutdown();
+            CardMovementAppender.shared().shutdown(Duration.ofSeconds(5));
+            shutdown();
+        }, "board-shutdown"));
+        server.start();
     }
 
 }
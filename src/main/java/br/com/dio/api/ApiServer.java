@@ -0,0 +1,611 @@
+package br.com.dio.api;
+
+import br.com.dio.dto.BoardDetailsDTO;
+import br.com.dio.dto.BoardFlowMetricsDTO;
+import br.com.dio.dto.CardCursorDTO;
+import br.com.dio.dto.CardDetailsDTO;
+import br.com.dio.dto.CardPageDTO;
+import br.com.dio.dto.CardSearchPageDTO;
+import br.com.dio.dto.FlowTimeDTO;
+import br.com.dio.exception.BoardEventsLostException;
+import br.com.dio.exception.CardBlockedException;
+import br.com.dio.exception.CardFinishedException;
+import br.com.dio.exception.CardNotBlockedException;
+import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.exception.OptimisticLockException;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.persistence.entity.CardMovementEntity;
+import br.com.dio.persistence.transaction.ReadYourWritesSession;
+import br.com.dio.service.BoardColumnQueryService;
+import br.com.dio.service.BoardQueryService;
+import br.com.dio.service.BoardService;
+import br.com.dio.service.CardQueryService;
+import br.com.dio.service.CardService;
+import br.com.dio.service.async.VirtualThreads;
+import br.com.dio.service.feed.BoardChangeFeed;
+import br.com.dio.service.feed.BoardEvent;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Modo servidor: expõe os serviços de board e card em HTTP/JSON com o {@link HttpServer} do JDK.
+ * Cada requisição roda em sua própria thread de {@link VirtualThreads} (virtual threads em Java 21
+ * ou superior; {@code board.server.threads} threads de plataforma antes disso) e empresta conexões
+ * do pool só durante a chamada ao serviço.
+ * <p>
+ * O cabeçalho {@value #SESSION_HEADER} identifica a sessão do cliente para o roteamento de leituras
+ * com réplica: quem escreveu lê do primário logo em seguida. Sem o cabeçalho, cada requisição é uma
+ * sessão nova.
+ * <p>
+ * {@code /boards/{id}/events} é um stream Server-Sent Events com os eventos do
+ * {@link BoardChangeFeed}: cada evento leva {@code epoch:sequência} no campo {@code id}, e a
+ * reconexão com {@code Last-Event-ID} (ou {@code ?after=}) retoma do ponto em que parou; um ID de
+ * antes de o servidor reiniciar tem outro epoch e não é retomado. Sem eles, o stream começa
+ * nos próximos eventos. Se a retomada não for mais possível, o servidor envia um evento
+ * {@code reset} com a sequência atual e encerra; o cliente recarrega o board. O evento seguinte só
+ * é pedido ao feed depois de o anterior ser escrito, então um cliente lento não acumula eventos no
+ * servidor. Sem virtual threads, cada stream aberto ocupa uma das threads do servidor.
+ * <p>
+ * Rotas:
+ * <pre>
+ * GET    /health
+ * GET    /boards                      POST /boards {name}
+ * GET    /boards/{id}                 PUT  /boards/{id} {name}      DELETE /boards/{id}
+ * GET    /boards/{id}/columns
+ * GET    /boards/{id}/cards?pageSize=&amp;afterColumnId=&amp;afterTitle=&amp;afterId=
+ * POST   /boards/{id}/cards {title, description}
+ * GET    /boards/{id}/blocked-cards
+ * GET    /boards/{id}/events          (text/event-stream)
+ * GET    /boards/{id}/metrics?from=&amp;to=   (datas ISO; padrão: os últimos 30 dias)
+ * GET    /boards/{id}/search?q=&amp;page=&amp;pageSize=   GET /search?q=&amp;page=&amp;pageSize=
+ * GET    /cards/{id}                  PUT  /cards/{id} {title, description, version}   DELETE /cards/{id}
+ * GET    /cards/{id}/movements
+ * POST   /cards/{id}/move {columnId, version}
+ * POST   /cards/{id}/block {reason}   POST /cards/{id}/unblock {reason}   POST /cards/{id}/cancel
+ * </pre>
+ */
+public class ApiServer {
+
+    public static final String SESSION_HEADER = "X-Session-Id";
+
+    private static final System.Logger LOGGER = System.getLogger(ApiServer.class.getName());
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_SESSIONS = 10_000;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    // Resposta já escrita pela rota (streams)
+    private static final Response STREAMED = new Response(200, null);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BoardService boardService;
+    private final BoardQueryService boardQueryService;
+    private final BoardColumnQueryService boardColumnQueryService;
+    private final CardService cardService;
+    private final CardQueryService cardQueryService;
+    private final BoardChangeFeed boardChangeFeed;
+    private final Map<String, ReadYourWritesSession> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ReadYourWritesSession> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    /**
+     * As consultas usam {@code readDataSource} e as alterações, {@code dataSource}, como nos menus.
+     */
+    public ApiServer(final InetSocketAddress address, final DataSource dataSource, final DataSource readDataSource) throws IOException {
+        // Sem TCP_NODELAY o corpo da resposta espera o ACK atrasado do cabeçalho (~40 ms por requisição);
+        // lida pelo HttpServer na criação do primeiro servidor
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, Integer.getInteger("board.server.backlog", 4_096));
+        this.executor = VirtualThreads.newExecutor("board-http", Integer.getInteger("board.server.threads", 200));
+        this.boardService = new BoardService(dataSource);
+        this.boardQueryService = new BoardQueryService(readDataSource);
+        this.boardColumnQueryService = new BoardColumnQueryService(readDataSource);
+        this.cardService = new CardService(dataSource);
+        this.cardQueryService = new CardQueryService(readDataSource);
+        this.boardChangeFeed = BoardChangeFeed.shared();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.log(INFO, "API HTTP ouvindo na porta " + port()
+                + (VirtualThreads.isAvailable() ? " (virtual threads)." : " (threads de plataforma)."));
+    }
+
+    /**
+     * Para de aceitar conexões e espera até {@code grace} pelas requisições em andamento.
+     */
+    public void stop(final Duration grace) {
+        server.stop((int) Math.max(0, grace.toSeconds()));
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var binding = sessionOf(exchange).bind();
+            try {
+                var response = route(exchange);
+                if (response == null) {
+                    exchange.sendResponseHeaders(204, -1);
+                } else if (response != STREAMED) {
+                    send(exchange, response.status(), response.body());
+                }
+            } catch (EntityNotFoundException e) {
+                sendError(exchange, 404, e.getMessage());
+            } catch (CardBlockedException | CardNotBlockedException | CardFinishedException | OptimisticLockException e) {
+                sendError(exchange, 409, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (RouteException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.log(WARNING, "Falha em " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+                sendError(exchange, 500, "Erro interno.");
+            } finally {
+                binding.close();
+            }
+        }
+    }
+
+    private Response route(final HttpExchange exchange) throws IOException, SQLException {
+        var method = exchange.getRequestMethod();
+        var path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toList();
+        var query = queryOf(exchange);
+
+        if (path.equals(List.of("health"))) {
+            requireMethod(method, "GET");
+            return ok(Json.object("status", "UP"));
+        }
+        if (path.equals(List.of("search"))) {
+            requireMethod(method, "GET");
+            return ok(toJson(search(query, null)));
+        }
+        if (!path.isEmpty() && path.get(0).equals("boards")) {
+            return routeBoards(exchange, method, path, query);
+        }
+        if (path.size() >= 2 && path.get(0).equals("cards")) {
+            return routeCards(exchange, method, path);
+        }
+        throw new RouteException(404, "Rota não encontrada.");
+    }
+
+    private Response routeBoards(final HttpExchange exchange, final String method, final List<String> path,
+                                 final Map<String, String> query) throws IOException, SQLException {
+        if (path.size() == 1) {
+            if (method.equals("GET")) {
+                return ok(boardQueryService.findAllBoards().stream().map(ApiServer::toJson).toList());
+            }
+            requireMethod(method, "POST");
+            var body = body(exchange);
+            return created(toJson(boardService.createBoard(required(body, "name"))));
+        }
+
+        var boardId = id(path.get(1));
+        if (path.size() == 2) {
+            switch (method) {
+                case "GET" -> {
+                    return ok(toJson(boardQueryService.getBoardDetails(boardId)));
+                }
+                case "PUT" -> {
+                    var body = body(exchange);
+                    return ok(toJson(boardService.updateBoard(boardId, required(body, "name"))));
+                }
+                case "DELETE" -> {
+                    boardService.deleteBoard(boardId);
+                    return null;
+                }
+                default -> throw new RouteException(405, "Método não permitido.");
+            }
+        }
+        if (path.size() != 3) {
+            throw new RouteException(404, "Rota não encontrada.");
+        }
+        switch (path.get(2)) {
+            case "columns" -> {
+                requireMethod(method, "GET");
+                return ok(boardColumnQueryService.findColumnsByBoardId(boardId).stream().map(ApiServer::toJson).toList());
+            }
+            case "cards" -> {
+                if (method.equals("POST")) {
+                    var body = body(exchange);
+                    return created(toJson(cardService.createCard(required(body, "title"), body.get("description"), boardId)));
+                }
+                requireMethod(method, "GET");
+                var after = query.containsKey("afterId")
+                        ? new CardCursorDTO(optionalId(query.get("afterColumnId")), query.get("afterTitle"), id(query.get("afterId")))
+                        : null;
+                return ok(toJson(cardQueryService.findCardsPageByBoardId(boardId, after, intParam(query, "pageSize", DEFAULT_PAGE_SIZE))));
+            }
+            case "blocked-cards" -> {
+                requireMethod(method, "GET");
+                return ok(cardQueryService.findBlockedCardsByBoardId(boardId).stream().map(ApiServer::toJson).toList());
+            }
+            case "search" -> {
+                requireMethod(method, "GET");
+                return ok(toJson(search(query, boardId)));
+            }
+            case "metrics" -> {
+                requireMethod(method, "GET");
+                var to = dateParam(query, "to", LocalDate.now(ZoneOffset.UTC));
+                var from = dateParam(query, "from", to.minusDays(29));
+                return ok(toJson(boardQueryService.getFlowMetrics(boardId, from, to)));
+            }
+            case "events" -> {
+                requireMethod(method, "GET");
+                boardQueryService.findBoardById(boardId);
+                var lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+                var after = lastEventId != null ? lastEventId : query.get("after");
+                return streamEvents(exchange, boardId, after == null || after.isBlank()
+                        ? boardChangeFeed.events(boardId, BoardChangeFeed.LATEST)
+                        : eventsAfter(boardId, after));
+            }
+            default -> throw new RouteException(404, "Rota não encontrada.");
+        }
+    }
+
+    private Response routeCards(final HttpExchange exchange, final String method, final List<String> path)
+            throws IOException, SQLException {
+        var cardId = id(path.get(1));
+        if (path.size() == 2) {
+            switch (method) {
+                case "GET" -> {
+                    return ok(toJson(cardQueryService.getCardDetails(cardId)));
+                }
+                case "PUT" -> {
+                    var body = body(exchange);
+                    cardService.updateCard(cardId, optionalId(body.get("version")), required(body, "title"), body.get("description"));
+                    return ok(toJson(cardQueryService.getCardDetails(cardId)));
+                }
+                case "DELETE" -> {
+                    cardService.deleteCard(cardId);
+                    return null;
+                }
+                default -> throw new RouteException(405, "Método não permitido.");
+            }
+        }
+        if (path.size() != 3) {
+            throw new RouteException(404, "Rota não encontrada.");
+        }
+        if (path.get(2).equals("movements")) {
+            requireMethod(method, "GET");
+            return ok(cardQueryService.findMovementsByCardId(cardId).stream().map(ApiServer::toJson).toList());
+        }
+        requireMethod(method, "POST");
+        var body = body(exchange);
+        switch (path.get(2)) {
+            case "move" -> cardService.moveCard(cardId, optionalId(body.get("version")), id(required(body, "columnId")));
+            case "block" -> cardService.blockCard(cardId, required(body, "reason"));
+            case "unblock" -> cardService.unblockCard(cardId, required(body, "reason"));
+            case "cancel" -> cardService.cancelCard(cardId);
+            default -> throw new RouteException(404, "Rota não encontrada.");
+        }
+        return ok(toJson(cardQueryService.getCardDetails(cardId)));
+    }
+
+    /**
+     * Eventos após o ID {@code epoch:sequência}; um ID sem epoch resulta em reset.
+     */
+    private Flow.Publisher<BoardEvent> eventsAfter(final Long boardId, final String eventId) {
+        var separator = eventId.lastIndexOf(':');
+        var epoch = separator < 0 ? null : eventId.substring(0, separator);
+        return boardChangeFeed.events(boardId, epoch, id(eventId.substring(separator + 1)));
+    }
+
+    private Response streamEvents(final HttpExchange exchange, final Long boardId, final Flow.Publisher<BoardEvent> events) {
+        var stream = new EventStream();
+        events.subscribe(stream);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = exchange.getResponseBody()) {
+                while (true) {
+                    var item = stream.items.poll(KEEP_ALIVE_SECONDS, SECONDS);
+                    if (item == null) {
+                        out.write(": keep-alive\n\n".getBytes(UTF_8));
+                    } else if (item instanceof BoardEvent event) {
+                        out.write(("id: " + event.id() + "\nevent: " + event.type() + "\ndata: "
+                                + Json.write(toJson(event)) + "\n\n").getBytes(UTF_8));
+                        stream.subscription.request(1);
+                    } else if (item instanceof BoardEventsLostException e) {
+                        // O id do reset faz a reconexão automática do navegador começar na sequência atual
+                        out.write(("id: " + boardChangeFeed.epoch() + ":" + boardChangeFeed.lastSequence(boardId) + "\nevent: reset\ndata: "
+                                + Json.write(Json.object("error", e.getMessage())) + "\n\n").getBytes(UTF_8));
+                        break;
+                    } else {
+                        break;
+                    }
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Cliente desconectou
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stream.subscription.cancel();
+        }
+        return STREAMED;
+    }
+
+    private CardSearchPageDTO search(final Map<String, String> query, final Long boardId) throws SQLException {
+        var text = query.get("q");
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Informe o parâmetro q.");
+        }
+        return cardQueryService.searchCards(text, boardId, intParam(query, "page", 1), intParam(query, "pageSize", DEFAULT_PAGE_SIZE));
+    }
+
+    private ReadYourWritesSession sessionOf(final HttpExchange exchange) {
+        var sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (sessionId == null || sessionId.isBlank()) {
+            return new ReadYourWritesSession();
+        }
+        synchronized (sessions) {
+            return sessions.computeIfAbsent(sessionId, ignored -> new ReadYourWritesSession());
+        }
+    }
+
+    private static Map<String, String> body(final HttpExchange exchange) throws IOException {
+        try (var in = exchange.getRequestBody()) {
+            var bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new RouteException(413, "Corpo da requisição acima de " + MAX_BODY_BYTES + " bytes.");
+            }
+            return bytes.length == 0 ? Map.of() : Json.readObject(new String(bytes, UTF_8));
+        }
+    }
+
+    private static Map<String, String> queryOf(final HttpExchange exchange) {
+        var query = new HashMap<String, String>();
+        var raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (var pair : raw.split("&")) {
+            var separator = pair.indexOf('=');
+            var key = separator < 0 ? pair : pair.substring(0, separator);
+            var value = separator < 0 ? "" : pair.substring(separator + 1);
+            query.put(URLDecoder.decode(key, UTF_8), URLDecoder.decode(value, UTF_8));
+        }
+        return query;
+    }
+
+    private static String required(final Map<String, String> body, final String field) {
+        var value = body.get(field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + field + ".");
+        }
+        return value;
+    }
+
+    private static Long id(final String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID inválido: " + value + ".");
+        }
+    }
+
+    private static Long optionalId(final String value) {
+        return value == null || value.isBlank() ? null : id(value);
+    }
+
+    private static int intParam(final Map<String, String> query, final String name, final int defaultValue) {
+        var value = query.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + name + ".");
+        }
+    }
+
+    private static LocalDate dateParam(final Map<String, String> query, final String name, final LocalDate defaultValue) {
+        var value = query.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + name + ".");
+        }
+    }
+
+    private static void requireMethod(final String method, final String expected) {
+        if (!method.equals(expected)) {
+            throw new RouteException(405, "Método não permitido.");
+        }
+    }
+
+    private static Response ok(final Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response created(final Object body) {
+        return new Response(201, body);
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+        send(exchange, status, Json.object("error", message));
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final Object body) throws IOException {
+        var bytes = Json.write(body).getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> toJson(final BoardEntity board) {
+        return Json.object("id", board.getId(), "name", board.getName());
+    }
+
+    private static Map<String, Object> toJson(final BoardDetailsDTO board) {
+        return Json.object("id", board.id(), "name", board.name(), "columns", board.columns().stream()
+                .map(column -> Json.object("id", column.id(), "name", column.name(), "kind", column.kind(),
+                        "cardsAmount", column.cardsAmount(), "blockedAmount", column.blockedAmount()))
+                .toList());
+    }
+
+    private static Map<String, Object> toJson(final BoardColumnEntity column) {
+        return Json.object("id", column.getId(), "name", column.getName(), "order", column.getOrder(),
+                "kind", column.getKind(), "version", column.getVersion());
+    }
+
+    private static Map<String, Object> toJson(final CardEntity card) {
+        var column = card.getBoardColumn();
+        return Json.object("id", card.getId(), "title", card.getTitle(), "description", card.getDescription(),
+                "columnId", column != null ? column.getId() : null,
+                "columnName", column != null ? column.getName() : null,
+                "blocked", card.isBlocked(), "version", card.getVersion());
+    }
+
+    private static Map<String, Object> toJson(final CardDetailsDTO card) {
+        return Json.object("id", card.id(), "title", card.title(), "description", card.description(),
+                "blocked", card.blocked(), "blockedAt", card.blockedAt(), "blockReason", card.blockReason(),
+                "blocksAmount", card.blocksAmount(), "columnId", card.columnId(), "columnName", card.columnName());
+    }
+
+    private static Map<String, Object> toJson(final CardPageDTO page) {
+        var next = page.nextCursor();
+        return Json.object("cards", page.cards().stream().map(ApiServer::toJson).toList(),
+                "next", next == null ? null
+                        : Json.object("afterColumnId", next.boardColumnId(), "afterTitle", next.title(), "afterId", next.id()));
+    }
+
+    private static Map<String, Object> toJson(final CardSearchPageDTO page) {
+        return Json.object("results", page.results().stream()
+                        .map(result -> Json.object("id", result.id(), "title", result.title(),
+                                "columnName", result.columnName(), "score", result.score()))
+                        .toList(),
+                "page", page.page(), "pageSize", page.pageSize(), "totalHits", page.totalHits(),
+                "hasNext", page.hasNext());
+    }
+
+    private static Map<String, Object> toJson(final CardMovementEntity movement) {
+        return Json.object("columnId", movement.getBoardColumnId(), "kind", movement.getBoardColumnKind(),
+                "movedAt", movement.getMovedAt());
+    }
+
+    private static Map<String, Object> toJson(final BoardFlowMetricsDTO metrics) {
+        var timeInKind = new LinkedHashMap<String, Object>();
+        metrics.timeInKind().forEach((kind, time) -> timeInKind.put(kind.name(), toJson(time)));
+        return Json.object("boardId", metrics.boardId(), "from", metrics.from(), "to", metrics.to(),
+                "throughput", metrics.throughput(), "entered", metrics.entered(),
+                "leadTime", toJson(metrics.leadTime()), "cycleTime", toJson(metrics.cycleTime()),
+                "timeInKind", timeInKind,
+                "daily", metrics.daily().stream()
+                        .map(day -> Json.object("date", day.date(), "finished", day.finished(), "cancelled", day.cancelled()))
+                        .toList());
+    }
+
+    // Percentis em milissegundos
+    private static Map<String, Object> toJson(final FlowTimeDTO time) {
+        return Json.object("count", time.count(), "p50", millis(time.p50()), "p85", millis(time.p85()),
+                "p95", millis(time.p95()));
+    }
+
+    private static Long millis(final Duration duration) {
+        return duration == null ? null : duration.toMillis();
+    }
+
+    private static Map<String, Object> toJson(final BoardEvent event) {
+        return Json.object("id", event.id(), "sequence", event.sequence(), "boardId", event.boardId(), "type", event.type(),
+                "cardId", event.cardId(), "columnId", event.columnId(), "occurredAt", event.occurredAt());
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    /**
+     * Assinatura de um stream SSE: pede um evento por vez e os entrega à thread da requisição.
+     * A fila recebe no máximo o evento pedido e o sinal de término.
+     */
+    private static final class EventStream implements Flow.Subscriber<BoardEvent> {
+
+        private static final Object COMPLETE = new Object();
+
+        private final LinkedBlockingQueue<Object> items = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final BoardEvent event) {
+            items.add(event);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            items.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            items.add(COMPLETE);
+        }
+
+    }
+
+    /**
+     * Erro de roteamento com o status HTTP a devolver.
+     */
+    private static final class RouteException extends RuntimeException {
+
+        private final int status;
+
+        private RouteException(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+package br.com.dio.api;
+
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * JSON mínimo da API: escreve mapas, listas, textos, números, booleanos, enums e {@code null}, e lê
+ * os corpos das requisições, que são objetos planos.
+ */
+@NoArgsConstructor(access = PRIVATE)
+final class Json {
+
+    /**
+     * Objeto com as chaves na ordem informada: {@code object("id", 1, "name", "Board")}.
+     */
+    static Map<String, Object> object(final Object... keysAndValues) {
+        var object = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            object.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return object;
+    }
+
+    static String write(final Object value) {
+        var json = new StringBuilder();
+        write(value, json);
+        return json.toString();
+    }
+
+    /**
+     * Campos de um objeto JSON plano; números, booleanos e {@code null} vêm como texto do literal
+     * (ou {@code null}). Lança {@link IllegalArgumentException} se o corpo for inválido.
+     */
+    static Map<String, String> readObject(final String text) {
+        return new FlatObjectParser(text).parse();
+    }
+
+    private static void write(final Object value, final StringBuilder json) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof String text) {
+            writeString(text, json);
+        } else if (value instanceof Double number && !Double.isFinite(number)) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Enum<?> constant) {
+            writeString(constant.name(), json);
+        } else if (value instanceof Map<?, ?> map) {
+            json.append('{');
+            var first = true;
+            for (var entry : map.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                writeString(String.valueOf(entry.getKey()), json);
+                json.append(':');
+                write(entry.getValue(), json);
+            }
+            json.append('}');
+        } else if (value instanceof Collection<?> values) {
+            json.append('[');
+            var first = true;
+            for (var element : values) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                write(element, json);
+            }
+            json.append(']');
+        } else {
+            writeString(value.toString(), json);
+        }
+    }
+
+    private static void writeString(final String text, final StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class FlatObjectParser {
+
+        private final String text;
+        private int position;
+
+        private FlatObjectParser(final String text) {
+            this.text = text;
+        }
+
+        private Map<String, String> parse() {
+            var fields = new HashMap<String, String>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return fields;
+            }
+            while (true) {
+                var key = readString();
+                expect(':');
+                fields.put(key, readValue());
+                var separator = next();
+                if (separator == '}') {
+                    break;
+                }
+                if (separator != ',') {
+                    throw error("esperado ',' ou '}'");
+                }
+            }
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("conteúdo após o fim do objeto");
+            }
+            return fields;
+        }
+
+        private String readValue() {
+            var c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("valores aninhados não são suportados");
+            }
+            var start = position;
+            while (position < text.length() && ",} \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            var literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("valor ausente");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() {
+            expect('"');
+            var value = new StringBuilder();
+            while (position < text.length()) {
+                var c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                var escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("escape unicode incompleto");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape unicode inválido");
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("texto não terminado");
+        }
+
+        private void expect(final char expected) {
+            if (next() != expected) {
+                throw error("esperado '" + expected + "'");
+            }
+        }
+
+        private char next() {
+            var c = peek();
+            position++;
+            return c;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("fim inesperado do corpo");
+            }
+            return text.charAt(position);
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(final String reason) {
+            return new IllegalArgumentException("JSON inválido: " + reason + " (posição " + position + ")");
+        }
+
+    }
+
+}
@@ -5,5 +5,6 @@ import br.com.dio.persistence.entity.BoardColumnKindEnum;
 public record BoardColumnDTO(Long id,
                              String name,
                              BoardColumnKindEnum kind,
-                             int cardsAmount) {
+                             int cardsAmount,
+                             int blockedAmount) {
 }
@@ -0,0 +1,35 @@
+package br.com.dio.dto;
+
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Métricas de fluxo de um board entre {@code from} e {@code to} (dias UTC, inclusive).
+ * <ul>
+ *     <li>{@code entered}: entradas de cards em colunas de cada tipo;</li>
+ *     <li>{@code leadTime}: da criação até a entrada em uma coluna final;</li>
+ *     <li>{@code cycleTime}: da primeira entrada em uma coluna pendente até a coluna final;</li>
+ *     <li>{@code timeInKind}: permanência em cada tipo de coluna, registrada na saída;</li>
+ *     <li>{@code daily}: cards finalizados e cancelados por dia, só nos dias com movimento.</li>
+ * </ul>
+ */
+public record BoardFlowMetricsDTO(Long boardId,
+                                  LocalDate from,
+                                  LocalDate to,
+                                  Map<BoardColumnKindEnum, Long> entered,
+                                  FlowTimeDTO leadTime,
+                                  FlowTimeDTO cycleTime,
+                                  Map<BoardColumnKindEnum, FlowTimeDTO> timeInKind,
+                                  List<DailyThroughputDTO> daily) {
+
+    /**
+     * Cards finalizados no período.
+     */
+    public long throughput() {
+        return entered.getOrDefault(BoardColumnKindEnum.FINAL, 0L);
+    }
+
+}
@@ -0,0 +1,12 @@
+package br.com.dio.dto;
+
+import java.util.List;
+
+public record BulkCardResultDTO(List<Long> updatedIds,
+                                List<CardFailureDTO> failures) {
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+}
@@ -0,0 +1,15 @@
+package br.com.dio.dto;
+
+import br.com.dio.persistence.entity.CardEntity;
+
+/**
+ * Posição do último card de uma página na ordenação (coluna, título, id). A próxima página
+ * começa logo depois dela, sem {@code OFFSET}.
+ */
+public record CardCursorDTO(Long boardColumnId, String title, Long id) {
+
+    public static CardCursorDTO after(CardEntity card) {
+        return new CardCursorDTO(card.getBoardColumn().getId(), card.getTitle(), card.getId());
+    }
+
+}
@@ -0,0 +1,4 @@
+package br.com.dio.dto;
+
+public record CardFailureDTO(Long cardId, String reason) {
+}
@@ -0,0 +1,16 @@
+package br.com.dio.dto;
+
+import br.com.dio.persistence.entity.CardEntity;
+
+import java.util.List;
+
+/**
+ * Página de cards; {@code nextCursor} é {@code null} na última página.
+ */
+public record CardPageDTO(List<CardEntity> cards, CardCursorDTO nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
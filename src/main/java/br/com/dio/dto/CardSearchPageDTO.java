@@ -0,0 +1,14 @@
+package br.com.dio.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados de busca ordenada por relevância; {@code page} começa em 1.
+ */
+public record CardSearchPageDTO(List<CardSearchResultDTO> results, int page, int pageSize, int totalHits) {
+
+    public boolean hasNext() {
+        return (long) page * pageSize < totalHits;
+    }
+
+}
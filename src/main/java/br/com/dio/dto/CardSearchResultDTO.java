@@ -0,0 +1,8 @@
+package br.com.dio.dto;
+
+public record CardSearchResultDTO(Long id,
+                                  String title,
+                                  String columnName,
+                                  double score
+) {
+}
@@ -0,0 +1,11 @@
+package br.com.dio.dto;
+
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+
+public record CardStatusDTO(Long id,
+                            Long boardId,
+                            Long columnId,
+                            BoardColumnKindEnum columnKind,
+                            boolean blocked,
+                            long version) {
+}
@@ -0,0 +1,7 @@
+package br.com.dio.dto;
+
+public record ColumnCardCountDTO(Long columnId,
+                                 Long boardId,
+                                 int cardsAmount,
+                                 int blockedAmount) {
+}
@@ -0,0 +1,9 @@
+package br.com.dio.dto;
+
+import java.time.Duration;
+
+/**
+ * Distribuição de um tempo de fluxo; os percentis são aproximados e nulos quando {@code count} é zero.
+ */
+public record FlowTimeDTO(long count, Duration p50, Duration p85, Duration p95) {
+}
@@ -0,0 +1,22 @@
+package br.com.dio.exception;
+
+import lombok.Getter;
+
+/**
+ * Exceção entregue ao assinante do feed de um board quando os eventos seguintes à sequência
+ * {@code afterSequence} não estão mais retidos (ou nunca existiram neste processo). O assinante
+ * deve recarregar o board e assinar de novo a partir da sequência atual.
+ */
+@Getter
+public class BoardEventsLostException extends RuntimeException {
+
+    private final Long boardId;
+    private final long afterSequence;
+
+    public BoardEventsLostException(Long boardId, long afterSequence) {
+        super("Eventos do board com ID " + boardId + " após a sequência " + afterSequence + " não estão mais disponíveis.");
+        this.boardId = boardId;
+        this.afterSequence = afterSequence;
+    }
+
+}
@@ -0,0 +1,12 @@
+package br.com.dio.exception;
+
+/**
+ * Exceção lançada quando se tenta desbloquear um card que não está bloqueado.
+ */
+public class CardNotBlockedException extends RuntimeException {
+
+    public CardNotBlockedException(Long cardId) {
+        super("O card com ID " + cardId + " não está bloqueado.");
+    }
+
+}
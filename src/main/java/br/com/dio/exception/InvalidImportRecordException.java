@@ -0,0 +1,20 @@
+package br.com.dio.exception;
+
+/**
+ * Exceção lançada quando uma linha do arquivo de importação de cards não pode ser interpretada.
+ */
+public class InvalidImportRecordException extends RuntimeException {
+
+    public InvalidImportRecordException(String message) {
+        super(message);
+    }
+
+    public InvalidImportRecordException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidImportRecordException(long lineNumber, String reason) {
+        super("Linha " + lineNumber + " inválida: " + reason);
+    }
+
+}
@@ -0,0 +1,23 @@
+package br.com.dio.exception;
+
+import lombok.Getter;
+
+/**
+ * Exceção lançada quando uma atualização com controle de versão encontra o registro já alterado
+ * por outra transação desde a leitura.
+ */
+@Getter
+public class OptimisticLockException extends RuntimeException {
+
+    private final String entityName;
+    private final Long id;
+    private final long expectedVersion;
+
+    public OptimisticLockException(String entityName, Long id, long expectedVersion) {
+        super(entityName + " com ID " + id + " foi alterado por outra operação (versão esperada: " + expectedVersion + ").");
+        this.entityName = entityName;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+}
@@ -0,0 +1,340 @@
+package br.com.dio.persistence.cache;
+
+import br.com.dio.dto.CardStatusDTO;
+import br.com.dio.persistence.dao.CardDAO;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Índice em memória dos cards bloqueados, em {@link IdBitmap}s: um global e um por board.
+ * <p>
+ * É carregado de {@code card.active_block_id} por {@link #reload(DataSource)} e mantido pelos
+ * serviços, que chamam {@link #blocked(Long, Long)} e {@link #unblocked(Long, Long)}; dentro de uma
+ * transação a alteração só é aplicada depois do commit. O banco continua sendo a fonte da verdade
+ * das regras de bloqueio: o índice atende consultas de leitura e, enquanto não for carregado,
+ * {@link #isLoaded()} é falso e os serviços consultam o banco. Uma verificação periódica compara
+ * os bloqueios do banco com o índice em blocos de IDs e corrige as divergências, exceto nos cards
+ * alterados durante a comparação, que ficam para a próxima verificação.
+ */
+public final class BlockedCardIndex {
+
+    private static final System.Logger LOGGER = System.getLogger(BlockedCardIndex.class.getName());
+
+    private static final int CHECK_CHUNK_SIZE = 5_000;
+
+    private static volatile BlockedCardIndex shared;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IdBitmap blocked = new IdBitmap();
+    private Map<Long, IdBitmap> blockedByBoard = new HashMap<>();
+    private volatile boolean loaded;
+    private long mutations;
+    // Valor de mutations na última alteração de cada card, anotado só com a verificação agendada
+    private final Map<Long, Long> changedAtByCardId = new HashMap<>();
+    private volatile boolean trackingChanges;
+    private final AtomicLong repairs = new AtomicLong();
+    private ScheduledExecutorService checker;
+
+    public static BlockedCardIndex shared() {
+        if (shared == null) {
+            synchronized (BlockedCardIndex.class) {
+                if (shared == null) {
+                    shared = new BlockedCardIndex();
+                }
+            }
+        }
+        return shared;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isBlocked(final Long cardId) {
+        lock.readLock().lock();
+        try {
+            return blocked.contains(cardId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return blocked.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countByBoardId(final Long boardId) {
+        lock.readLock().lock();
+        try {
+            var board = blockedByBoard.get(boardId);
+            return board == null ? 0 : board.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs dos cards bloqueados do board, em ordem crescente.
+     */
+    public List<Long> findIdsByBoardId(final Long boardId) {
+        lock.readLock().lock();
+        try {
+            var board = blockedByBoard.get(boardId);
+            return board == null ? List.of() : board.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void blocked(final Long cardId, final Long boardId) {
+        afterCommit(cardId, () -> add(cardId, boardId));
+    }
+
+    public void unblocked(final Long cardId, final Long boardId) {
+        afterCommit(cardId, () -> remove(cardId, boardId));
+    }
+
+    /**
+     * Remove os cards do board excluído (a exclusão apaga os cards em cascata).
+     */
+    public void boardDeleted(final Long boardId) {
+        afterCommit(() -> {
+            var board = blockedByBoard.remove(boardId);
+            if (board != null) {
+                board.forEach(blocked::remove);
+            }
+        });
+    }
+
+    /**
+     * Relê os cards bloqueados de todos os shards e substitui o índice, retornando quantos IDs
+     * divergiam. Se o índice mudar durante a leitura, a substituição é adiada para a próxima
+     * verificação e o retorno é -1.
+     */
+    public int reload(final DataSource dataSource) throws SQLException {
+        long mutationsBefore;
+        lock.readLock().lock();
+        try {
+            mutationsBefore = mutations;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        var freshBlocked = new IdBitmap();
+        var freshByBoard = new HashMap<Long, IdBitmap>();
+        for (var shard : shardsOf(dataSource)) {
+            for (var status : withConnection(shard, connection -> new CardDAO(connection).findBlockedStatuses())) {
+                freshBlocked.add(status.id());
+                freshByBoard.computeIfAbsent(status.boardId(), ignored -> new IdBitmap()).add(status.id());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded && mutations != mutationsBefore) {
+                return -1;
+            }
+            var drift = loaded ? blocked.countMissingFrom(freshBlocked) + freshBlocked.countMissingFrom(blocked) : 0;
+            blocked = freshBlocked;
+            blockedByBoard = freshByBoard;
+            loaded = true;
+            if (drift > 0) {
+                repairs.incrementAndGet();
+            }
+            return drift;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Percorre os cards bloqueados de cada shard em blocos de IDs, comparando-os com o índice, e
+     * corrige os cards divergentes; retorna quantos foram corrigidos. Um card alterado depois do
+     * início da comparação do seu bloco fica como está.
+     */
+    public int reconcile(final DataSource dataSource) throws SQLException {
+        if (!loaded) {
+            return 0;
+        }
+        var startedAt = currentMutations();
+        lock.writeLock().lock();
+        try {
+            changedAtByCardId.values().removeIf(changedAt -> changedAt <= startedAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        var repaired = 0;
+        for (var shard : shardsOf(dataSource)) {
+            var after = 0L;
+            while (true) {
+                var mutationsBefore = currentMutations();
+                var cursor = after;
+                var statuses = withConnection(shard, connection -> new CardDAO(connection).findBlockedStatusPage(cursor, CHECK_CHUNK_SIZE));
+                var last = statuses.size() < CHECK_CHUNK_SIZE ? Long.MAX_VALUE : statuses.get(statuses.size() - 1).id();
+                repaired += repair(dataSource, shard, after, last, statuses, mutationsBefore);
+                if (last == Long.MAX_VALUE) {
+                    break;
+                }
+                after = last;
+            }
+        }
+        if (repaired > 0) {
+            repairs.incrementAndGet();
+        }
+        return repaired;
+    }
+
+    /**
+     * Agenda {@link #reconcile(DataSource)} a cada {@code periodMillis} em uma thread daemon.
+     */
+    public synchronized void scheduleConsistencyCheck(final DataSource dataSource, final long periodMillis) {
+        if (checker != null) {
+            return;
+        }
+        trackingChanges = true;
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "board-blocked-index-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(() -> check(dataSource), periodMillis, periodMillis, MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (checker != null) {
+            checker.shutdownNow();
+            checker = null;
+        }
+        trackingChanges = false;
+    }
+
+    /**
+     * Quantas verificações encontraram e corrigiram divergências.
+     */
+    public long repairs() {
+        return repairs.get();
+    }
+
+    /**
+     * Corrige o bloco {@code (after, last]} do shard a partir dos cards bloqueados lidos do banco.
+     */
+    private int repair(final DataSource dataSource, final DataSource shard, final long after, final long last,
+                       final List<CardStatusDTO> statuses, final long mutationsBefore) {
+        var repaired = 0;
+        lock.writeLock().lock();
+        try {
+            var fresh = new HashSet<Long>();
+            for (var status : statuses) {
+                fresh.add(status.id());
+                if (!blocked.contains(status.id()) && !changedSince(status.id(), mutationsBefore)) {
+                    add(status.id(), status.boardId());
+                    repaired++;
+                }
+            }
+            var stale = new ArrayList<Long>();
+            blocked.forEachInRange(after, last, id -> {
+                if (!fresh.contains(id) && shardFor(dataSource, id) == shard && !changedSince(id, mutationsBefore)) {
+                    stale.add(id);
+                }
+            });
+            for (var id : stale) {
+                // Divergência rara: o board do card é procurado entre todos
+                blockedByBoard.entrySet().stream()
+                        .filter(entry -> entry.getValue().contains(id))
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .ifPresentOrElse(boardId -> remove(id, boardId), () -> blocked.remove(id));
+                repaired++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return repaired;
+    }
+
+    private boolean changedSince(final long cardId, final long mutationsBefore) {
+        var changedAt = changedAtByCardId.get(cardId);
+        return changedAt != null && changedAt > mutationsBefore;
+    }
+
+    private void add(final long cardId, final Long boardId) {
+        blocked.add(cardId);
+        blockedByBoard.computeIfAbsent(boardId, ignored -> new IdBitmap()).add(cardId);
+    }
+
+    private void remove(final long cardId, final Long boardId) {
+        blocked.remove(cardId);
+        var board = blockedByBoard.get(boardId);
+        if (board != null) {
+            board.remove(cardId);
+            if (board.isEmpty()) {
+                blockedByBoard.remove(boardId);
+            }
+        }
+    }
+
+    private long currentMutations() {
+        lock.readLock().lock();
+        try {
+            return mutations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void check(final DataSource dataSource) {
+        try {
+            var repaired = reconcile(dataSource);
+            if (repaired > 0) {
+                LOGGER.log(WARNING, "Índice de cards bloqueados divergia do banco em " + repaired + " card(s); cards corrigidos.");
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(WARNING, "Falha na verificação do índice de cards bloqueados.", e);
+        }
+    }
+
+    private void afterCommit(final Runnable change) {
+        runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                mutations++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void afterCommit(final Long cardId, final Runnable change) {
+        afterCommit(() -> {
+            change.run();
+            if (trackingChanges) {
+                changedAtByCardId.put(cardId, mutations + 1);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,54 @@
+package br.com.dio.persistence.cache;
+
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.BoardEntity;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Estrutura imutável de um board (colunas, ordem e tipos) guardada no {@link BoardStructureCache}.
+ */
+public record BoardLayout(Long boardId, List<Column> columns) {
+
+    public BoardLayout {
+        columns = List.copyOf(columns);
+    }
+
+    static BoardLayout of(final Long boardId, final List<BoardColumnEntity> columns) {
+        return new BoardLayout(boardId, columns.stream()
+                .map(column -> new Column(column.getId(), column.getName(), column.getOrder(), column.getKind(), column.getVersion()))
+                .toList());
+    }
+
+    public Optional<Column> findColumn(final Long columnId) {
+        return columns.stream().filter(column -> column.id().equals(columnId)).findFirst();
+    }
+
+    public Optional<Column> findColumn(final BoardColumnKindEnum kind) {
+        return columns.stream().filter(column -> column.kind() == kind).findFirst();
+    }
+
+    public record Column(Long id, String name, int order, BoardColumnKindEnum kind, long version) {
+
+        /**
+         * Cópia nova a cada chamada, para que o chamador possa alterá-la sem afetar o cache.
+         */
+        public BoardColumnEntity toEntity(final Long boardId) {
+            var board = new BoardEntity();
+            board.setId(boardId);
+
+            var boardColumn = new BoardColumnEntity();
+            boardColumn.setId(id);
+            boardColumn.setName(name);
+            boardColumn.setOrder(order);
+            boardColumn.setKind(kind);
+            boardColumn.setVersion(version);
+            boardColumn.setBoard(board);
+            return boardColumn;
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package br.com.dio.persistence.cache;
+
+import br.com.dio.persistence.dao.BoardColumnDAO;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache read-through, em memória, da estrutura de colunas de cada board. Em caso de falta a
+ * estrutura é lida com a conexão do chamador; boards sem colunas não são guardados. O tamanho é
+ * limitado a {@code maxBoards} com descarte LRU.
+ * <p>
+ * A estrutura só muda por {@code BoardService}, que chama {@link #invalidate(Long)} depois de
+ * confirmar a transação. Um contador de gerações impede que uma leitura iniciada antes da
+ * invalidação devolva ao cache a estrutura antiga.
+ */
+public final class BoardStructureCache {
+
+    public static final int DEFAULT_MAX_BOARDS = 1_000;
+
+    private static volatile BoardStructureCache shared;
+
+    private final BoardStructureCacheStats stats = new BoardStructureCacheStats();
+    private final Map<Long, BoardLayout> layouts;
+    private final Map<Long, Long> boardIdByColumnId = new HashMap<>();
+    private long generation;
+
+    public BoardStructureCache(final int maxBoards) {
+        this.layouts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, BoardLayout> eldest) {
+                if (size() <= maxBoards) {
+                    return false;
+                }
+                stats.recordEviction();
+                forgetColumns(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Instância usada pelos serviços; o tamanho vem de {@code board.cache.board-structure.max-size}.
+     */
+    public static BoardStructureCache shared() {
+        if (shared == null) {
+            synchronized (BoardStructureCache.class) {
+                if (shared == null) {
+                    shared = new BoardStructureCache(Integer.getInteger("board.cache.board-structure.max-size", DEFAULT_MAX_BOARDS));
+                }
+            }
+        }
+        return shared;
+    }
+
+    public Optional<BoardLayout> getLayout(final Connection connection, final Long boardId) throws SQLException {
+        synchronized (this) {
+            var layout = layouts.get(boardId);
+            if (layout != null) {
+                stats.recordHit();
+                return Optional.of(layout);
+            }
+            stats.recordMiss();
+        }
+        return load(connection, boardId);
+    }
+
+    public Optional<BoardColumnEntity> findColumn(final Connection connection, final Long boardId,
+                                                  final BoardColumnKindEnum kind) throws SQLException {
+        return getLayout(connection, boardId)
+                .flatMap(layout -> layout.findColumn(kind))
+                .map(column -> column.toEntity(boardId));
+    }
+
+    public Optional<BoardColumnEntity> findColumn(final Connection connection, final Long columnId) throws SQLException {
+        Long boardId;
+        synchronized (this) {
+            boardId = boardIdByColumnId.get(columnId);
+        }
+        if (boardId == null) {
+            // Coluna de um board ainda fora do cache: descobre o board e carrega a estrutura inteira
+            var column = new BoardColumnDAO(connection).findById(columnId);
+            if (column.isEmpty()) {
+                return Optional.empty();
+            }
+            boardId = column.get().getBoard().getId();
+        }
+        var owner = boardId;
+        return getLayout(connection, owner)
+                .flatMap(layout -> layout.findColumn(columnId))
+                .map(column -> column.toEntity(owner));
+    }
+
+    public synchronized void invalidate(final Long boardId) {
+        generation++;
+        stats.recordInvalidation();
+        var removed = layouts.remove(boardId);
+        if (removed != null) {
+            forgetColumns(removed);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        stats.recordInvalidation();
+        layouts.clear();
+        boardIdByColumnId.clear();
+    }
+
+    public synchronized int size() {
+        return layouts.size();
+    }
+
+    public BoardStructureCacheStats stats() {
+        return stats;
+    }
+
+    private Optional<BoardLayout> load(final Connection connection, final Long boardId) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        var columns = new BoardColumnDAO(connection).findByBoardId(boardId);
+        if (columns.isEmpty()) {
+            return Optional.empty();
+        }
+        var layout = BoardLayout.of(boardId, columns);
+        // Uma réplica atrasada devolveria a estrutura anterior a uma invalidação já feita
+        var cacheable = !connection.isReadOnly();
+        synchronized (this) {
+            if (cacheable && generation == loadGeneration) {
+                var previous = layouts.put(boardId, layout);
+                if (previous != null) {
+                    forgetColumns(previous);
+                }
+                layout.columns().forEach(column -> boardIdByColumnId.put(column.id(), boardId));
+            }
+        }
+        return Optional.of(layout);
+    }
+
+    private void forgetColumns(final BoardLayout layout) {
+        layout.columns().forEach(column -> boardIdByColumnId.remove(column.id()));
+    }
+
+}
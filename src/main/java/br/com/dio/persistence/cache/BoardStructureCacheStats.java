@@ -0,0 +1,52 @@
+package br.com.dio.persistence.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores do {@link BoardStructureCache}.
+ */
+public final class BoardStructureCacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public double hitRatio() {
+        var total = hits() + misses();
+        return total == 0 ? 0 : (double) hits() / total;
+    }
+
+}
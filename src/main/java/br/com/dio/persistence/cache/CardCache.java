@@ -0,0 +1,334 @@
+package br.com.dio.persistence.cache;
+
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.persistence.transaction.TransactionScope;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache de cards por ID na frente de {@code CardDAO.findById}, limitado a {@code maxCards}; com
+ * {@code maxCards} igual a zero nenhum card é admitido e toda leitura vai ao banco.
+ * <p>
+ * As leituras consultam um {@link ConcurrentHashMap} sem bloqueio. A política de descarte é LRU
+ * com admissão TinyLFU: quando o cache está cheio, um card novo só entra se o {@link FrequencySketch}
+ * indicar que ele é mais acessado que a vítima do LRU. Os acessos atualizam a política apenas se
+ * o lock estiver livre; sob contenção alguns acessos deixam de ser contados.
+ * <p>
+ * As escritas dos DAOs ficam pendentes no {@link TransactionScope} e só são aplicadas depois do
+ * commit; em rollback são descartadas. Dentro da transação, cards com alteração pendente são lidos
+ * do banco. Uma carga só entra no cache se nenhuma alteração do card (ou de outro card da mesma
+ * faixa de IDs) tiver sido publicada depois do início da transação que leu, e nunca substitui uma
+ * versão mais nova.
+ */
+public final class CardCache {
+
+    public static final int DEFAULT_MAX_CARDS = 10_000;
+
+    private static final int STRIPES = 64;
+
+    private static volatile CardCache shared;
+
+    private final int maxCards;
+    private final CardCacheStats stats = new CardCacheStats();
+    private final Map<Long, CachedCard> cards = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<Long, Boolean> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final AtomicLongArray changedAtNanos = new AtomicLongArray(STRIPES);
+
+    public CardCache(final int maxCards) {
+        if (maxCards < 0) {
+            throw new IllegalArgumentException("O tamanho do cache de cards não pode ser negativo.");
+        }
+        this.maxCards = maxCards;
+        this.sketch = new FrequencySketch(maxCards);
+        var now = System.nanoTime();
+        for (int i = 0; i < STRIPES; i++) {
+            changedAtNanos.set(i, now);
+        }
+    }
+
+    /**
+     * Instância usada pelos DAOs; o tamanho vem de {@code board.cache.card.max-size}.
+     */
+    public static CardCache shared() {
+        if (shared == null) {
+            synchronized (CardCache.class) {
+                if (shared == null) {
+                    shared = new CardCache(Integer.getInteger("board.cache.card.max-size", DEFAULT_MAX_CARDS));
+                }
+            }
+        }
+        return shared;
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+
+        Optional<CardEntity> load(Long id) throws SQLException;
+
+    }
+
+    /**
+     * Devolve uma cópia do card em cache ou o carrega com {@code loader}.
+     */
+    public Optional<CardEntity> get(final Long id, final Loader loader) throws SQLException {
+        return get(id, loader, true);
+    }
+
+    /**
+     * Com {@code admit} falso o card carregado não entra no cache, como nas leituras de réplica,
+     * que podem estar atrás do primário.
+     */
+    public Optional<CardEntity> get(final Long id, final Loader loader, final boolean admit) throws SQLException {
+        var scope = TransactionScope.current();
+        if (scope.isPresent() && pending(scope.get()).touches(id)) {
+            return loader.load(id);
+        }
+
+        var cached = cards.get(id);
+        recordAccess(id);
+        if (cached != null) {
+            stats.recordHit();
+            return Optional.of(cached.toEntity());
+        }
+        stats.recordMiss();
+
+        var readSince = scope.map(TransactionScope::startedAtNanos).orElseGet(System::nanoTime);
+        var loaded = loader.load(id);
+        if (admit) {
+            loaded.map(CachedCard::of).ifPresent(card -> admitLoaded(card, readSince));
+        }
+        return loaded;
+    }
+
+    /**
+     * Registra o estado gravado do card; sem os dados completos da coluna e do board, apenas invalida.
+     */
+    public void written(final CardEntity card) {
+        var snapshot = CachedCard.of(card);
+        var scope = TransactionScope.current();
+        if (scope.isPresent()) {
+            pending(scope.get()).put(card.getId(), snapshot);
+        } else {
+            invalidateNow(card.getId());
+        }
+    }
+
+    public void invalidate(final Long id) {
+        var scope = TransactionScope.current();
+        if (scope.isPresent()) {
+            pending(scope.get()).put(id, null);
+        } else {
+            invalidateNow(id);
+        }
+    }
+
+    public void invalidate(final Collection<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    /**
+     * Descarta todos os cards; usado quando muda algo copiado em cada entrada (nome de coluna ou de board).
+     */
+    public void invalidateAll() {
+        var scope = TransactionScope.current();
+        if (scope.isPresent()) {
+            pending(scope.get()).clearAll = true;
+        } else {
+            invalidateAllNow();
+        }
+    }
+
+    public int size() {
+        return cards.size();
+    }
+
+    public CardCacheStats stats() {
+        return stats;
+    }
+
+    private PendingChanges pending(final TransactionScope scope) {
+        return scope.resource(this, () -> {
+            var changes = new PendingChanges();
+            scope.afterCommit(() -> apply(changes));
+            return changes;
+        });
+    }
+
+    private void apply(final PendingChanges changes) {
+        if (changes.clearAll) {
+            invalidateAllNow();
+        }
+        changes.cards.forEach((id, snapshot) -> {
+            if (snapshot == null) {
+                invalidateNow(id);
+            } else {
+                markChanged(id);
+                admit(snapshot);
+            }
+        });
+    }
+
+    private void recordAccess(final Long id) {
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(id);
+                accessOrder.get(id);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void admitLoaded(final CachedCard card, final long readSince) {
+        policyLock.lock();
+        try {
+            // Alteração publicada depois do início da leitura: o valor lido pode já estar velho
+            if (changedAtNanos.get(stripe(card.id())) - readSince >= 0) {
+                return;
+            }
+            admit(card);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void admit(final CachedCard card) {
+        if (maxCards == 0) {
+            return;
+        }
+        policyLock.lock();
+        try {
+            var current = cards.get(card.id());
+            if (current != null) {
+                if (current.version() <= card.version()) {
+                    cards.put(card.id(), card);
+                    accessOrder.get(card.id());
+                }
+                return;
+            }
+            if (cards.size() >= maxCards) {
+                var victim = accessOrder.keySet().iterator().next();
+                if (sketch.frequency(card.id()) <= sketch.frequency(victim)) {
+                    stats.recordRejection();
+                    return;
+                }
+                accessOrder.remove(victim);
+                cards.remove(victim);
+                stats.recordEviction();
+            }
+            cards.put(card.id(), card);
+            accessOrder.put(card.id(), Boolean.TRUE);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void invalidateNow(final Long id) {
+        policyLock.lock();
+        try {
+            markChanged(id);
+            stats.recordInvalidation();
+            cards.remove(id);
+            accessOrder.remove(id);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void invalidateAllNow() {
+        policyLock.lock();
+        try {
+            var now = System.nanoTime();
+            for (int i = 0; i < STRIPES; i++) {
+                changedAtNanos.set(i, now);
+            }
+            stats.recordInvalidation();
+            cards.clear();
+            accessOrder.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void markChanged(final Long id) {
+        changedAtNanos.set(stripe(id), System.nanoTime());
+    }
+
+    private static int stripe(final Long id) {
+        return (int) (id & (STRIPES - 1));
+    }
+
+    /**
+     * Alterações da transação corrente; {@code null} no mapa marca o card para invalidação.
+     */
+    private static final class PendingChanges {
+
+        private final Map<Long, CachedCard> cards = new LinkedHashMap<>();
+        private boolean clearAll;
+
+        void put(final Long id, final CachedCard snapshot) {
+            cards.put(id, snapshot);
+        }
+
+        boolean touches(final Long id) {
+            return clearAll || cards.containsKey(id);
+        }
+
+    }
+
+    /**
+     * Cópia imutável de um card com sua coluna e board; cada leitura monta entidades novas.
+     */
+    private record CachedCard(Long id, String title, String description, Long activeBlockId, long version,
+                              Long columnId, String columnName, int columnOrder, BoardColumnKindEnum columnKind,
+                              long columnVersion, Long boardId, String boardName) {
+
+        static CachedCard of(final CardEntity card) {
+            var column = card.getBoardColumn();
+            if (card.getId() == null || column == null || column.getId() == null || column.getName() == null
+                    || column.getKind() == null || column.getBoard() == null || column.getBoard().getName() == null) {
+                return null;
+            }
+            return new CachedCard(card.getId(), card.getTitle(), card.getDescription(), card.getActiveBlockId(),
+                    card.getVersion(), column.getId(), column.getName(), column.getOrder(), column.getKind(),
+                    column.getVersion(), column.getBoard().getId(), column.getBoard().getName());
+        }
+
+        CardEntity toEntity() {
+            var board = new BoardEntity();
+            board.setId(boardId);
+            board.setName(boardName);
+
+            var column = new BoardColumnEntity();
+            column.setId(columnId);
+            column.setName(columnName);
+            column.setOrder(columnOrder);
+            column.setKind(columnKind);
+            column.setVersion(columnVersion);
+            column.setBoard(board);
+
+            var card = new CardEntity();
+            card.setId(id);
+            card.setTitle(title);
+            card.setDescription(description);
+            card.setActiveBlockId(activeBlockId);
+            card.setVersion(version);
+            card.setBoardColumn(column);
+            return card;
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package br.com.dio.persistence.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores do {@link CardCache}. {@code rejections} conta os cards que a admissão TinyLFU
+ * recusou por serem menos acessados que a vítima do LRU.
+ */
+public final class CardCacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+
+    void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public double hitRatio() {
+        var total = hits() + misses();
+        return total == 0 ? 0 : (double) hits() / total;
+    }
+
+}
@@ -0,0 +1,394 @@
+package br.com.dio.persistence.cache;
+
+import br.com.dio.dto.ColumnCardCountDTO;
+import br.com.dio.persistence.dao.CardDAO;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Contadores em memória de cards e de cards bloqueados por coluna, para que o resumo do board
+ * custe O(colunas) e não dependa da quantidade de cards.
+ * <p>
+ * Cada coluna guarda só as duas quantidades, então os serviços informam as colunas envolvidas:
+ * {@link #added(Long, Long)} na criação, {@link #moved(Long, Long, Long)} com a origem e o destino
+ * na movimentação e no cancelamento, {@link #removed(Long)}, {@link #blocked(Long)} e
+ * {@link #unblocked(Long)}. Dentro de uma transação a alteração só é aplicada depois do commit.
+ * <p>
+ * É carregado por {@link #reload(DataSource)}; enquanto não for, {@link #isLoaded()} é falso e os
+ * serviços contam no banco. Uma reconciliação periódica compara as contagens do banco com as da
+ * memória em blocos de {@code chunkSize} colunas e substitui as divergentes que não mudaram
+ * durante a comparação.
+ */
+public final class ColumnCardCounters {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final System.Logger LOGGER = System.getLogger(ColumnCardCounters.class.getName());
+
+    private static volatile ColumnCardCounters shared;
+
+    private final int chunkSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<Long, ColumnCounts> columns = new TreeMap<>();
+    private volatile boolean loaded;
+    private long mutations;
+    private final AtomicLong repairs = new AtomicLong();
+    private ScheduledExecutorService reconciler;
+
+    public ColumnCardCounters(final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("O bloco da reconciliação deve ter pelo menos uma coluna.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Instância compartilhada; o bloco da reconciliação vem de {@code board.counters.chunk-size}.
+     */
+    public static ColumnCardCounters shared() {
+        if (shared == null) {
+            synchronized (ColumnCardCounters.class) {
+                if (shared == null) {
+                    shared = new ColumnCardCounters(Integer.getInteger("board.counters.chunk-size", DEFAULT_CHUNK_SIZE));
+                }
+            }
+        }
+        return shared;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int cardsAmount(final Long columnId) {
+        lock.readLock().lock();
+        try {
+            var column = columns.get(columnId);
+            return column == null ? 0 : column.cardsAmount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int blockedAmount(final Long columnId) {
+        lock.readLock().lock();
+        try {
+            var column = columns.get(columnId);
+            return column == null ? 0 : column.blockedAmount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra um card novo, não bloqueado, na coluna.
+     */
+    public void added(final Long boardId, final Long columnId) {
+        afterCommit(() -> columnOf(boardId, columnId).cardsAmount++);
+    }
+
+    /**
+     * Registra a passagem de um card não bloqueado de {@code fromColumnId} para {@code toColumnId},
+     * que podem ser a mesma coluna.
+     */
+    public void moved(final Long boardId, final Long fromColumnId, final Long toColumnId) {
+        afterCommit(() -> {
+            change(fromColumnId, -1, 0);
+            columnOf(boardId, toColumnId).cardsAmount++;
+        });
+    }
+
+    /**
+     * Registra a exclusão de um card não bloqueado da coluna.
+     */
+    public void removed(final Long columnId) {
+        afterCommit(() -> change(columnId, -1, 0));
+    }
+
+    public void blocked(final Long columnId) {
+        afterCommit(() -> change(columnId, 0, 1));
+    }
+
+    public void unblocked(final Long columnId) {
+        afterCommit(() -> change(columnId, 0, -1));
+    }
+
+    /**
+     * Remove as colunas do board excluído (a exclusão apaga colunas e cards em cascata).
+     */
+    public void boardDeleted(final Long boardId) {
+        afterCommit(() -> columns.values().removeIf(column -> column.boardId.equals(boardId)));
+    }
+
+    /**
+     * Reconta no banco da conexão as colunas informadas, como as que receberam a importação em lote,
+     * e substitui as contagens em memória. Uma coluna alterada durante a contagem fica para a
+     * reconciliação.
+     */
+    public void recount(final Connection connection, final Collection<Long> columnIds) throws SQLException {
+        if (columnIds.isEmpty()) {
+            return;
+        }
+        var mutationsBefore = currentMutations();
+        var counts = new CardDAO(connection).countByBoardColumnIds(columnIds);
+        lock.writeLock().lock();
+        try {
+            mutations++;
+            for (var count : counts) {
+                replace(count, mutationsBefore);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Conta os cards de todos os shards agrupados por coluna e substitui os contadores, retornando
+     * quantas colunas divergiam. Se os contadores mudarem durante a leitura, a substituição é
+     * descartada e o retorno é -1.
+     */
+    public int reload(final DataSource dataSource) throws SQLException {
+        var mutationsBefore = currentMutations();
+
+        var fresh = new TreeMap<Long, ColumnCounts>();
+        for (var shard : shardsOf(dataSource)) {
+            var after = 0L;
+            while (true) {
+                var cursor = after;
+                var counts = withConnection(shard, connection -> new CardDAO(connection).countByBoardColumnPage(cursor, chunkSize));
+                counts.forEach(count -> fresh.put(count.columnId(), ColumnCounts.of(count)));
+                if (counts.size() < chunkSize) {
+                    break;
+                }
+                after = counts.get(counts.size() - 1).columnId();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded && mutations != mutationsBefore) {
+                return -1;
+            }
+            var drift = 0;
+            if (loaded) {
+                var columnIds = new HashSet<>(columns.keySet());
+                columnIds.addAll(fresh.keySet());
+                for (var columnId : columnIds) {
+                    if (!ColumnCounts.sameCounts(columns.get(columnId), fresh.get(columnId))) {
+                        drift++;
+                    }
+                }
+            }
+            columns = fresh;
+            loaded = true;
+            if (drift > 0) {
+                repairs.incrementAndGet();
+            }
+            return drift;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Percorre as colunas de cada shard em blocos, comparando as contagens do banco com as da
+     * memória, e substitui as divergentes; retorna quantas foram corrigidas. Uma coluna alterada
+     * depois do início da comparação do bloco fica para a próxima reconciliação.
+     */
+    public int reconcile(final DataSource dataSource) throws SQLException {
+        if (!loaded) {
+            return 0;
+        }
+        var repaired = 0;
+        for (var shard : shardsOf(dataSource)) {
+            var after = 0L;
+            while (true) {
+                var mutationsBefore = currentMutations();
+                var cursor = after;
+                var counts = withConnection(shard, connection -> new CardDAO(connection).countByBoardColumnPage(cursor, chunkSize));
+                var last = counts.size() < chunkSize ? Long.MAX_VALUE : counts.get(counts.size() - 1).columnId();
+                repaired += repair(dataSource, shard, after, last, counts, mutationsBefore);
+                if (last == Long.MAX_VALUE) {
+                    break;
+                }
+                after = last;
+            }
+        }
+        if (repaired > 0) {
+            repairs.incrementAndGet();
+        }
+        return repaired;
+    }
+
+    /**
+     * Agenda {@link #reconcile(DataSource)} a cada {@code periodMillis} em uma thread daemon.
+     */
+    public synchronized void scheduleReconciliation(final DataSource dataSource, final long periodMillis) {
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "board-column-counters-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> runReconciliation(dataSource), periodMillis, periodMillis, MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    /**
+     * Quantas recargas ou reconciliações encontraram e corrigiram divergências.
+     */
+    public long repairs() {
+        return repairs.get();
+    }
+
+    /**
+     * Substitui as contagens divergentes do bloco {@code (after, last]} do shard e remove as colunas
+     * que o banco não tem mais, como as de um board excluído por outra instância.
+     */
+    private int repair(final DataSource dataSource, final DataSource shard, final long after, final long last,
+                       final List<ColumnCardCountDTO> counts, final long mutationsBefore) {
+        var repaired = 0;
+        lock.writeLock().lock();
+        try {
+            var inChunk = new HashSet<Long>();
+            for (var count : counts) {
+                inChunk.add(count.columnId());
+                if (!ColumnCounts.sameCounts(columns.get(count.columnId()), ColumnCounts.of(count))
+                        && replace(count, mutationsBefore)) {
+                    repaired++;
+                }
+            }
+            var iterator = columns.subMap(after, false, last, true).entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (!inChunk.contains(entry.getKey()) && shardFor(dataSource, entry.getKey()) == shard
+                        && entry.getValue().changedAt <= mutationsBefore) {
+                    iterator.remove();
+                    repaired++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return repaired;
+    }
+
+    /**
+     * Substitui as contagens da coluna, a menos que ela tenha mudado depois de {@code mutationsBefore}.
+     */
+    private boolean replace(final ColumnCardCountDTO count, final long mutationsBefore) {
+        var current = columns.get(count.columnId());
+        if (current != null && current.changedAt > mutationsBefore) {
+            return false;
+        }
+        var fresh = ColumnCounts.of(count);
+        fresh.changedAt = mutations;
+        columns.put(count.columnId(), fresh);
+        return true;
+    }
+
+    private void runReconciliation(final DataSource dataSource) {
+        try {
+            var repaired = reconcile(dataSource);
+            if (repaired > 0) {
+                LOGGER.log(WARNING, "Contadores de cards divergiam do banco em " + repaired + " coluna(s); contagens substituídas.");
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(WARNING, "Falha na reconciliação dos contadores de cards por coluna.", e);
+        }
+    }
+
+    private ColumnCounts columnOf(final Long boardId, final Long columnId) {
+        var column = columns.computeIfAbsent(columnId, ignored -> new ColumnCounts(boardId));
+        column.changedAt = mutations;
+        return column;
+    }
+
+    /**
+     * Aplica as diferenças à coluna; uma coluna desconhecida fica para a reconciliação.
+     */
+    private void change(final Long columnId, final int cards, final int blocked) {
+        var column = columns.get(columnId);
+        if (column != null) {
+            column.cardsAmount = Math.max(0, column.cardsAmount + cards);
+            column.blockedAmount = Math.max(0, column.blockedAmount + blocked);
+            column.changedAt = mutations;
+        }
+    }
+
+    private long currentMutations() {
+        lock.readLock().lock();
+        try {
+            return mutations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(final Runnable change) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                mutations++;
+                change.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        runAfterCommit(apply);
+    }
+
+    /**
+     * Contagens de uma coluna; {@code changedAt} é o valor de {@code mutations} na última alteração.
+     */
+    private static final class ColumnCounts {
+
+        private final Long boardId;
+        private int cardsAmount;
+        private int blockedAmount;
+        private long changedAt;
+
+        private ColumnCounts(final Long boardId) {
+            this.boardId = boardId;
+        }
+
+        private static ColumnCounts of(final ColumnCardCountDTO count) {
+            var column = new ColumnCounts(count.boardId());
+            column.cardsAmount = count.cardsAmount();
+            column.blockedAmount = count.blockedAmount();
+            return column;
+        }
+
+        private static boolean sameCounts(final ColumnCounts a, final ColumnCounts b) {
+            return (a == null ? 0 : a.cardsAmount) == (b == null ? 0 : b.cardsAmount)
+                    && (a == null ? 0 : a.blockedAmount) == (b == null ? 0 : b.blockedAmount);
+        }
+
+    }
+
+}
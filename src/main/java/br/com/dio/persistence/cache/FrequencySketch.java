@@ -0,0 +1,78 @@
+package br.com.dio.persistence.cache;
+
+/**
+ * Count-min sketch com contadores de 4 bits usado pela admissão TinyLFU do {@link CardCache}:
+ * estima quantas vezes cada chave foi acessada recentemente. A cada {@code sampleSize}
+ * incrementos todos os contadores são divididos por dois, para que a frequência envelheça.
+ * Não é thread-safe; o chamador sincroniza.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(final int maximumSize) {
+        var capacity = Math.max(maximumSize, 16);
+        var length = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    int frequency(final long key) {
+        var hash = spread(key);
+        var frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    void increment(final long key) {
+        var hash = spread(key);
+        var added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            var index = indexOf(hash, i);
+            var offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(final int hash, final int row) {
+        var h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    // Cada long guarda 16 contadores; os bits do hash escolhem qual deles cada linha usa
+    private static int offsetOf(final int hash, final int row) {
+        return ((hash >>> (row << 3)) & 15) << 2;
+    }
+
+    private static int spread(final long key) {
+        var h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,231 @@
+package br.com.dio.persistence.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Conjunto compacto de IDs não negativos no formato do Roaring bitmap: os 48 bits altos escolhem
+ * um contêiner e os 16 bits baixos são guardados nele, como vetor ordenado de {@code char} enquanto
+ * houver até {@value #ARRAY_MAX} valores e como bitmap de 8 KB acima disso. Não é thread-safe.
+ */
+public final class IdBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+
+    public void add(final long id) {
+        var high = id >>> 16;
+        var container = containers.get(high);
+        containers.put(high, container == null ? new ArrayContainer().add((char) id) : container.add((char) id));
+    }
+
+    public void remove(final long id) {
+        var high = id >>> 16;
+        var container = containers.get(high);
+        if (container == null) {
+            return;
+        }
+        var updated = container.remove((char) id);
+        if (updated.cardinality() == 0) {
+            containers.remove(high);
+        } else {
+            containers.put(high, updated);
+        }
+    }
+
+    public boolean contains(final long id) {
+        var container = containers.get(id >>> 16);
+        return container != null && container.contains((char) id);
+    }
+
+    public int cardinality() {
+        var cardinality = 0;
+        for (var container : containers.values()) {
+            cardinality += container.cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containers.isEmpty();
+    }
+
+    public void clear() {
+        containers.clear();
+    }
+
+    /**
+     * Percorre os IDs em ordem crescente.
+     */
+    public void forEach(final LongConsumer action) {
+        containers.forEach((high, container) -> container.forEach(high << 16, action));
+    }
+
+    /**
+     * Percorre em ordem crescente os IDs maiores que {@code after} e menores ou iguais a {@code last}.
+     */
+    public void forEachInRange(final long after, final long last, final LongConsumer action) {
+        if (after >= last) {
+            return;
+        }
+        containers.subMap(after >>> 16, true, last >>> 16, true).forEach((high, container) ->
+                container.forEach(high << 16, id -> {
+                    if (id > after && id <= last) {
+                        action.accept(id);
+                    }
+                }));
+    }
+
+    public List<Long> toList() {
+        var ids = new ArrayList<Long>(cardinality());
+        forEach(ids::add);
+        return ids;
+    }
+
+    /**
+     * Quantidade de IDs deste conjunto que não estão em {@code other}.
+     */
+    public int countMissingFrom(final IdBitmap other) {
+        var missing = new int[1];
+        forEach(id -> {
+            if (!other.contains(id)) {
+                missing[0]++;
+            }
+        });
+        return missing[0];
+    }
+
+    private interface Container {
+
+        Container add(char low);
+
+        Container remove(char low);
+
+        boolean contains(char low);
+
+        int cardinality();
+
+        void forEach(long base, LongConsumer action);
+
+    }
+
+    private static final class ArrayContainer implements Container {
+
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public Container add(final char low) {
+            var index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            var insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(final char low) {
+            var index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(final char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public void forEach(final long base, final LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            var bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+
+    }
+
+    private static final class BitmapContainer implements Container {
+
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public Container add(final char low) {
+            var mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                words[low >>> 6] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(final char low) {
+            var mask = 1L << low;
+            if ((words[low >>> 6] & mask) != 0) {
+                words[low >>> 6] &= ~mask;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        public boolean contains(final char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public void forEach(final long base, final LongConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                var word = words[i];
+                while (word != 0) {
+                    action.accept(base | ((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private ArrayContainer toArray() {
+            var array = new ArrayContainer();
+            forEach(0, low -> array.add((char) low));
+            return array;
+        }
+
+    }
+
+}
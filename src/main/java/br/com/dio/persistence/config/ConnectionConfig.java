@@ -2,22 +2,121 @@ package br.com.dio.persistence.config;
 
 import lombok.NoArgsConstructor;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.System.Logger.Level.WARNING;
 
 import static lombok.AccessLevel.PRIVATE;
 
 @NoArgsConstructor(access = PRIVATE)
 public final class ConnectionConfig {
 
+    private static final System.Logger LOGGER = System.getLogger(ConnectionConfig.class.getName());
+
+    private static volatile DataSource dataSource;
+    private static final List<ConnectionPool> primaryPools = new ArrayList<>();
+    private static volatile ConnectionPool replicaDataSource;
+    private static volatile DataSource readDataSource;
+
+    /**
+     * Conexão com o banco principal; com shards configurados não há banco único e a chamada falha.
+     */
     public static Connection getConnection() throws SQLException {
-        var url = "jdbc:mysql://localhost/board";
-        var user = "board";
-        var password = "board";
-        var connection = DriverManager.getConnection(url, user, password);
-        connection.setAutoCommit(false);
-        return connection;
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * {@link DataSource} dos serviços. Com {@code board.db.shard-urls} (URLs JDBC separadas por
+     * vírgula) é um {@link ShardedDataSource} com um pool por shard; sem ela, o pool de
+     * {@code board.db.url}.
+     */
+    public static DataSource getDataSource() {
+        var pool = dataSource;
+        if (pool == null) {
+            synchronized (ConnectionConfig.class) {
+                pool = dataSource;
+                if (pool == null) {
+                    var user = System.getProperty("board.db.user", "board");
+                    var password = System.getProperty("board.db.password", "board");
+                    var shardUrls = System.getProperty("board.db.shard-urls");
+                    if (shardUrls == null || shardUrls.isBlank()) {
+                        var url = System.getProperty("board.db.url", "jdbc:mysql://localhost/board");
+                        pool = openPrimary(url, user, password);
+                    } else {
+                        var urls = List.of(shardUrls.trim().split("\\s*,\\s*"));
+                        if (urls.size() == 1) {
+                            pool = openPrimary(urls.get(0), user, password);
+                        } else {
+                            var shards = new ArrayList<DataSource>(urls.size());
+                            for (int i = 0; i < urls.size(); i++) {
+                                var url = urls.get(i) + (urls.get(i).contains("?") ? "&" : "?")
+                                        + ShardedDataSource.sessionVariables(i, urls.size());
+                                shards.add(openPrimary(url, user, password));
+                            }
+                            pool = new ShardedDataSource(shards);
+                        }
+                    }
+                    dataSource = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static ConnectionPool openPrimary(final String url, final String user, final String password) {
+        var pool = new ConnectionPool(ConnectionPoolConfig.withDefaults(url, user, password));
+        primaryPools.add(pool);
+        return pool;
+    }
+
+    /**
+     * {@link DataSource} dos serviços de consulta. Com {@code board.db.replica.url} definida, as
+     * leituras vão para a réplica (com o mesmo usuário e senha, salvo {@code board.db.replica.user}
+     * e {@code board.db.replica.password}) e a sessão que escreveu fica no primário por
+     * {@code board.db.replica.pin-ms}; sem réplica configurada, é o próprio pool do primário.
+     * Réplicas não são usadas com shards: as leituras vão para o primário de cada shard.
+     */
+    public static DataSource getReadDataSource() {
+        var routing = readDataSource;
+        if (routing == null) {
+            synchronized (ConnectionConfig.class) {
+                routing = readDataSource;
+                if (routing == null) {
+                    var primary = getDataSource();
+                    var replicaUrl = System.getProperty("board.db.replica.url");
+                    if (replicaUrl == null) {
+                        routing = primary;
+                    } else if (primary instanceof ShardedDataSource) {
+                        LOGGER.log(WARNING, "board.db.replica.url ignorada: réplicas não são suportadas com shards.");
+                        routing = primary;
+                    } else {
+                        var user = System.getProperty("board.db.replica.user", System.getProperty("board.db.user", "board"));
+                        var password = System.getProperty("board.db.replica.password", System.getProperty("board.db.password", "board"));
+                        replicaDataSource = new ConnectionPool(ConnectionPoolConfig.withDefaults(replicaUrl, user, password).asReadOnly());
+                        routing = new ReplicaRoutingDataSource(primary, replicaDataSource,
+                                Duration.ofMillis(Long.getLong("board.db.replica.pin-ms", 5_000)));
+                    }
+                    readDataSource = routing;
+                }
+            }
+        }
+        return routing;
+    }
+
+    public static synchronized void shutdown() {
+        readDataSource = null;
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+            replicaDataSource = null;
+        }
+        primaryPools.forEach(ConnectionPool::close);
+        primaryPools.clear();
+        dataSource = null;
     }
 
 }
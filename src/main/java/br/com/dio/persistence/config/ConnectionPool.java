@@ -0,0 +1,349 @@
+package br.com.dio.persistence.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Pool de conexões JDBC limitado a {@link ConnectionPoolConfig#maxSize()} conexões físicas.
+ * <p>
+ * Conexões ociosas são reaproveitadas em ordem LIFO e validadas antes do empréstimo quando
+ * ficaram paradas por mais de {@link #VALIDATION_BYPASS_NANOS}. Uma tarefa periódica descarta
+ * conexões ociosas ou velhas demais, repõe o mínimo de ociosas e avisa sobre conexões que
+ * ficaram emprestadas além do limite de detecção de vazamento.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(ConnectionPool.class.getName());
+    private static final long VALIDATION_BYPASS_NANOS = MILLISECONDS.toNanos(500);
+
+    private final ConnectionPoolConfig config;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(final ConnectionPoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "board-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var period = config.housekeepingPeriod().toMillis();
+        housekeeper.scheduleAtFixedRate(this::housekeep, period, period, MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("O pool de conexões foi encerrado.");
+        }
+        var start = System.nanoTime();
+        var deadline = start + config.connectionTimeout().toNanos();
+        try {
+            if (!permits.tryAcquire(config.connectionTimeout().toNanos(), NANOSECONDS)) {
+                throw timeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool.", e);
+        }
+        try {
+            var pooled = acquire(deadline);
+            borrowed.add(pooled);
+            borrowCount.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            return pooled.lease(!config.leakDetectionThreshold().isZero());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Uma conexão ociosa ou, havendo vaga em {@code total}, uma nova. Sem nenhuma das duas, uma
+     * conexão reposta pelo housekeeper ainda está sendo aberta e chega à fila de ociosas.
+     */
+    private PooledConnection acquire(final long deadline) throws SQLException {
+        while (true) {
+            var pooled = takeIdle();
+            if (pooled != null) {
+                return pooled;
+            }
+            if (reserveSlot()) {
+                return createReserved();
+            }
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw timeout();
+            }
+            try {
+                pooled = idle.pollFirst(remaining, NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrompido aguardando conexão do pool.", e);
+            }
+            if (pooled != null) {
+                // volta para a fila para passar pela validação de takeIdle
+                idle.offerFirst(pooled);
+            }
+        }
+    }
+
+    private SQLTimeoutException timeout() {
+        timeouts.incrementAndGet();
+        return new SQLTimeoutException("Tempo esgotado aguardando conexão do pool ("
+                + config.connectionTimeout().toMillis() + " ms).");
+    }
+
+    /**
+     * Reserva uma das {@link ConnectionPoolConfig#maxSize()} conexões físicas antes de abri-la.
+     */
+    private boolean reserveSlot() {
+        while (true) {
+            var current = total.get();
+            if (current >= config.maxSize()) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection createReserved() throws SQLException {
+        try {
+            return create();
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isExpired(pooled, System.nanoTime())) {
+                destroy(pooled);
+            } else if (System.nanoTime() - pooled.lastUsedAt() > VALIDATION_BYPASS_NANOS
+                    && !pooled.isValid(validationTimeoutSeconds())) {
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+            } else {
+                return pooled;
+            }
+        }
+        return null;
+    }
+
+    private PooledConnection create() throws SQLException {
+        var properties = new Properties();
+        properties.setProperty("user", config.user());
+        properties.setProperty("password", config.password());
+        properties.setProperty("rewriteBatchedStatements", "true");
+        // isReadOnly, getAutoCommit e afins respondem pelo estado local, sem consultar o servidor a
+        // cada chamada; o estado da sessão só muda pela API JDBC
+        properties.setProperty("useLocalSessionState", "true");
+        if (config.serverPreparedStatements()) {
+            properties.setProperty("useServerPrepStmts", "true");
+        }
+        var connection = DriverManager.getConnection(config.url(), properties);
+        connection.setAutoCommit(false);
+        if (config.readOnly()) {
+            connection.setReadOnly(true);
+        }
+        created.incrementAndGet();
+        var statementCache = config.statementCacheSize() > 0
+                ? new StatementCache(connection, config.statementCacheSize(), statementCacheStats)
+                : null;
+        return new PooledConnection(this, connection, statementCache);
+    }
+
+    void release(final PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || pooled.isBroken() || isExpired(pooled, System.nanoTime())) {
+                destroy(pooled);
+                return;
+            }
+            pooled.reset();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(final PooledConnection pooled) {
+        pooled.closePhysical();
+        total.decrementAndGet();
+        destroyed.incrementAndGet();
+    }
+
+    private boolean isExpired(final PooledConnection pooled, final long now) {
+        return !config.maxLifetime().isZero() && now - pooled.createdAt() > config.maxLifetime().toNanos();
+    }
+
+    private int validationTimeoutSeconds() {
+        return (int) Math.max(1, config.validationTimeout().toSeconds());
+    }
+
+    private void housekeep() {
+        try {
+            var now = System.nanoTime();
+            evictIdle(now);
+            detectLeaks(now);
+            fillMinIdle();
+        } catch (RuntimeException e) {
+            // uma falha aqui não pode cancelar as próximas execuções agendadas
+            LOGGER.log(WARNING, "Falha na manutenção do pool de conexões.", e);
+        }
+    }
+
+    private void evictIdle(final long now) {
+        var idleTimeout = config.idleTimeout().toNanos();
+        for (var pooled : idle.toArray(PooledConnection[]::new)) {
+            var tooOld = isExpired(pooled, now);
+            var idleTooLong = idleTimeout > 0 && now - pooled.lastUsedAt() > idleTimeout
+                    && idle.size() > config.minIdle();
+            if ((tooOld || idleTooLong) && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    private void detectLeaks(final long now) {
+        var threshold = config.leakDetectionThreshold().toNanos();
+        if (threshold == 0) {
+            return;
+        }
+        for (var pooled : borrowed) {
+            if (!pooled.isLeakReported() && now - pooled.borrowedAt() > threshold) {
+                pooled.markLeakReported();
+                leaksDetected.incrementAndGet();
+                LOGGER.log(WARNING, "Possível vazamento: conexão emprestada há mais de "
+                        + config.leakDetectionThreshold().toMillis() + " ms sem ser devolvida.", pooled.borrowTrace());
+            }
+        }
+    }
+
+    private void fillMinIdle() {
+        // A vaga é reservada em total, e não em permits: as ociosas também contam no limite
+        while (!closed && idle.size() < config.minIdle() && reserveSlot()) {
+            try {
+                idle.offerLast(createReserved());
+            } catch (SQLException e) {
+                LOGGER.log(WARNING, "Falha ao repor conexões ociosas do pool.", e);
+                return;
+            }
+        }
+    }
+
+    public PoolMetrics metrics() {
+        var borrows = borrowCount.get();
+        return new PoolMetrics(
+                total.get(),
+                borrowed.size(),
+                idle.size(),
+                permits.getQueueLength(),
+                created.get(),
+                destroyed.get(),
+                borrows,
+                timeouts.get(),
+                validationFailures.get(),
+                leaksDetected.get(),
+                borrows == 0 ? 0 : waitNanos.get() / 1_000_000.0 / borrows,
+                statementCacheStats.hits(),
+                statementCacheStats.misses()
+        );
+    }
+
+    public StatementCacheStats statementCacheStats() {
+        return statementCacheStats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O pool usa as credenciais da configuração.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) {
+        // o pool registra eventos via System.Logger
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) {
+        // o tempo de espera é definido por ConnectionPoolConfig.connectionTimeout
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return (int) config.connectionTimeout().toSeconds();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+}
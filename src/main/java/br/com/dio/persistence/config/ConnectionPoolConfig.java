@@ -0,0 +1,66 @@
+package br.com.dio.persistence.config;
+
+import java.time.Duration;
+
+/**
+ * Parâmetros do pool de conexões. Os valores padrão podem ser sobrescritos por
+ * propriedades de sistema ({@code -Dboard.pool.max-size=20}, por exemplo).
+ * <p>
+ * {@code statementCacheSize} igual a zero desliga o cache de statements por conexão, e
+ * {@code serverPreparedStatements} liga os prepared statements do lado do servidor do MySQL
+ * ({@code useServerPrepStmts}), que passam a ser reaproveitados enquanto estiverem no cache.
+ * {@code readOnly} marca as conexões como somente leitura, como no pool da réplica.
+ */
+public record ConnectionPoolConfig(String url,
+                                   String user,
+                                   String password,
+                                   int minIdle,
+                                   int maxSize,
+                                   Duration connectionTimeout,
+                                   Duration validationTimeout,
+                                   Duration idleTimeout,
+                                   Duration maxLifetime,
+                                   Duration leakDetectionThreshold,
+                                   Duration housekeepingPeriod,
+                                   int statementCacheSize,
+                                   boolean serverPreparedStatements,
+                                   boolean readOnly) {
+
+    public ConnectionPoolConfig {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("O pool deve permitir ao menos uma conexão.");
+        }
+        if (minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("minIdle deve estar entre 0 e maxSize.");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize não pode ser negativo.");
+        }
+    }
+
+    public static ConnectionPoolConfig withDefaults(final String url, final String user, final String password) {
+        return new ConnectionPoolConfig(
+                url,
+                user,
+                password,
+                Integer.getInteger("board.pool.min-idle", 2),
+                Integer.getInteger("board.pool.max-size", 10),
+                Duration.ofMillis(Long.getLong("board.pool.connection-timeout-ms", 30_000)),
+                Duration.ofMillis(Long.getLong("board.pool.validation-timeout-ms", 5_000)),
+                Duration.ofMillis(Long.getLong("board.pool.idle-timeout-ms", 600_000)),
+                Duration.ofMillis(Long.getLong("board.pool.max-lifetime-ms", 1_800_000)),
+                Duration.ofMillis(Long.getLong("board.pool.leak-detection-ms", 60_000)),
+                Duration.ofMillis(Long.getLong("board.pool.housekeeping-ms", 30_000)),
+                Integer.getInteger("board.pool.statement-cache-size", 64),
+                Boolean.getBoolean("board.pool.server-prepared-statements"),
+                false
+        );
+    }
+
+    public ConnectionPoolConfig asReadOnly() {
+        return new ConnectionPoolConfig(url, user, password, minIdle, maxSize, connectionTimeout, validationTimeout,
+                idleTimeout, maxLifetime, leakDetectionThreshold, housekeepingPeriod, statementCacheSize,
+                serverPreparedStatements, true);
+    }
+
+}
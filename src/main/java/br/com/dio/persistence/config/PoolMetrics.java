@@ -0,0 +1,19 @@
+package br.com.dio.persistence.config;
+
+/**
+ * Fotografia das métricas do {@link ConnectionPool} em um instante.
+ */
+public record PoolMetrics(int total,
+                          int active,
+                          int idle,
+                          int waiting,
+                          long created,
+                          long destroyed,
+                          long borrowed,
+                          long timeouts,
+                          long validationFailures,
+                          long leaksDetected,
+                          double averageWaitMillis,
+                          long statementCacheHits,
+                          long statementCacheMisses) {
+}
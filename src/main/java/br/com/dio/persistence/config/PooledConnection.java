@@ -0,0 +1,180 @@
+package br.com.dio.persistence.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Conexão física mantida pelo {@link ConnectionPool}. Cada empréstimo recebe um proxy
+ * próprio, de forma que uma referência antiga não consegue usar a conexão depois de devolvê-la.
+ */
+final class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+    private volatile boolean broken;
+    private boolean dirty;
+
+    PooledConnection(final ConnectionPool pool, final Connection physical, final StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAt = System.nanoTime();
+        this.lastUsedAt = createdAt;
+    }
+
+    Connection lease(final boolean traceBorrower) {
+        borrowedAt = System.nanoTime();
+        borrowTrace = traceBorrower ? new Throwable("Conexão emprestada aqui") : null;
+        leakReported = false;
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease());
+    }
+
+    /**
+     * Desfaz trabalho não confirmado antes de a conexão voltar para a fila de ociosas.
+     */
+    void reset() throws SQLException {
+        if (statementCache != null) {
+            statementCache.releaseAll();
+        }
+        if (dirty) {
+            physical.rollback();
+            dirty = false;
+        }
+        if (physical.getAutoCommit()) {
+            physical.setAutoCommit(false);
+        }
+        lastUsedAt = System.nanoTime();
+    }
+
+    boolean isValid(final int timeoutSeconds) {
+        try {
+            return !broken && physical.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // a conexão está sendo descartada; não há o que recuperar
+        }
+    }
+
+    Connection physical() {
+        return physical;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    long lastUsedAt() {
+        return lastUsedAt;
+    }
+
+    long borrowedAt() {
+        return borrowedAt;
+    }
+
+    Throwable borrowTrace() {
+        return borrowTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void markLeakReported() {
+        leakReported = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    private final class Lease implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + "]";
+                }
+                default -> {
+                    // segue para a conexão física
+                }
+            }
+            if (closed) {
+                throw new SQLException("A conexão já foi devolvida ao pool.", "08003");
+            }
+            switch (method.getName()) {
+                case "prepareStatement", "createStatement", "prepareCall" -> dirty = true;
+                case "commit" -> dirty = false;
+                case "rollback" -> dirty = args != null && dirty;
+                default -> {
+                    // sem efeito sobre o estado da transação
+                }
+            }
+            if (statementCache != null && isCacheablePrepare(method)) {
+                var autoGeneratedKeys = args.length == 2 ? (int) args[1] : Statement.NO_GENERATED_KEYS;
+                return statementCache.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                var cause = e.getCause();
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private boolean isCacheablePrepare(final Method method) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            var parameterTypes = method.getParameterTypes();
+            return parameterTypes.length == 1
+                    || parameterTypes.length == 2 && parameterTypes[1] == int.class;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package br.com.dio.persistence.config;
+
+import br.com.dio.persistence.transaction.ReadYourWritesSession;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * {@link DataSource} dos serviços de consulta: empresta conexões da réplica, exceto quando a
+ * {@link ReadYourWritesSession} corrente escreveu há menos de {@code pinWindow}, caso em que usa o
+ * primário para que a sessão leia o que acabou de gravar. Se a réplica não fornecer conexão, a
+ * leitura também vai para o primário.
+ */
+public class ReplicaRoutingDataSource implements DataSource {
+
+    private static final System.Logger LOGGER = System.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Duration pinWindow;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRoutingDataSource(final DataSource primary, final DataSource replica, final Duration pinWindow) {
+        this.primary = primary;
+        this.replica = replica;
+        this.pinWindow = pinWindow;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadYourWritesSession.current().isPinned(pinWindow)) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+        try {
+            var connection = replica.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            fallbacks.increment();
+            LOGGER.log(WARNING, "Réplica indisponível; leitura direcionada ao primário.", e);
+            return primary.getConnection();
+        }
+    }
+
+    public long replicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long pinnedReads() {
+        return pinnedReads.sum();
+    }
+
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O roteamento usa as credenciais dos pools.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) {
+        // eventos registrados via System.Logger
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) {
+        // o tempo de espera é definido pelos pools
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return replica.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ReplicaRoutingDataSource não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+}
@@ -0,0 +1,131 @@
+package br.com.dio.persistence.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Conjunto de bancos MySQL entre os quais os boards são distribuídos. Cada board fica inteiro em
+ * um shard, com suas colunas, cards e bloqueios.
+ * <p>
+ * O mapa de shards está nos próprios IDs: as conexões do shard {@code i} (de {@code n}) usam
+ * {@code auto_increment_increment = n} e {@code auto_increment_offset = i + 1}, de modo que
+ * qualquer ID gerado nele, de board ou de filho, satisfaz {@code (id - 1) % n == i}. Assim uma
+ * operação por ID de card ou de coluna encontra o shard sem consultar um diretório. Os bancos
+ * precisam começar vazios e {@code n} não pode mudar depois que houver dados.
+ * <p>
+ * Sem chave, {@link #getConnection()} falha: as operações escolhem o shard com
+ * {@link #shardFor(DataSource, Long)} ou percorrem todos com {@link #shardsOf(DataSource)}.
+ */
+public class ShardedDataSource implements DataSource {
+
+    private final List<DataSource> shards;
+    private final AtomicInteger nextBoardShard = new AtomicInteger();
+
+    public ShardedDataSource(final List<? extends DataSource> shards) {
+        if (shards.size() < 2) {
+            throw new IllegalArgumentException("Configure ao menos dois shards.");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Parâmetro de URL JDBC que faz o shard {@code index} gerar IDs da sua classe de resto.
+     */
+    public static String sessionVariables(final int index, final int shardCount) {
+        return "sessionVariables=auto_increment_increment=" + shardCount + ",auto_increment_offset=" + (index + 1);
+    }
+
+    /**
+     * Shard que guarda o board, coluna, card ou bloqueio com o ID informado; fora de um
+     * {@link ShardedDataSource}, o próprio {@code dataSource}.
+     */
+    public static DataSource shardFor(final DataSource dataSource, final Long id) {
+        if (dataSource instanceof ShardedDataSource sharded) {
+            return sharded.shards.get(sharded.indexOf(id));
+        }
+        return dataSource;
+    }
+
+    /**
+     * Shard onde o próximo board será criado, em rodízio.
+     */
+    public static DataSource shardForNewBoard(final DataSource dataSource) {
+        if (dataSource instanceof ShardedDataSource sharded) {
+            return sharded.shards.get(Math.floorMod(sharded.nextBoardShard.getAndIncrement(), sharded.shards.size()));
+        }
+        return dataSource;
+    }
+
+    public static List<DataSource> shardsOf(final DataSource dataSource) {
+        if (dataSource instanceof ShardedDataSource sharded) {
+            return sharded.shards;
+        }
+        return List.of(dataSource);
+    }
+
+    public int indexOf(final Long id) {
+        if (id == null || id < 1) {
+            throw new IllegalArgumentException("ID inválido para roteamento entre shards: " + id);
+        }
+        return (int) ((id - 1) % shards.size());
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw new SQLException("Operação sem chave de shard: use ShardedDataSource.shardFor ou shardsOf.");
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Os shards usam as credenciais dos pools.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) {
+        // eventos registrados pelos pools de cada shard
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) {
+        // o tempo de espera é definido pelos pools
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return shards.get(0).getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ShardedDataSource não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+}
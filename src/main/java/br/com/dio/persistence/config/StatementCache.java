@@ -0,0 +1,228 @@
+package br.com.dio.persistence.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache LRU de {@link PreparedStatement} de uma única conexão física, indexado pelo texto SQL e
+ * pelo modo de chaves geradas. Fechar o statement emprestado apenas o devolve ao cache; ele só é
+ * fechado de verdade quando sai do cache por LRU ou quando a conexão física é descartada.
+ * <p>
+ * Na devolução, além de parâmetros e lote, voltam ao valor original o fetch size, o máximo de linhas,
+ * o timeout, a direção de leitura e o tamanho máximo de campo; um statement com outra configuração
+ * alterada ({@code setCursorName}, {@code setEscapeProcessing} etc.) é descartado.
+ * <p>
+ * Não é thread-safe: a conexão dona do cache é usada por uma thread de cada vez.
+ */
+final class StatementCache {
+
+    /**
+     * Configurações do statement que a devolução restaura.
+     */
+    private static final Set<String> RESTORED_SETTINGS =
+            Set.of("setFetchSize", "setMaxRows", "setQueryTimeout", "setFetchDirection", "setMaxFieldSize");
+
+    private final Connection physical;
+    private final StatementCacheStats stats;
+    private final Map<StatementKey, CachedStatement> statements;
+
+    StatementCache(final Connection physical, final int maxSize, final StatementCacheStats stats) {
+        this.physical = physical;
+        this.stats = stats;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<StatementKey, CachedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                stats.recordEviction();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(final Connection owner, final String sql, final int autoGeneratedKeys) throws SQLException {
+        var key = new StatementKey(sql, autoGeneratedKeys);
+        var cached = statements.get(key);
+        if (cached != null && cached.evicted) {
+            // descartado na devolução; o SQL é preparado de novo
+            statements.remove(key);
+            cached = null;
+        }
+        if (cached != null && cached.current == null) {
+            stats.recordHit();
+            return cached.checkout(owner);
+        }
+        stats.recordMiss(sql);
+        var statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // o mesmo SQL já está aberto nesta conexão; o segundo statement não entra no cache
+            return statement;
+        }
+        try {
+            cached = new CachedStatement(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        statements.put(key, cached);
+        return cached.checkout(owner);
+    }
+
+    /**
+     * Libera statements que ficaram emprestados quando a conexão volta ao pool.
+     */
+    void releaseAll() {
+        for (var cached : statements.values()) {
+            if (cached.current != null) {
+                cached.checkin(cached.current);
+            }
+        }
+    }
+
+    private record StatementKey(String sql, int autoGeneratedKeys) {
+    }
+
+    private static final class CachedStatement {
+
+        private final PreparedStatement statement;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private final int fetchDirection;
+        private final int maxFieldSize;
+        private Checkout current;
+        private boolean evicted;
+        // configurações alteradas pelo empréstimo atual
+        private boolean reconfigured;
+        private boolean unrestorable;
+
+        private CachedStatement(final PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxFieldSize = statement.getMaxFieldSize();
+        }
+
+        private PreparedStatement checkout(final Connection owner) {
+            current = new Checkout(owner);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    current);
+        }
+
+        private void checkin(final Checkout checkout) {
+            if (current != checkout) {
+                // empréstimo antigo, já liberado quando a conexão voltou ao pool
+                return;
+            }
+            current = null;
+            if (unrestorable) {
+                evicted = true;
+            }
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                if (reconfigured) {
+                    statement.setFetchSize(fetchSize);
+                    statement.setMaxRows(maxRows);
+                    statement.setQueryTimeout(queryTimeout);
+                    statement.setFetchDirection(fetchDirection);
+                    statement.setMaxFieldSize(maxFieldSize);
+                    reconfigured = false;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (current == null) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // o statement está sendo descartado
+            }
+        }
+
+        private final class Checkout implements InvocationHandler {
+
+            private final Connection owner;
+            private boolean closed;
+
+            private Checkout(final Connection owner) {
+                this.owner = owner;
+            }
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            checkin(this);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed;
+                    }
+                    case "getConnection" -> {
+                        return owner;
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    default -> {
+                        // segue para o statement físico
+                    }
+                }
+                if (closed || current != this) {
+                    throw new SQLException("O statement já foi fechado.");
+                }
+                if (method.getDeclaringClass() == Statement.class) {
+                    if (RESTORED_SETTINGS.contains(method.getName())) {
+                        reconfigured = true;
+                    } else if (method.getName().startsWith("set") || method.getName().equals("closeOnCompletion")) {
+                        unrestorable = true;
+                    }
+                }
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package br.com.dio.persistence.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Contadores do cache de {@link java.sql.PreparedStatement} somados entre todas as conexões do pool.
+ * <p>
+ * {@link #preparesBySql()} informa quantas vezes cada SQL foi de fato preparado no driver; com o
+ * cache aquecido esse número deve parar de crescer e ficar limitado ao total de conexões físicas.
+ * Só os primeiros {@value #MAX_TRACKED_SQL} SQLs distintos são contados um a um; os demais somam
+ * em {@link #untrackedPrepares()}.
+ */
+public final class StatementCacheStats {
+
+    static final int MAX_TRACKED_SQL = 500;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<String, LongAdder> preparesBySql = new ConcurrentHashMap<>();
+    private final LongAdder untrackedPrepares = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss(final String sql) {
+        misses.increment();
+        var prepares = preparesBySql.get(sql);
+        if (prepares == null && preparesBySql.size() >= MAX_TRACKED_SQL) {
+            untrackedPrepares.increment();
+            return;
+        }
+        if (prepares == null) {
+            prepares = preparesBySql.computeIfAbsent(sql, key -> new LongAdder());
+        }
+        prepares.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public double hitRatio() {
+        var total = hits() + misses();
+        return total == 0 ? 0 : (double) hits() / total;
+    }
+
+    /**
+     * Preparações de SQLs que não couberam em {@link #preparesBySql()}.
+     */
+    public long untrackedPrepares() {
+        return untrackedPrepares.sum();
+    }
+
+    public Map<String, Long> preparesBySql() {
+        return preparesBySql.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().sum()));
+    }
+
+}
@@ -1,15 +1,20 @@
 package br.com.dio.persistence.dao;
 
+import br.com.dio.dto.CardStatusDTO;
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.persistence.cache.CardCache;
 import br.com.dio.persistence.entity.BlockEntity;
 import lombok.AllArgsConstructor;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toOffsetDateTime;
 import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toTimestamp;
@@ -18,6 +23,11 @@ import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toTimesta
 public class BlockDAO {
 
     private final Connection connection;
+    private final CardCache cardCache;
+
+    public BlockDAO(Connection connection) {
+        this(connection, CardCache.shared());
+    }
 
     public BlockEntity save(BlockEntity block) throws SQLException {
         if (block.getId() == null) {
@@ -110,6 +120,22 @@ public class BlockDAO {
         return blocks;
     }
 
+    /**
+     * Todos os bloqueios em ordem de id, lidos sob demanda em streaming; o stream deve ser fechado.
+     */
+    public Stream<BlockEntity> streamAll() throws SQLException {
+        var sql = "SELECT id, blocked_at, block_reason, unblocked_at, unblock_reason FROM block_card ORDER BY id";
+        return ResultSetStreams.stream(ResultSetStreams.prepareStreaming(connection, sql), rs -> {
+            var block = new BlockEntity();
+            block.setId(rs.getLong("id"));
+            block.setBlockedAt(toOffsetDateTime(rs.getTimestamp("blocked_at")));
+            block.setBlockReason(rs.getString("block_reason"));
+            block.setUnblockedAt(toOffsetDateTime(rs.getTimestamp("unblocked_at")));
+            block.setUnblockReason(rs.getString("unblock_reason"));
+            return block;
+        });
+    }
+
     public List<BlockEntity> findAll() throws SQLException {
         var blocks = new ArrayList<BlockEntity>();
         var sql = "SELECT id, blocked_at, block_reason, unblocked_at, unblock_reason FROM block_card ORDER BY blocked_at DESC";
@@ -171,14 +197,135 @@ public class BlockDAO {
         }
     }
 
+    /**
+     * Cria um bloqueio para cada card ainda desbloqueado com dois INSERTs de múltiplas linhas por
+     * bloco de IDs: um em {@code block_card} e outro em {@code card_block}, usando as chaves geradas
+     * do primeiro. Em seguida aponta {@code card.active_block_id} para o novo bloqueio de cada card.
+     * Os cards são travados antes dos INSERTs, então bloqueios concorrentes não são sobrescritos;
+     * retorna a situação de cada card bloqueado antes da mudança.
+     */
+    public List<CardStatusDTO> blockAll(Collection<Long> cardIds, String reason, OffsetDateTime blockedAt) throws SQLException {
+        var cardDAO = new CardDAO(connection, cardCache);
+        var blocked = new ArrayList<CardStatusDTO>(cardIds.size());
+        for (var candidates : SqlPlaceholders.chunks(cardIds, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var locked = cardDAO.lockStatuses(candidates, "WHERE c.active_block_id IS NULL AND c.id IN (%s)\n");
+            if (locked.isEmpty()) {
+                continue;
+            }
+            var chunk = locked.stream().map(CardStatusDTO::id).toList();
+            var blockIds = new ArrayList<Long>(chunk.size());
+            var blockSql = "INSERT INTO block_card (blocked_at, block_reason) VALUES " + SqlPlaceholders.rows(chunk.size(), 2);
+            try (var stmt = connection.prepareStatement(blockSql, Statement.RETURN_GENERATED_KEYS)) {
+                var index = 1;
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setTimestamp(index++, toTimestamp(blockedAt));
+                    stmt.setString(index++, reason);
+                }
+                stmt.executeUpdate();
+
+                try (var rs = stmt.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        blockIds.add(rs.getLong(1));
+                    }
+                }
+            }
+
+            var linkSql = "INSERT INTO card_block (card_id, block_id) VALUES " + SqlPlaceholders.rows(chunk.size(), 2);
+            try (var stmt = connection.prepareStatement(linkSql)) {
+                var index = 1;
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(index++, chunk.get(i));
+                    stmt.setLong(index++, blockIds.get(i));
+                }
+                stmt.executeUpdate();
+            }
+
+            var activeSql = "UPDATE card SET version = version + 1, active_block_id = CASE id "
+                    + "WHEN ? THEN ? ".repeat(chunk.size()) + "END WHERE id IN (" + SqlPlaceholders.list(chunk.size()) + ")";
+            try (var stmt = connection.prepareStatement(activeSql)) {
+                var index = 1;
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(index++, chunk.get(i));
+                    stmt.setLong(index++, blockIds.get(i));
+                }
+                for (var cardId : chunk) {
+                    stmt.setLong(index++, cardId);
+                }
+                stmt.executeUpdate();
+            }
+            cardCache.invalidate(chunk);
+            blocked.addAll(locked);
+        }
+        return blocked;
+    }
+
+    /**
+     * Encerra os bloqueios ativos dos cards ainda bloqueados e limpa {@code card.active_block_id},
+     * com dois UPDATEs por bloco de IDs travados; retorna a situação de cada card desbloqueado
+     * antes da mudança.
+     */
+    public List<CardStatusDTO> unblockAll(Collection<Long> cardIds, String reason, OffsetDateTime unblockedAt) throws SQLException {
+        var cardDAO = new CardDAO(connection, cardCache);
+        var unblocked = new ArrayList<CardStatusDTO>(cardIds.size());
+        for (var candidates : SqlPlaceholders.chunks(cardIds, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var locked = cardDAO.lockStatuses(candidates, "WHERE c.active_block_id IS NOT NULL AND c.id IN (%s)\n");
+            if (locked.isEmpty()) {
+                continue;
+            }
+            var chunk = SqlPlaceholders.padded(locked.stream().map(CardStatusDTO::id).toList());
+            var placeholders = SqlPlaceholders.list(chunk.size());
+            var sql = """
+                UPDATE block_card bc
+                INNER JOIN card c ON bc.id = c.active_block_id
+                SET bc.unblocked_at = ?, bc.unblock_reason = ?
+                WHERE c.id IN (%s)
+                """.formatted(placeholders);
+            try (var stmt = connection.prepareStatement(sql)) {
+                stmt.setTimestamp(1, toTimestamp(unblockedAt));
+                stmt.setString(2, reason);
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 3, chunk.get(i));
+                }
+                stmt.executeUpdate();
+            }
+
+            var clearSql = "UPDATE card SET active_block_id = NULL, version = version + 1 WHERE id IN (" + placeholders + ")";
+            try (var stmt = connection.prepareStatement(clearSql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                stmt.executeUpdate();
+            }
+            cardCache.invalidate(chunk);
+            unblocked.addAll(locked);
+        }
+        return unblocked;
+    }
+
+    /**
+     * Encerra o bloqueio ativo do card; retorna 0 quando o card não existe ou não está bloqueado.
+     */
+    public int closeActiveBlock(Long cardId, String reason, OffsetDateTime unblockedAt) throws SQLException {
+        var sql = """
+            UPDATE block_card bc
+            INNER JOIN card c ON bc.id = c.active_block_id
+            SET bc.unblocked_at = ?, bc.unblock_reason = ?
+            WHERE c.id = ?
+            """;
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, toTimestamp(unblockedAt));
+            stmt.setString(2, reason);
+            stmt.setLong(3, cardId);
+            return stmt.executeUpdate();
+        }
+    }
+
     public Optional<BlockEntity> findActiveBlockByCardId(Long cardId) throws SQLException {
         var sql = """
             SELECT bc.id, bc.blocked_at, bc.block_reason, bc.unblocked_at, bc.unblock_reason
             FROM block_card bc
-            INNER JOIN card_block cb ON bc.id = cb.block_id
-            WHERE cb.card_id = ? AND bc.unblocked_at IS NULL
-            ORDER BY bc.blocked_at DESC
-            LIMIT 1
+            INNER JOIN card c ON bc.id = c.active_block_id
+            WHERE c.id = ?
             """;
         
         try (var stmt = connection.prepareStatement(sql)) {
@@ -0,0 +1,106 @@
+package br.com.dio.persistence.dao;
+
+import br.com.dio.persistence.entity.BoardAggregate;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.entity.CardEntity;
+import lombok.AllArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Optional;
+
+/**
+ * Carrega o agregado do board em uma consulta (board, colunas e contagens de cards por coluna)
+ * e, opcionalmente, os cards em uma segunda consulta.
+ */
+@AllArgsConstructor
+public class BoardAggregateDAO {
+
+    private final Connection connection;
+
+    public Optional<BoardAggregate> findById(Long boardId, boolean withCards) throws SQLException {
+        var sql = """
+            SELECT b.id AS board_id, b.name AS board_name,
+                   bc.id, bc.name, bc.column_order, bc.kind, bc.version,
+                   (SELECT COUNT(*) FROM card c WHERE c.board_column_id = bc.id) AS cards_amount,
+                   (SELECT COUNT(c.active_block_id) FROM card c WHERE c.board_column_id = bc.id) AS blocked_amount
+            FROM board b
+            LEFT JOIN board_column bc ON bc.board_id = b.id
+            WHERE b.id = ?
+            ORDER BY bc.column_order
+            """;
+
+        BoardEntity board = null;
+        var columnsById = new HashMap<Long, BoardColumnEntity>();
+        var cardsAmountByColumnId = new HashMap<Long, Integer>();
+        var blockedAmountByColumnId = new HashMap<Long, Integer>();
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardId);
+
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (board == null) {
+                        board = new BoardEntity();
+                        board.setId(rs.getLong("board_id"));
+                        board.setName(rs.getString("board_name"));
+                    }
+                    var columnId = rs.getLong("id");
+                    if (rs.wasNull()) {
+                        continue;
+                    }
+                    var boardColumn = new BoardColumnEntity();
+                    boardColumn.setId(columnId);
+                    boardColumn.setName(rs.getString("name"));
+                    boardColumn.setOrder(rs.getInt("column_order"));
+                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
+                    boardColumn.setVersion(rs.getLong("version"));
+                    boardColumn.setBoard(board);
+                    board.addColumn(boardColumn);
+
+                    columnsById.put(columnId, boardColumn);
+                    cardsAmountByColumnId.put(columnId, rs.getInt("cards_amount"));
+                    blockedAmountByColumnId.put(columnId, rs.getInt("blocked_amount"));
+                }
+            }
+        }
+        if (board == null) {
+            return Optional.empty();
+        }
+        if (withCards) {
+            loadCards(boardId, columnsById);
+        }
+        return Optional.of(new BoardAggregate(board, cardsAmountByColumnId, blockedAmountByColumnId));
+    }
+
+    private void loadCards(Long boardId, HashMap<Long, BoardColumnEntity> columnsById) throws SQLException {
+        var sql = """
+            SELECT c.id, c.title, c.description, c.board_column_id, c.active_block_id, c.version
+            FROM card c
+            INNER JOIN board_column bc ON c.board_column_id = bc.id
+            WHERE bc.board_id = ?
+            ORDER BY bc.column_order, c.title
+            """;
+
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardId);
+
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    var boardColumn = columnsById.get(rs.getLong("board_column_id"));
+                    var card = new CardEntity();
+                    card.setId(rs.getLong("id"));
+                    card.setTitle(rs.getString("title"));
+                    card.setDescription(rs.getString("description"));
+                    card.setActiveBlockId(rs.getObject("active_block_id", Long.class));
+                    card.setVersion(rs.getLong("version"));
+                    card.setBoardColumn(boardColumn);
+                    boardColumn.getCards().add(card);
+                }
+            }
+        }
+    }
+
+}
@@ -1,21 +1,26 @@
 package br.com.dio.persistence.dao;
 
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.exception.OptimisticLockException;
 import br.com.dio.persistence.entity.BoardColumnEntity;
 import br.com.dio.persistence.entity.BoardColumnKindEnum;
-import br.com.dio.persistence.entity.BoardEntity;
 import lombok.AllArgsConstructor;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 public class BoardColumnDAO {
 
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
     private final Connection connection;
 
     public BoardColumnEntity save(BoardColumnEntity boardColumn) throws SQLException {
@@ -44,118 +49,95 @@ public class BoardColumnDAO {
         return boardColumn;
     }
 
+    /**
+     * Insere todas as colunas com um único INSERT de múltiplas linhas (em blocos de
+     * {@value #MAX_ROWS_PER_INSERT}) e preenche os IDs a partir das chaves geradas.
+     */
+    public List<BoardColumnEntity> saveAll(List<BoardColumnEntity> boardColumns) throws SQLException {
+        for (int from = 0; from < boardColumns.size(); from += MAX_ROWS_PER_INSERT) {
+            var chunk = boardColumns.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, boardColumns.size()));
+            insertAll(chunk);
+        }
+        return boardColumns;
+    }
+
+    private void insertAll(List<BoardColumnEntity> boardColumns) throws SQLException {
+        var sql = "INSERT INTO board_column (name, column_order, kind, board_id) VALUES "
+                + SqlPlaceholders.rows(boardColumns.size(), 4);
+        try (var stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            var index = 1;
+            for (var boardColumn : boardColumns) {
+                stmt.setString(index++, boardColumn.getName());
+                stmt.setInt(index++, boardColumn.getOrder());
+                stmt.setString(index++, boardColumn.getKind().name());
+                stmt.setLong(index++, boardColumn.getBoard().getId());
+            }
+            stmt.executeUpdate();
+
+            try (var rs = stmt.getGeneratedKeys()) {
+                for (var boardColumn : boardColumns) {
+                    if (rs.next()) {
+                        boardColumn.setId(rs.getLong(1));
+                    }
+                }
+            }
+        }
+    }
+
     private BoardColumnEntity update(BoardColumnEntity boardColumn) throws SQLException {
-        var sql = "UPDATE board_column SET name = ?, column_order = ?, kind = ?, board_id = ? WHERE id = ?";
+        var sql = """
+            UPDATE board_column SET name = ?, column_order = ?, kind = ?, board_id = ?, version = version + 1
+            WHERE id = ? AND version = ?
+            """;
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, boardColumn.getName());
             stmt.setInt(2, boardColumn.getOrder());
             stmt.setString(3, boardColumn.getKind().name());
             stmt.setLong(4, boardColumn.getBoard().getId());
             stmt.setLong(5, boardColumn.getId());
+            stmt.setLong(6, boardColumn.getVersion());
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new EntityNotFoundException("BoardColumn", boardColumn.getId());
+                if (!existsById(boardColumn.getId())) {
+                    throw new EntityNotFoundException("BoardColumn", boardColumn.getId());
+                }
+                throw new OptimisticLockException("BoardColumn", boardColumn.getId(), boardColumn.getVersion());
             }
         }
+        boardColumn.setVersion(boardColumn.getVersion() + 1);
         return boardColumn;
     }
 
     public Optional<BoardColumnEntity> findById(Long id) throws SQLException {
-        var sql = """
-            SELECT bc.id, bc.name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM board_column bc 
-            INNER JOIN board b ON bc.board_id = b.id 
-            WHERE bc.id = ?
-            """;
-        
+        var sql = BoardColumnRowMapper.SELECT + "WHERE bc.id = ?";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            
-            try (var rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("id"));
-                    boardColumn.setName(rs.getString("name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    return Optional.of(boardColumn);
-                }
-            }
+            return readColumns(stmt).stream().findFirst();
         }
-        return Optional.empty();
     }
 
     public List<BoardColumnEntity> findByBoardId(Long boardId) throws SQLException {
-        var columns = new ArrayList<BoardColumnEntity>();
-        var sql = """
-            SELECT bc.id, bc.name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM board_column bc 
-            INNER JOIN board b ON bc.board_id = b.id 
-            WHERE bc.board_id = ? 
-            ORDER BY bc.column_order
-            """;
-        
+        var sql = BoardColumnRowMapper.SELECT + "WHERE bc.board_id = ? ORDER BY bc.column_order";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, boardId);
-            
-            try (var rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("id"));
-                    boardColumn.setName(rs.getString("name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    columns.add(boardColumn);
-                }
-            }
+            return readColumns(stmt);
         }
-        return columns;
+    }
+
+    /**
+     * Todas as colunas em ordem de id, lidas sob demanda em streaming; o stream deve ser fechado.
+     */
+    public Stream<BoardColumnEntity> streamAll() throws SQLException {
+        var stmt = ResultSetStreams.prepareStreaming(connection, BoardColumnRowMapper.SELECT + "ORDER BY bc.id");
+        return ResultSetStreams.stream(stmt, new BoardColumnRowMapper());
     }
 
     public List<BoardColumnEntity> findAll() throws SQLException {
-        var columns = new ArrayList<BoardColumnEntity>();
-        var sql = """
-            SELECT bc.id, bc.name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM board_column bc 
-            INNER JOIN board b ON bc.board_id = b.id 
-            ORDER BY b.name, bc.column_order
-            """;
-        
-        try (var stmt = connection.createStatement();
-             var rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                var boardColumn = new BoardColumnEntity();
-                boardColumn.setId(rs.getLong("id"));
-                boardColumn.setName(rs.getString("name"));
-                boardColumn.setOrder(rs.getInt("column_order"));
-                boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                
-                var board = new BoardEntity();
-                board.setId(rs.getLong("board_id"));
-                board.setName(rs.getString("board_name"));
-                boardColumn.setBoard(board);
-                
-                columns.add(boardColumn);
-            }
+        var sql = BoardColumnRowMapper.SELECT + "ORDER BY b.name, bc.column_order";
+        try (var stmt = connection.prepareStatement(sql)) {
+            return readColumns(stmt);
         }
-        return columns;
     }
 
     public void deleteById(Long id) throws SQLException {
@@ -181,37 +163,39 @@ public class BoardColumnDAO {
         }
     }
 
+    public List<BoardColumnEntity> findByBoardIdsAndKind(Collection<Long> boardIds, BoardColumnKindEnum kind) throws SQLException {
+        var columns = new ArrayList<BoardColumnEntity>();
+        for (var chunk : SqlPlaceholders.paddedChunks(boardIds, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var sql = BoardColumnRowMapper.SELECT + "WHERE bc.kind = ? AND bc.board_id IN (" + SqlPlaceholders.list(chunk.size()) + ")";
+            try (var stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, kind.name());
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 2, chunk.get(i));
+                }
+                columns.addAll(readColumns(stmt));
+            }
+        }
+        return columns;
+    }
+
     public Optional<BoardColumnEntity> findByBoardIdAndKind(Long boardId, BoardColumnKindEnum kind) throws SQLException {
-        var sql = """
-            SELECT bc.id, bc.name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM board_column bc 
-            INNER JOIN board b ON bc.board_id = b.id 
-            WHERE bc.board_id = ? AND bc.kind = ?
-            """;
-        
+        var sql = BoardColumnRowMapper.SELECT + "WHERE bc.board_id = ? AND bc.kind = ?";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, boardId);
             stmt.setString(2, kind.name());
-            
-            try (var rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("id"));
-                    boardColumn.setName(rs.getString("name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    return Optional.of(boardColumn);
-                }
+            return readColumns(stmt).stream().findFirst();
+        }
+    }
+
+    private List<BoardColumnEntity> readColumns(PreparedStatement stmt) throws SQLException {
+        var columns = new ArrayList<BoardColumnEntity>();
+        var mapper = new BoardColumnRowMapper();
+        try (var rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                columns.add(mapper.map(rs));
             }
         }
-        return Optional.empty();
+        return columns;
     }
 
 }
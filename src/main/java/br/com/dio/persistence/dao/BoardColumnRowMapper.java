@@ -0,0 +1,56 @@
+package br.com.dio.persistence.dao;
+
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.BoardEntity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapeia as linhas de {@link #SELECT} acessando as colunas por posição. Deve ser criado por
+ * consulta: colunas do mesmo board compartilham a mesma instância de {@link BoardEntity}.
+ */
+final class BoardColumnRowMapper implements RowMapper<BoardColumnEntity> {
+
+    static final String SELECT = """
+            SELECT bc.id, bc.name, bc.column_order, bc.kind, bc.version, bc.board_id,
+                   b.name as board_name
+            FROM board_column bc
+            INNER JOIN board b ON bc.board_id = b.id
+            """;
+
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int COLUMN_ORDER = 3;
+    private static final int KIND = 4;
+    private static final int VERSION = 5;
+    private static final int BOARD_ID = 6;
+    private static final int BOARD_NAME = 7;
+
+    private final Map<Long, BoardEntity> boards = new HashMap<>();
+
+    @Override
+    public BoardColumnEntity map(final ResultSet rs) throws SQLException {
+        var boardColumn = new BoardColumnEntity();
+        boardColumn.setId(rs.getLong(ID));
+        boardColumn.setName(rs.getString(NAME));
+        boardColumn.setOrder(rs.getInt(COLUMN_ORDER));
+        boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString(KIND)));
+        boardColumn.setVersion(rs.getLong(VERSION));
+
+        var boardId = rs.getLong(BOARD_ID);
+        var board = boards.get(boardId);
+        if (board == null) {
+            board = new BoardEntity();
+            board.setId(boardId);
+            board.setName(rs.getString(BOARD_NAME));
+            boards.put(boardId, board);
+        }
+        boardColumn.setBoard(board);
+        return boardColumn;
+    }
+
+}
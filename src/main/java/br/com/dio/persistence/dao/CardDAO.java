@@ -1,30 +1,50 @@
 package br.com.dio.persistence.dao;
 
+import br.com.dio.dto.CardCursorDTO;
+import br.com.dio.dto.CardStatusDTO;
+import br.com.dio.dto.ColumnCardCountDTO;
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.exception.OptimisticLockException;
+import br.com.dio.persistence.cache.CardCache;
 import br.com.dio.persistence.entity.CardEntity;
-import br.com.dio.persistence.entity.BoardColumnEntity;
-import br.com.dio.persistence.entity.BoardEntity;
 import br.com.dio.persistence.entity.BoardColumnKindEnum;
 import lombok.AllArgsConstructor;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.CANCEL;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.FINAL;
 
 @AllArgsConstructor
 public class CardDAO {
 
+    private static final String CARD_STATUS_SELECT = """
+            SELECT c.id, c.board_column_id, bc.kind, bc.board_id, c.version,
+                   c.active_block_id IS NOT NULL AS blocked
+            FROM card c
+            INNER JOIN board_column bc ON c.board_column_id = bc.id
+            """;
+
     private final Connection connection;
+    private final CardCache cardCache;
+
+    public CardDAO(Connection connection) {
+        this(connection, CardCache.shared());
+    }
 
     public CardEntity save(CardEntity card) throws SQLException {
-        if (card.getId() == null) {
-            return insert(card);
-        } else {
-            return update(card);
-        }
+        var saved = card.getId() == null ? insert(card) : update(card);
+        cardCache.written(saved);
+        return saved;
     }
 
     private CardEntity insert(CardEntity card) throws SQLException {
@@ -44,186 +64,339 @@ public class CardDAO {
         return card;
     }
 
+    /**
+     * Insere os cards em lote com {@code addBatch}/{@code executeBatch} e preenche o ID de cada um
+     * com as chaves geradas, na ordem do lote.
+     */
+    public void insertAll(List<CardEntity> cards) throws SQLException {
+        var sql = "INSERT INTO card (title, description, board_column_id) VALUES (?, ?, ?)";
+        try (var stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (var card : cards) {
+                stmt.setString(1, card.getTitle());
+                stmt.setString(2, card.getDescription());
+                stmt.setLong(3, card.getBoardColumn().getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            try (var rs = stmt.getGeneratedKeys()) {
+                for (var card : cards) {
+                    if (!rs.next()) {
+                        break;
+                    }
+                    card.setId(rs.getLong(1));
+                }
+            }
+        }
+    }
+
     private CardEntity update(CardEntity card) throws SQLException {
-        var sql = "UPDATE card SET title = ?, description = ?, board_column_id = ? WHERE id = ?";
+        var sql = """
+            UPDATE card SET title = ?, description = ?, board_column_id = ?, version = version + 1
+            WHERE id = ? AND version = ?
+            """;
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, card.getTitle());
             stmt.setString(2, card.getDescription());
             stmt.setLong(3, card.getBoardColumn().getId());
             stmt.setLong(4, card.getId());
+            stmt.setLong(5, card.getVersion());
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new EntityNotFoundException("Card", card.getId());
+                if (!existsById(card.getId())) {
+                    throw new EntityNotFoundException("Card", card.getId());
+                }
+                throw new OptimisticLockException("Card", card.getId(), card.getVersion());
             }
         }
+        card.setVersion(card.getVersion() + 1);
         return card;
     }
 
+    /**
+     * Servido pelo {@link CardCache}; a consulta só roda em caso de falta. Cards lidos de conexões
+     * somente leitura (réplica) não entram no cache.
+     */
     public Optional<CardEntity> findById(Long id) throws SQLException {
-        var sql = """
-            SELECT c.id, c.title, c.description, c.board_column_id,
-                   bc.name as column_name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM card c 
-            INNER JOIN board_column bc ON c.board_column_id = bc.id 
-            INNER JOIN board b ON bc.board_id = b.id
-            WHERE c.id = ?
-            """;
-        
+        return cardCache.get(id, this::selectById, !connection.isReadOnly());
+    }
+
+    private Optional<CardEntity> selectById(Long id) throws SQLException {
+        var sql = CardRowMapper.SELECT + "WHERE c.id = ?";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            
-            try (var rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    var card = new CardEntity();
-                    card.setId(rs.getLong("id"));
-                    card.setTitle(rs.getString("title"));
-                    card.setDescription(rs.getString("description"));
-                    
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("board_column_id"));
-                    boardColumn.setName(rs.getString("column_name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    card.setBoardColumn(boardColumn);
-                    
-                    return Optional.of(card);
-                }
-            }
+            return readCards(stmt).stream().findFirst();
         }
-        return Optional.empty();
     }
 
     public List<CardEntity> findByBoardColumnId(Long boardColumnId) throws SQLException {
-        var cards = new ArrayList<CardEntity>();
-        var sql = """
-            SELECT c.id, c.title, c.description, c.board_column_id,
-                   bc.name as column_name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM card c 
-            INNER JOIN board_column bc ON c.board_column_id = bc.id 
-            INNER JOIN board b ON bc.board_id = b.id
-            WHERE c.board_column_id = ?
-            ORDER BY c.title
-            """;
-        
+        var sql = CardRowMapper.SELECT + "WHERE c.board_column_id = ? ORDER BY c.title";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, boardColumnId);
-            
-            try (var rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    var card = new CardEntity();
-                    card.setId(rs.getLong("id"));
-                    card.setTitle(rs.getString("title"));
-                    card.setDescription(rs.getString("description"));
-                    
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("board_column_id"));
-                    boardColumn.setName(rs.getString("column_name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    card.setBoardColumn(boardColumn);
-                    cards.add(card);
-                }
-            }
+            return readCards(stmt);
         }
-        return cards;
     }
 
     public List<CardEntity> findByBoardId(Long boardId) throws SQLException {
-        var cards = new ArrayList<CardEntity>();
-        var sql = """
-            SELECT c.id, c.title, c.description, c.board_column_id,
-                   bc.name as column_name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM card c 
-            INNER JOIN board_column bc ON c.board_column_id = bc.id 
-            INNER JOIN board b ON bc.board_id = b.id
-            WHERE bc.board_id = ?
-            ORDER BY bc.column_order, c.title
-            """;
-        
+        var sql = CardRowMapper.SELECT + "WHERE bc.board_id = ? ORDER BY bc.column_order, c.title";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, boardId);
-            
+            return readCards(stmt);
+        }
+    }
+
+    public List<CardEntity> findAll() throws SQLException {
+        var sql = CardRowMapper.SELECT + "ORDER BY b.name, bc.column_order, c.title";
+        try (var stmt = connection.prepareStatement(sql)) {
+            return readCards(stmt);
+        }
+    }
+
+    /**
+     * Cards com bloqueio ativo, filtrados pelo índice de {@code card.active_block_id}.
+     */
+    public List<CardEntity> findBlocked() throws SQLException {
+        var sql = CardRowMapper.SELECT + "WHERE c.active_block_id IS NOT NULL ORDER BY b.name, bc.column_order, c.title";
+        try (var stmt = connection.prepareStatement(sql)) {
+            return readCards(stmt);
+        }
+    }
+
+    public List<CardEntity> findBlockedByBoardId(Long boardId) throws SQLException {
+        var sql = CardRowMapper.SELECT + "WHERE bc.board_id = ? AND c.active_block_id IS NOT NULL ORDER BY bc.column_order, c.title";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardId);
+            return readCards(stmt);
+        }
+    }
+
+    /**
+     * Até {@code limit} cards da coluna ordenados por (título, id), a partir do cursor. Usa o
+     * índice {@code idx_card_column_title_id}, então qualquer página custa o mesmo que a primeira.
+     */
+    public List<CardEntity> findPageByBoardColumnId(Long boardColumnId, CardCursorDTO after, int limit) throws SQLException {
+        var sql = CardRowMapper.SELECT + "WHERE c.board_column_id = ?"
+                + (after != null ? " AND (c.title > ? OR (c.title = ? AND c.id > ?))" : "")
+                + " ORDER BY c.title, c.id LIMIT ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            var index = 1;
+            stmt.setLong(index++, boardColumnId);
+            if (after != null) {
+                stmt.setString(index++, after.title());
+                stmt.setString(index++, after.title());
+                stmt.setLong(index++, after.id());
+            }
+            stmt.setInt(index, limit);
+            return readCards(stmt);
+        }
+    }
+
+    /**
+     * Até {@code limit} cards do board ordenados por (ordem da coluna, título, id). Percorre as
+     * colunas em ordem com {@link #findPageByBoardColumnId}, continuando na coluna do cursor.
+     */
+    public List<CardEntity> findPageByBoardId(Long boardId, CardCursorDTO after, int limit) throws SQLException {
+        var columnIds = new ArrayList<Long>();
+        var sql = "SELECT id FROM board_column WHERE board_id = ? ORDER BY column_order";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardId);
+
             try (var rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    var card = new CardEntity();
-                    card.setId(rs.getLong("id"));
-                    card.setTitle(rs.getString("title"));
-                    card.setDescription(rs.getString("description"));
-                    
-                    var boardColumn = new BoardColumnEntity();
-                    boardColumn.setId(rs.getLong("board_column_id"));
-                    boardColumn.setName(rs.getString("column_name"));
-                    boardColumn.setOrder(rs.getInt("column_order"));
-                    boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                    
-                    var board = new BoardEntity();
-                    board.setId(rs.getLong("board_id"));
-                    board.setName(rs.getString("board_name"));
-                    boardColumn.setBoard(board);
-                    
-                    card.setBoardColumn(boardColumn);
-                    cards.add(card);
+                    columnIds.add(rs.getLong("id"));
                 }
             }
         }
+
+        var start = 0;
+        if (after != null) {
+            start = columnIds.indexOf(after.boardColumnId());
+            if (start < 0) {
+                throw new IllegalArgumentException("Cursor inválido: a coluna " + after.boardColumnId()
+                        + " não pertence ao board " + boardId + ".");
+            }
+        }
+
+        var cards = new ArrayList<CardEntity>(limit);
+        for (int i = start; i < columnIds.size() && cards.size() < limit; i++) {
+            var cursor = i == start ? after : null;
+            cards.addAll(findPageByBoardColumnId(columnIds.get(i), cursor, limit - cards.size()));
+        }
         return cards;
     }
 
-    public List<CardEntity> findAll() throws SQLException {
+    /**
+     * Até {@code limit} cards de todos os boards ordenados por id, a partir do cursor.
+     */
+    public List<CardEntity> findPage(CardCursorDTO after, int limit) throws SQLException {
+        var sql = CardRowMapper.SELECT + (after != null ? "WHERE c.id > ? " : "") + "ORDER BY c.id LIMIT ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            var index = 1;
+            if (after != null) {
+                stmt.setLong(index++, after.id());
+            }
+            stmt.setInt(index, limit);
+            return readCards(stmt);
+        }
+    }
+
+    /**
+     * Todos os cards em ordem de id, lidos sob demanda em streaming; o stream deve ser fechado.
+     */
+    public Stream<CardEntity> streamAll() throws SQLException {
+        var stmt = ResultSetStreams.prepareStreaming(connection, CardRowMapper.SELECT + "ORDER BY c.id");
+        return ResultSetStreams.stream(stmt, new CardRowMapper());
+    }
+
+    private int invalidateIfChanged(Long id, int affectedRows) {
+        if (affectedRows > 0) {
+            cardCache.invalidate(id);
+        }
+        return affectedRows;
+    }
+
+    private List<CardEntity> readCards(PreparedStatement stmt) throws SQLException {
         var cards = new ArrayList<CardEntity>();
-        var sql = """
-            SELECT c.id, c.title, c.description, c.board_column_id,
-                   bc.name as column_name, bc.column_order, bc.kind, bc.board_id,
-                   b.name as board_name
-            FROM card c 
-            INNER JOIN board_column bc ON c.board_column_id = bc.id 
-            INNER JOIN board b ON bc.board_id = b.id
-            ORDER BY b.name, bc.column_order, c.title
-            """;
-        
-        try (var stmt = connection.createStatement();
-             var rs = stmt.executeQuery(sql)) {
-            
+        var mapper = new CardRowMapper();
+        try (var rs = stmt.executeQuery()) {
             while (rs.next()) {
-                var card = new CardEntity();
-                card.setId(rs.getLong("id"));
-                card.setTitle(rs.getString("title"));
-                card.setDescription(rs.getString("description"));
-                
-                var boardColumn = new BoardColumnEntity();
-                boardColumn.setId(rs.getLong("board_column_id"));
-                boardColumn.setName(rs.getString("column_name"));
-                boardColumn.setOrder(rs.getInt("column_order"));
-                boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString("kind")));
-                
-                var board = new BoardEntity();
-                board.setId(rs.getLong("board_id"));
-                board.setName(rs.getString("board_name"));
-                boardColumn.setBoard(board);
-                
-                card.setBoardColumn(boardColumn);
-                cards.add(card);
+                cards.add(mapper.map(rs));
             }
         }
         return cards;
     }
 
+    /**
+     * Atualiza o ponteiro para o bloqueio ativo do card; {@code null} marca o card como desbloqueado.
+     */
+    public void updateActiveBlock(Long id, Long blockId) throws SQLException {
+        var sql = "UPDATE card SET active_block_id = ?, version = version + 1 WHERE id = ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, blockId, Types.BIGINT);
+            stmt.setLong(2, id);
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new EntityNotFoundException("Card", id);
+            }
+        }
+        cardCache.invalidate(id);
+    }
+
+    /**
+     * Atualiza título e descrição se o card não estiver bloqueado nem finalizado. Assim como as
+     * demais mutações guardadas, as regras ficam no WHERE e o retorno é a quantidade de linhas
+     * afetadas: 0 quando o card não existe ou alguma regra impede a alteração. Com
+     * {@code expectedVersion} informado, a versão também faz parte da guarda (compare-and-set);
+     * toda alteração incrementa {@code card.version}.
+     */
+    public int updateIfEditable(Long id, Long expectedVersion, String title, String description) throws SQLException {
+        var sql = """
+            UPDATE card c
+            INNER JOIN board_column bc ON c.board_column_id = bc.id
+            SET c.title = ?, c.description = ?, c.version = c.version + 1
+            WHERE c.id = ? AND c.active_block_id IS NULL AND bc.kind NOT IN (?, ?)
+              AND (? IS NULL OR c.version = ?)
+            """;
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, title);
+            stmt.setString(2, description);
+            stmt.setLong(3, id);
+            stmt.setString(4, FINAL.name());
+            stmt.setString(5, CANCEL.name());
+            stmt.setObject(6, expectedVersion, Types.BIGINT);
+            stmt.setObject(7, expectedVersion, Types.BIGINT);
+            return invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Move o card se ele não estiver bloqueado, ainda estiver em {@code sourceColumnId} e, quando
+     * já finalizado, apenas para uma coluna final. O Connector/J informa linhas encontradas, e não
+     * só alteradas, então mover o card para a coluna em que ele já está também retorna 1.
+     */
+    public int moveIfAllowed(Long id, Long expectedVersion, Long sourceColumnId, Long boardColumnId) throws SQLException {
+        var sql = """
+            UPDATE card c
+            INNER JOIN board_column current_column ON c.board_column_id = current_column.id
+            INNER JOIN board_column target_column ON target_column.id = ?
+            SET c.board_column_id = target_column.id, c.version = c.version + 1
+            WHERE c.id = ? AND c.board_column_id = ? AND c.active_block_id IS NULL
+              AND (current_column.kind NOT IN (?, ?) OR target_column.kind = ?)
+              AND (? IS NULL OR c.version = ?)
+            """;
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardColumnId);
+            stmt.setLong(2, id);
+            stmt.setLong(3, sourceColumnId);
+            stmt.setString(4, FINAL.name());
+            stmt.setString(5, CANCEL.name());
+            stmt.setString(6, FINAL.name());
+            stmt.setObject(7, expectedVersion, Types.BIGINT);
+            stmt.setObject(8, expectedVersion, Types.BIGINT);
+            return invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Move o card não bloqueado, se ainda estiver em {@code sourceColumnId}, para a coluna de
+     * cancelamento do seu próprio board.
+     */
+    public int cancelIfUnblocked(Long id, Long sourceColumnId) throws SQLException {
+        var sql = """
+            UPDATE card c
+            INNER JOIN board_column current_column ON c.board_column_id = current_column.id
+            INNER JOIN board_column cancel_column
+                    ON cancel_column.board_id = current_column.board_id AND cancel_column.kind = ?
+            SET c.board_column_id = cancel_column.id, c.version = c.version + 1
+            WHERE c.id = ? AND c.board_column_id = ? AND c.active_block_id IS NULL
+            """;
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, CANCEL.name());
+            stmt.setLong(2, id);
+            stmt.setLong(3, sourceColumnId);
+            return invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Exclui o card se ele não estiver bloqueado e ainda estiver em {@code sourceColumnId}.
+     */
+    public int deleteIfUnblocked(Long id, Long sourceColumnId) throws SQLException {
+        var sql = "DELETE FROM card WHERE id = ? AND board_column_id = ? AND active_block_id IS NULL";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            stmt.setLong(2, sourceColumnId);
+            return invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Reserva o card para um novo bloqueio se ele não tiver um bloqueio ativo: o incremento de
+     * versão trava a linha até o fim da transação, antes de o registro de bloqueio ser criado.
+     */
+    public int reserveForBlockIfUnblocked(Long id) throws SQLException {
+        var sql = "UPDATE card SET version = version + 1 WHERE id = ? AND active_block_id IS NULL";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            return invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Aponta o card reservado por {@link #reserveForBlockIfUnblocked} para o bloqueio criado; a
+     * versão já foi incrementada na reserva.
+     */
+    public void activateBlock(Long id, Long blockId) throws SQLException {
+        var sql = "UPDATE card SET active_block_id = ? WHERE id = ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, blockId);
+            stmt.setLong(2, id);
+            invalidateIfChanged(id, stmt.executeUpdate());
+        }
+    }
+
     public void deleteById(Long id) throws SQLException {
         var sql = "DELETE FROM card WHERE id = ?";
         try (var stmt = connection.prepareStatement(sql)) {
@@ -234,6 +407,7 @@ public class CardDAO {
                 throw new EntityNotFoundException("Card", id);
             }
         }
+        cardCache.invalidate(id);
     }
 
     public boolean existsById(Long id) throws SQLException {
@@ -247,6 +421,162 @@ public class CardDAO {
         }
     }
 
+    /**
+     * Maior ID de card do banco da conexão, ou zero se não houver cards.
+     */
+    public long findMaxId() throws SQLException {
+        var sql = "SELECT COALESCE(MAX(id), 0) FROM card";
+        try (var stmt = connection.prepareStatement(sql);
+             var rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Situação (coluna, tipo da coluna e bloqueio ativo) dos cards informados, em uma consulta por
+     * bloco de {@value SqlPlaceholders#MAX_IN_PARAMETERS} IDs. IDs inexistentes não aparecem no resultado.
+     */
+    public List<CardStatusDTO> findStatusByIds(Collection<Long> ids) throws SQLException {
+        var statuses = new ArrayList<CardStatusDTO>(ids.size());
+        for (var chunk : SqlPlaceholders.paddedChunks(ids, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var sql = CARD_STATUS_SELECT + "WHERE c.id IN (" + SqlPlaceholders.list(chunk.size()) + ")";
+            try (var stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                readStatuses(stmt, statuses);
+            }
+        }
+        return statuses;
+    }
+
+    public List<CardStatusDTO> findStatusByBoardColumnId(Long boardColumnId) throws SQLException {
+        var statuses = new ArrayList<CardStatusDTO>();
+        var sql = CARD_STATUS_SELECT + "WHERE c.board_column_id = ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardColumnId);
+            readStatuses(stmt, statuses);
+        }
+        return statuses;
+    }
+
+    /**
+     * Situação de todos os cards com bloqueio ativo, usada para carregar o índice de bloqueados.
+     */
+    public List<CardStatusDTO> findBlockedStatuses() throws SQLException {
+        var statuses = new ArrayList<CardStatusDTO>();
+        var sql = CARD_STATUS_SELECT + "WHERE c.active_block_id IS NOT NULL";
+        try (var stmt = connection.prepareStatement(sql)) {
+            readStatuses(stmt, statuses);
+        }
+        return statuses;
+    }
+
+    /**
+     * Situação de até {@code limit} cards bloqueados com ID maior que {@code afterId}, em ordem de ID.
+     */
+    public List<CardStatusDTO> findBlockedStatusPage(long afterId, int limit) throws SQLException {
+        var statuses = new ArrayList<CardStatusDTO>();
+        var sql = CARD_STATUS_SELECT + "WHERE c.active_block_id IS NOT NULL AND c.id > ? ORDER BY c.id LIMIT ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            readStatuses(stmt, statuses);
+        }
+        return statuses;
+    }
+
+    /**
+     * Situação dos cards de {@code chunk} que atendem a {@code condition}, travando as linhas com
+     * {@code SELECT ... FOR UPDATE}. A condição continua {@link #CARD_STATUS_SELECT} (com
+     * {@code bc} como coluna atual) e recebe os IDs em {@code IN (%s)}, depois dos parâmetros
+     * {@code leading}.
+     */
+    List<CardStatusDTO> lockStatuses(List<Long> chunk, String condition, Object... leading) throws SQLException {
+        var statuses = new ArrayList<CardStatusDTO>(chunk.size());
+        var ids = SqlPlaceholders.padded(chunk);
+        var sql = CARD_STATUS_SELECT + condition.formatted(SqlPlaceholders.list(ids.size())) + "FOR UPDATE OF c";
+        try (var stmt = connection.prepareStatement(sql)) {
+            var index = 1;
+            for (var value : leading) {
+                stmt.setObject(index++, value);
+            }
+            for (var id : ids) {
+                stmt.setLong(index++, id);
+            }
+            readStatuses(stmt, statuses);
+        }
+        return statuses;
+    }
+
+    private void readStatuses(PreparedStatement stmt, List<CardStatusDTO> statuses) throws SQLException {
+        try (var rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                statuses.add(new CardStatusDTO(
+                        rs.getLong("id"),
+                        rs.getLong("board_id"),
+                        rs.getLong("board_column_id"),
+                        BoardColumnKindEnum.findByName(rs.getString("kind")),
+                        rs.getBoolean("blocked"),
+                        rs.getLong("version")
+                ));
+            }
+        }
+    }
+
+    /**
+     * Move para a coluna os cards não bloqueados e, quando já finalizados, apenas para uma coluna
+     * final, como {@link #moveIfAllowed}. Os cards que ainda atendem às regras são travados antes do
+     * {@code UPDATE ... WHERE id IN (...)}; retorna a situação de cada card movido antes da mudança.
+     */
+    public List<CardStatusDTO> moveAllIfAllowed(Collection<Long> ids, Long boardColumnId) throws SQLException {
+        var condition = """
+            INNER JOIN board_column target_column ON target_column.id = ?
+            WHERE c.active_block_id IS NULL
+              AND (bc.kind NOT IN (?, ?) OR target_column.kind = ?)
+              AND c.id IN (%s)
+            """;
+        var moved = new ArrayList<CardStatusDTO>(ids.size());
+        for (var chunk : SqlPlaceholders.chunks(ids, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var locked = lockStatuses(chunk, condition, boardColumnId, FINAL.name(), CANCEL.name(), FINAL.name());
+            moveLocked(locked, boardColumnId);
+            moved.addAll(locked);
+        }
+        return moved;
+    }
+
+    /**
+     * Move para a coluna de cancelamento informada os cards que não estão bloqueados; retorna a
+     * situação de cada card cancelado antes da mudança.
+     */
+    public List<CardStatusDTO> cancelAllIfUnblocked(Collection<Long> ids, Long cancelColumnId) throws SQLException {
+        var condition = "WHERE c.active_block_id IS NULL AND c.id IN (%s)\n";
+        var cancelled = new ArrayList<CardStatusDTO>(ids.size());
+        for (var chunk : SqlPlaceholders.chunks(ids, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var locked = lockStatuses(chunk, condition);
+            moveLocked(locked, cancelColumnId);
+            cancelled.addAll(locked);
+        }
+        return cancelled;
+    }
+
+    private void moveLocked(List<CardStatusDTO> locked, Long boardColumnId) throws SQLException {
+        if (locked.isEmpty()) {
+            return;
+        }
+        var lockedIds = SqlPlaceholders.padded(locked.stream().map(CardStatusDTO::id).toList());
+        var sql = "UPDATE card SET board_column_id = ?, version = version + 1 WHERE id IN (" + SqlPlaceholders.list(lockedIds.size()) + ")";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, boardColumnId);
+            for (int i = 0; i < lockedIds.size(); i++) {
+                stmt.setLong(i + 2, lockedIds.get(i));
+            }
+            stmt.executeUpdate();
+        }
+        cardCache.invalidate(lockedIds);
+    }
+
     public int countByBoardColumnId(Long boardColumnId) throws SQLException {
         var sql = "SELECT COUNT(*) FROM card WHERE board_column_id = ?";
         try (var stmt = connection.prepareStatement(sql)) {
@@ -261,4 +591,62 @@ public class CardDAO {
         return 0;
     }
 
+    /**
+     * Quantidade de cards e de cards bloqueados de até {@code limit} colunas com ID maior que
+     * {@code afterColumnId}, em ordem de ID; colunas vazias aparecem com zero.
+     */
+    public List<ColumnCardCountDTO> countByBoardColumnPage(long afterColumnId, int limit) throws SQLException {
+        var sql = """
+            SELECT bc.id, bc.board_id, COUNT(c.id) AS cards_amount, COUNT(c.active_block_id) AS blocked_amount
+            FROM (SELECT id, board_id FROM board_column WHERE id > ? ORDER BY id LIMIT ?) bc
+            LEFT JOIN card c ON c.board_column_id = bc.id
+            GROUP BY bc.id, bc.board_id
+            ORDER BY bc.id
+            """;
+        var counts = new ArrayList<ColumnCardCountDTO>(limit);
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, afterColumnId);
+            stmt.setInt(2, limit);
+            readCounts(stmt, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Quantidade de cards e de cards bloqueados das colunas informadas; colunas vazias aparecem com
+     * zero e colunas inexistentes não aparecem.
+     */
+    public List<ColumnCardCountDTO> countByBoardColumnIds(Collection<Long> boardColumnIds) throws SQLException {
+        var counts = new ArrayList<ColumnCardCountDTO>(boardColumnIds.size());
+        for (var chunk : SqlPlaceholders.paddedChunks(boardColumnIds, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var sql = """
+                SELECT bc.id, bc.board_id, COUNT(c.id) AS cards_amount, COUNT(c.active_block_id) AS blocked_amount
+                FROM board_column bc
+                LEFT JOIN card c ON c.board_column_id = bc.id
+                WHERE bc.id IN (%s)
+                GROUP BY bc.id, bc.board_id
+                """.formatted(SqlPlaceholders.list(chunk.size()));
+            try (var stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                readCounts(stmt, counts);
+            }
+        }
+        return counts;
+    }
+
+    private void readCounts(PreparedStatement stmt, List<ColumnCardCountDTO> counts) throws SQLException {
+        try (var rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                counts.add(new ColumnCardCountDTO(
+                        rs.getLong("id"),
+                        rs.getLong("board_id"),
+                        rs.getInt("cards_amount"),
+                        rs.getInt("blocked_amount")
+                ));
+            }
+        }
+    }
+
 }
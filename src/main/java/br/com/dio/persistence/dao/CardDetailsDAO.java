@@ -0,0 +1,100 @@
+package br.com.dio.persistence.dao;
+
+import br.com.dio.dto.CardDetailsDTO;
+import lombok.AllArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toOffsetDateTime;
+
+/**
+ * Leitura de {@link CardDetailsDTO} em um único statement: o bloqueio ativo vem do ponteiro
+ * {@code card.active_block_id} e o total de bloqueios de uma subconsulta sobre {@code card_block}.
+ */
+@AllArgsConstructor
+public class CardDetailsDAO {
+
+    private static final String CARD_DETAILS_SELECT = """
+            SELECT c.id, c.title, c.description, c.board_column_id,
+                   bc.name AS column_name,
+                   ab.id AS active_block_id, ab.blocked_at, ab.block_reason,
+                   (SELECT COUNT(*) FROM card_block cb WHERE cb.card_id = c.id) AS blocks_amount
+            FROM card c
+            INNER JOIN board_column bc ON c.board_column_id = bc.id
+            LEFT JOIN block_card ab ON ab.id = c.active_block_id
+            """;
+
+    private final Connection connection;
+
+    public Optional<CardDetailsDTO> findById(Long id) throws SQLException {
+        var sql = CARD_DETAILS_SELECT + "WHERE c.id = ?";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+
+            try (var rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(toDetails(rs));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Detalhes dos cards informados, na ordem recebida, com um statement por bloco de
+     * {@value SqlPlaceholders#MAX_IN_PARAMETERS} IDs. IDs inexistentes não aparecem no resultado.
+     */
+    public List<CardDetailsDTO> findByIds(Collection<Long> ids) throws SQLException {
+        var uniqueIds = new LinkedHashSet<>(ids);
+        var detailsById = new HashMap<Long, CardDetailsDTO>(uniqueIds.size());
+        for (var chunk : SqlPlaceholders.paddedChunks(uniqueIds, SqlPlaceholders.MAX_IN_PARAMETERS)) {
+            var sql = CARD_DETAILS_SELECT + "WHERE c.id IN (" + SqlPlaceholders.list(chunk.size()) + ")";
+            try (var stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+
+                try (var rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        var details = toDetails(rs);
+                        detailsById.put(details.id(), details);
+                    }
+                }
+            }
+        }
+
+        var result = new ArrayList<CardDetailsDTO>(detailsById.size());
+        for (var id : uniqueIds) {
+            var details = detailsById.get(id);
+            if (details != null) {
+                result.add(details);
+            }
+        }
+        return result;
+    }
+
+    private CardDetailsDTO toDetails(ResultSet rs) throws SQLException {
+        rs.getLong("active_block_id");
+        var blocked = !rs.wasNull();
+        return new CardDetailsDTO(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("description"),
+                blocked,
+                toOffsetDateTime(rs.getTimestamp("blocked_at")),
+                rs.getString("block_reason"),
+                rs.getInt("blocks_amount"),
+                rs.getLong("board_column_id"),
+                rs.getString("column_name")
+        );
+    }
+
+}
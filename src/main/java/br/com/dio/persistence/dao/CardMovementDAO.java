@@ -0,0 +1,93 @@
+package br.com.dio.persistence.dao;
+
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.CardMovementEntity;
+import lombok.AllArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toOffsetDateTime;
+import static br.com.dio.persistence.converter.OffsetDateTimeConverter.toTimestamp;
+
+@AllArgsConstructor
+public class CardMovementDAO {
+
+    private static final int MAX_ROWS_PER_INSERT = 500;
+    private static final String SELECT = """
+        SELECT m.id, m.card_id, m.board_id, m.board_column_id, bc.kind, m.moved_at
+          FROM card_movement m
+          LEFT JOIN board_column bc ON bc.id = m.board_column_id
+        """;
+
+    private final Connection connection;
+
+    /**
+     * Grava as movimentações com INSERTs de múltiplas linhas.
+     */
+    public void insertAll(List<CardMovementEntity> movements) throws SQLException {
+        for (var chunk : SqlPlaceholders.chunks(movements, MAX_ROWS_PER_INSERT)) {
+            var sql = "INSERT INTO card_movement (card_id, board_id, board_column_id, moved_at) VALUES "
+                    + SqlPlaceholders.rows(chunk.size(), 4);
+            try (var stmt = connection.prepareStatement(sql)) {
+                var index = 1;
+                for (var movement : chunk) {
+                    stmt.setLong(index++, movement.getCardId());
+                    stmt.setLong(index++, movement.getBoardId());
+                    stmt.setLong(index++, movement.getBoardColumnId());
+                    stmt.setTimestamp(index++, toTimestamp(movement.getMovedAt()));
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Histórico do card em ordem cronológica.
+     */
+    public List<CardMovementEntity> findByCardId(Long cardId) throws SQLException {
+        try (var stmt = connection.prepareStatement(SELECT + "WHERE m.card_id = ? ORDER BY m.moved_at, m.id")) {
+            stmt.setLong(1, cardId);
+            try (var rs = stmt.executeQuery()) {
+                var movements = new ArrayList<CardMovementEntity>();
+                while (rs.next()) {
+                    movements.add(map(rs));
+                }
+                return movements;
+            }
+        }
+    }
+
+    /**
+     * Todo o histórico em streaming, agrupado por card e em ordem cronológica dentro de cada card
+     * (a ordem do índice {@code (card_id, moved_at)}).
+     */
+    public Stream<CardMovementEntity> streamAll() throws SQLException {
+        var stmt = ResultSetStreams.prepareStreaming(connection, SELECT + "ORDER BY m.card_id, m.moved_at, m.id");
+        return ResultSetStreams.stream(stmt, CardMovementDAO::map);
+    }
+
+    private static CardMovementEntity map(ResultSet rs) throws SQLException {
+        var movement = new CardMovementEntity();
+        movement.setId(rs.getLong("id"));
+        movement.setCardId(rs.getLong("card_id"));
+        movement.setBoardId(rs.getLong("board_id"));
+        movement.setBoardColumnId(rs.getLong("board_column_id"));
+        var kind = rs.getString("kind");
+        movement.setBoardColumnKind(kind != null ? BoardColumnKindEnum.findByName(kind) : null);
+        movement.setMovedAt(toOffsetDateTime(rs.getTimestamp("moved_at")));
+        return movement;
+    }
+
+    public void deleteByBoardId(Long boardId) throws SQLException {
+        try (var stmt = connection.prepareStatement("DELETE FROM card_movement WHERE board_id = ?")) {
+            stmt.setLong(1, boardId);
+            stmt.executeUpdate();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package br.com.dio.persistence.dao;
+
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.entity.CardEntity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapeia as linhas de {@link #SELECT} acessando as colunas por posição. Deve ser criado por
+ * consulta: cards da mesma coluna compartilham a mesma instância de {@link BoardColumnEntity}
+ * (e de {@link BoardEntity}), de modo que cada linha aloca apenas o card e seus campos.
+ */
+final class CardRowMapper implements RowMapper<CardEntity> {
+
+    static final String SELECT = """
+            SELECT c.id, c.title, c.description, c.board_column_id, c.active_block_id, c.version,
+                   bc.name as column_name, bc.column_order, bc.kind, bc.board_id,
+                   b.name as board_name
+            FROM card c
+            INNER JOIN board_column bc ON c.board_column_id = bc.id
+            INNER JOIN board b ON bc.board_id = b.id
+            """;
+
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int BOARD_COLUMN_ID = 4;
+    private static final int ACTIVE_BLOCK_ID = 5;
+    private static final int VERSION = 6;
+    private static final int COLUMN_NAME = 7;
+    private static final int COLUMN_ORDER = 8;
+    private static final int KIND = 9;
+    private static final int BOARD_ID = 10;
+    private static final int BOARD_NAME = 11;
+
+    private final Map<Long, BoardColumnEntity> columns = new HashMap<>();
+    private final Map<Long, BoardEntity> boards = new HashMap<>();
+
+    @Override
+    public CardEntity map(final ResultSet rs) throws SQLException {
+        var card = new CardEntity();
+        card.setId(rs.getLong(ID));
+        card.setTitle(rs.getString(TITLE));
+        card.setDescription(rs.getString(DESCRIPTION));
+        var activeBlockId = rs.getLong(ACTIVE_BLOCK_ID);
+        card.setActiveBlockId(rs.wasNull() ? null : activeBlockId);
+        card.setVersion(rs.getLong(VERSION));
+        card.setBoardColumn(column(rs));
+        return card;
+    }
+
+    private BoardColumnEntity column(final ResultSet rs) throws SQLException {
+        var columnId = rs.getLong(BOARD_COLUMN_ID);
+        var boardColumn = columns.get(columnId);
+        if (boardColumn == null) {
+            boardColumn = new BoardColumnEntity();
+            boardColumn.setId(columnId);
+            boardColumn.setName(rs.getString(COLUMN_NAME));
+            boardColumn.setOrder(rs.getInt(COLUMN_ORDER));
+            boardColumn.setKind(BoardColumnKindEnum.findByName(rs.getString(KIND)));
+            boardColumn.setBoard(board(rs));
+            columns.put(columnId, boardColumn);
+        }
+        return boardColumn;
+    }
+
+    private BoardEntity board(final ResultSet rs) throws SQLException {
+        var boardId = rs.getLong(BOARD_ID);
+        var board = boards.get(boardId);
+        if (board == null) {
+            board = new BoardEntity();
+            board.setId(boardId);
+            board.setName(rs.getString(BOARD_NAME));
+            boards.put(boardId, board);
+        }
+        return board;
+    }
+
+}
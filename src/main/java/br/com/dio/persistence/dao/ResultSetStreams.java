@@ -0,0 +1,70 @@
+package br.com.dio.persistence.dao;
+
+import lombok.NoArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Expõe consultas como {@link Stream} preguiçoso. O statement usa o modo de streaming do
+ * Connector/J ({@code fetchSize = Integer.MIN_VALUE}, forward-only e somente leitura): as linhas
+ * chegam uma a uma e a memória usada não depende do tamanho do resultado. Enquanto o stream
+ * estiver aberto a conexão não pode executar outros statements, e ele precisa ser fechado
+ * (try-with-resources) para liberar o statement e o {@link ResultSet}.
+ */
+@NoArgsConstructor(access = PRIVATE)
+final class ResultSetStreams {
+
+    static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    static PreparedStatement prepareStreaming(final Connection connection, final String sql) throws SQLException {
+        var stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(STREAMING_FETCH_SIZE);
+        return stmt;
+    }
+
+    /**
+     * Executa o statement e devolve um stream que fecha o {@link ResultSet} e o statement ao ser
+     * fechado. Se a execução falhar, o statement é fechado antes de propagar a exceção.
+     */
+    static <T> Stream<T> stream(final PreparedStatement stmt, final RowMapper<T> mapper) throws SQLException {
+        ResultSet rs;
+        try {
+            rs = stmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            stmt.close();
+            throw e;
+        }
+        var spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Erro ao ler o próximo registro da consulta.", e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try (stmt; rs) {
+                // fecha o ResultSet e depois o statement
+            } catch (SQLException e) {
+                throw new RuntimeException("Erro ao fechar a consulta.", e);
+            }
+        });
+    }
+
+}
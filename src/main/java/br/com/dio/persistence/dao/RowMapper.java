@@ -0,0 +1,14 @@
+package br.com.dio.persistence.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converte a linha atual do {@link ResultSet} em um objeto.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+}
@@ -0,0 +1,72 @@
+package br.com.dio.persistence.dao;
+
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Monta listas de parâmetros para cláusulas {@code IN (...)} e INSERTs de múltiplas linhas.
+ */
+@NoArgsConstructor(access = PRIVATE)
+final class SqlPlaceholders {
+
+    /**
+     * Maior quantidade de IDs enviada em uma única cláusula {@code IN}.
+     */
+    static final int MAX_IN_PARAMETERS = 1_000;
+
+    /**
+     * Tamanhos de lista {@code IN} usados por {@link #padded(List)}, para que cada SQL tenha poucas
+     * variações e o cache de statements da conexão as reaproveite.
+     */
+    private static final int[] PADDED_SIZES = {1, 10, 50, 200, MAX_IN_PARAMETERS};
+
+    static String list(final int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    static String rows(final int rows, final int columns) {
+        return String.join(", ", Collections.nCopies(rows, "(" + list(columns) + ")"));
+    }
+
+    /**
+     * Completa {@code values} repetindo o último valor até o menor tamanho de {@link #PADDED_SIZES}
+     * que o comporte; valores repetidos não mudam o resultado de um {@code IN}.
+     */
+    static <T> List<T> padded(final List<T> values) {
+        for (var size : PADDED_SIZES) {
+            if (values.size() == size) {
+                return values;
+            }
+            if (values.size() < size) {
+                var padded = new ArrayList<T>(size);
+                padded.addAll(values);
+                padded.addAll(Collections.nCopies(size - values.size(), values.get(values.size() - 1)));
+                return padded;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Como {@link #chunks(Collection, int)}, com cada bloco completado por {@link #padded(List)}.
+     */
+    static <T> List<List<T>> paddedChunks(final Collection<T> values, final int size) {
+        return chunks(values, size).stream().map(SqlPlaceholders::padded).toList();
+    }
+
+    static <T> List<List<T>> chunks(final Collection<T> values, final int size) {
+        var source = List.copyOf(values);
+        var chunks = new ArrayList<List<T>>();
+        for (int from = 0; from < source.size(); from += size) {
+            chunks.add(source.subList(from, Math.min(from + size, source.size())));
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,21 @@
+package br.com.dio.persistence.entity;
+
+import java.util.Map;
+
+/**
+ * Board carregado com suas colunas ({@link BoardEntity#getBoardColumns()}) e a quantidade de
+ * cards e de cards bloqueados de cada coluna, indexadas pelo ID da coluna. Quando carregado com
+ * cards, eles ficam em {@link BoardColumnEntity#getCards()}.
+ */
+public record BoardAggregate(BoardEntity board, Map<Long, Integer> cardsAmountByColumnId,
+                             Map<Long, Integer> blockedAmountByColumnId) {
+
+    public int cardsAmount(final Long columnId) {
+        return cardsAmountByColumnId.getOrDefault(columnId, 0);
+    }
+
+    public int blockedAmount(final Long columnId) {
+        return blockedAmountByColumnId.getOrDefault(columnId, 0);
+    }
+
+}
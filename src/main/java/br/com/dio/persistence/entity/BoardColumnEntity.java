@@ -14,9 +14,20 @@ public class BoardColumnEntity {
     private String name;
     private int order;
     private BoardColumnKindEnum kind;
-    private BoardEntity board = new BoardEntity();
+    private long version;
+    private BoardEntity board;
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    private List<CardEntity> cards = new ArrayList<>();
+    private List<CardEntity> cards;
+
+    /**
+     * A lista é criada no primeiro acesso: colunas lidas junto com cards não carregam a lista.
+     */
+    public List<CardEntity> getCards() {
+        if (cards == null) {
+            cards = new ArrayList<>();
+        }
+        return cards;
+    }
 
 }
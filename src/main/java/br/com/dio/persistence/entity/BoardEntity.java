@@ -2,14 +2,18 @@ package br.com.dio.persistence.entity;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.Optional;
 
 import static br.com.dio.persistence.entity.BoardColumnKindEnum.CANCEL;
 import static br.com.dio.persistence.entity.BoardColumnKindEnum.INITIAL;
+import static lombok.AccessLevel.NONE;
 
 @Data
 public class BoardEntity {
@@ -18,20 +22,50 @@ public class BoardEntity {
     private String name;
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    private List<BoardColumnEntity> boardColumns = new ArrayList<>();
+    private List<BoardColumnEntity> boardColumns;
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<BoardColumnKindEnum, BoardColumnEntity> columnsByKind;
 
-    public BoardColumnEntity getInitialColumn(){
-        return getFilteredColumn(bc -> bc.getKind().equals(INITIAL));
+    /**
+     * Lista e índice por tipo são criados no primeiro acesso, para que boards lidos apenas como
+     * referência de colunas e cards não aloquem coleções.
+     */
+    public List<BoardColumnEntity> getBoardColumns() {
+        if (boardColumns == null) {
+            boardColumns = new ArrayList<>();
+        }
+        return boardColumns;
     }
 
-    public BoardColumnEntity getCancelColumn(){
-        return getFilteredColumn(bc -> bc.getKind().equals(CANCEL));
+    public void setBoardColumns(final List<BoardColumnEntity> boardColumns) {
+        this.boardColumns = new ArrayList<>();
+        this.columnsByKind = null;
+        boardColumns.forEach(this::addColumn);
+    }
+
+    /**
+     * Adiciona a coluna mantendo o índice por tipo; para cada tipo vale a primeira coluna adicionada.
+     */
+    public void addColumn(final BoardColumnEntity column) {
+        getBoardColumns().add(column);
+        if (columnsByKind == null) {
+            columnsByKind = new EnumMap<>(BoardColumnKindEnum.class);
+        }
+        columnsByKind.putIfAbsent(column.getKind(), column);
     }
 
-    private BoardColumnEntity getFilteredColumn(Predicate<BoardColumnEntity> filter){
-        return boardColumns.stream()
-                .filter(filter)
-                .findFirst().orElseThrow();
+    public Optional<BoardColumnEntity> findColumnByKind(final BoardColumnKindEnum kind) {
+        return columnsByKind == null ? Optional.empty() : Optional.ofNullable(columnsByKind.get(kind));
+    }
+
+    public BoardColumnEntity getInitialColumn(){
+        return findColumnByKind(INITIAL).orElseThrow();
+    }
+
+    public BoardColumnEntity getCancelColumn(){
+        return findColumnByKind(CANCEL).orElseThrow();
     }
 
 }
@@ -8,6 +8,12 @@ public class CardEntity {
     private Long id;
     private String title;
     private String description;
-    private BoardColumnEntity boardColumn = new BoardColumnEntity();
+    private BoardColumnEntity boardColumn;
+    private Long activeBlockId;
+    private long version;
+
+    public boolean isBlocked() {
+        return activeBlockId != null;
+    }
 
 }
@@ -0,0 +1,21 @@
+package br.com.dio.persistence.entity;
+
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entrada do card em uma coluna. A saída é a entrada seguinte do mesmo card.
+ */
+@Data
+public class CardMovementEntity {
+
+    private Long id;
+    private Long cardId;
+    private Long boardId;
+    private Long boardColumnId;
+    // Não é gravado: vem da coluna nas consultas
+    private BoardColumnKindEnum boardColumnKind;
+    private OffsetDateTime movedAt;
+
+}
@@ -0,0 +1,318 @@
+package br.com.dio.persistence.history;
+
+import br.com.dio.dto.BoardFlowMetricsDTO;
+import br.com.dio.dto.DailyThroughputDTO;
+import br.com.dio.dto.FlowTimeDTO;
+import br.com.dio.persistence.cache.IdBitmap;
+import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.dao.CardMovementDAO;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.CardMovementEntity;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.*;
+import static br.com.dio.persistence.transaction.TransactionManager.streamWithConnection;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+
+/**
+ * Lead time, cycle time, permanência por tipo de coluna e vazão de cada board, mantidos de forma
+ * incremental a partir do histórico de movimentação.
+ * <p>
+ * Cada board guarda um agregado por dia (UTC) com as entradas por tipo de coluna e
+ * {@link DurationSketch}es dos tempos concluídos naquele dia; uma consulta combina os dias do
+ * período e custa O(dias), não O(cards). Os dias mais antigos que {@code retentionDays} são
+ * descartados. Para medir os tempos, os cards ainda não finalizados ou cancelados ficam em memória
+ * com o instante de criação, de início e da última troca de tipo de coluna; os já encerrados ficam
+ * só marcados num {@link IdBitmap} por tipo, para que uma nova entrada em coluna final ou de
+ * cancelamento não seja contada outra vez.
+ * <p>
+ * É carregado por {@link #rebuild(DataSource)} na inicialização e alimentado pelo
+ * {@link CardMovementAppender} depois de cada lote gravado. Mudanças entre colunas do mesmo tipo
+ * não alteram as métricas. Cards importados em massa entram pelo {@link #record(List)} do
+ * importador, com a criação no instante da importação.
+ */
+public final class CardFlowAnalytics {
+
+    public static final int DEFAULT_RETENTION_DAYS = 365;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final BoardColumnKindEnum[] KINDS = BoardColumnKindEnum.values();
+
+    private static volatile CardFlowAnalytics shared;
+
+    private final int retentionDays;
+    private final Clock clock;
+    private final Map<Long, OpenCard> openCards = new HashMap<>();
+    private final Map<Long, TreeMap<Long, DayBucket>> daysByBoard = new HashMap<>();
+    private final IdBitmap finishedCards = new IdBitmap();
+    private final IdBitmap cancelledCards = new IdBitmap();
+
+    public CardFlowAnalytics(final int retentionDays, final Clock clock) {
+        if (retentionDays < 1) {
+            throw new IllegalArgumentException("A retenção das métricas deve ser de pelo menos um dia.");
+        }
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Instância compartilhada; os dias retidos vêm de {@code board.analytics.retention-days}.
+     */
+    public static CardFlowAnalytics shared() {
+        if (shared == null) {
+            synchronized (CardFlowAnalytics.class) {
+                if (shared == null) {
+                    shared = new CardFlowAnalytics(
+                            Integer.getInteger("board.analytics.retention-days", DEFAULT_RETENTION_DAYS), Clock.systemUTC());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Recalcula tudo a partir de {@code card_movement}, lendo o histórico em streaming. Deve rodar
+     * antes de o {@link CardMovementAppender} começar a gravar.
+     */
+    public synchronized void rebuild(final DataSource dataSource) throws SQLException {
+        openCards.clear();
+        daysByBoard.clear();
+        finishedCards.clear();
+        cancelledCards.clear();
+        for (var shard : shardsOf(dataSource)) {
+            try (var movements = streamWithConnection(shard, connection -> new CardMovementDAO(connection).streamAll())) {
+                movements.forEach(this::apply);
+            }
+        }
+        forgetDeletedCards(dataSource);
+    }
+
+    /**
+     * Aplica movimentações já gravadas, na ordem em que ocorreram.
+     */
+    public synchronized void record(final List<CardMovementEntity> movements) {
+        movements.forEach(this::apply);
+    }
+
+    public void cardDeleted(final Long cardId) {
+        afterCommit(() -> {
+            openCards.remove(cardId);
+            finishedCards.remove(cardId);
+            cancelledCards.remove(cardId);
+        });
+    }
+
+    public void boardDeleted(final Long boardId) {
+        afterCommit(() -> {
+            daysByBoard.remove(boardId);
+            openCards.values().removeIf(card -> card.boardId.equals(boardId));
+        });
+    }
+
+    /**
+     * Métricas do board entre {@code from} e {@code to}, inclusive.
+     */
+    public synchronized BoardFlowMetricsDTO metrics(final Long boardId, final LocalDate from, final LocalDate to) {
+        var entered = new long[KINDS.length];
+        var timeInKind = new DurationSketch[KINDS.length];
+        for (int i = 0; i < KINDS.length; i++) {
+            timeInKind[i] = new DurationSketch();
+        }
+        var leadTime = new DurationSketch();
+        var cycleTime = new DurationSketch();
+        var daily = new ArrayList<DailyThroughputDTO>();
+
+        var days = daysByBoard.getOrDefault(boardId, new TreeMap<>())
+                .subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+        for (var entry : days.entrySet()) {
+            var bucket = entry.getValue();
+            for (int i = 0; i < KINDS.length; i++) {
+                entered[i] += bucket.entered[i];
+                if (bucket.timeInKind[i] != null) {
+                    timeInKind[i].merge(bucket.timeInKind[i]);
+                }
+            }
+            if (bucket.leadTime != null) {
+                leadTime.merge(bucket.leadTime);
+            }
+            if (bucket.cycleTime != null) {
+                cycleTime.merge(bucket.cycleTime);
+            }
+            daily.add(new DailyThroughputDTO(LocalDate.ofEpochDay(entry.getKey()),
+                    bucket.entered[FINAL.ordinal()], bucket.entered[CANCEL.ordinal()]));
+        }
+
+        var enteredByKind = new EnumMap<BoardColumnKindEnum, Long>(BoardColumnKindEnum.class);
+        var timeByKind = new EnumMap<BoardColumnKindEnum, FlowTimeDTO>(BoardColumnKindEnum.class);
+        for (var kind : KINDS) {
+            enteredByKind.put(kind, entered[kind.ordinal()]);
+            timeByKind.put(kind, toDTO(timeInKind[kind.ordinal()]));
+        }
+        return new BoardFlowMetricsDTO(boardId, from, to, enteredByKind, toDTO(leadTime), toDTO(cycleTime),
+                timeByKind, List.copyOf(daily));
+    }
+
+    private void apply(final CardMovementEntity movement) {
+        var kind = movement.getBoardColumnKind();
+        if (kind == null) {
+            return;
+        }
+        var at = movement.getMovedAt().toInstant().toEpochMilli();
+        var card = openCards.get(movement.getCardId());
+        if (card != null && card.kind == kind) {
+            return;
+        }
+        if (card == null && isClosed(movement.getCardId())) {
+            if (kind == FINAL || kind == CANCEL) {
+                return;
+            }
+            // Card reaberto: volta a ser medido como um card novo
+            finishedCards.remove(movement.getCardId());
+            cancelledCards.remove(movement.getCardId());
+        }
+        var bucket = bucket(movement.getBoardId(), Math.floorDiv(at, MILLIS_PER_DAY));
+        if (card == null) {
+            card = new OpenCard(movement.getBoardId());
+            card.createdAt = kind == INITIAL ? at : -1;
+            openCards.put(movement.getCardId(), card);
+        } else if (bucket != null) {
+            bucket.timeInKind(card.kind).add(Math.max(0, at - card.since));
+        }
+        if (bucket != null) {
+            bucket.entered[kind.ordinal()]++;
+        }
+        if (kind == PENDING && card.startedAt < 0) {
+            card.startedAt = at;
+        }
+        if (kind == FINAL || kind == CANCEL) {
+            if (kind == FINAL && bucket != null) {
+                if (card.createdAt >= 0) {
+                    bucket.leadTime().add(Math.max(0, at - card.createdAt));
+                }
+                if (card.startedAt >= 0) {
+                    bucket.cycleTime().add(Math.max(0, at - card.startedAt));
+                }
+            }
+            openCards.remove(movement.getCardId());
+            (kind == FINAL ? finishedCards : cancelledCards).add(movement.getCardId());
+            return;
+        }
+        card.kind = kind;
+        card.since = at;
+    }
+
+    private boolean isClosed(final Long cardId) {
+        return finishedCards.contains(cardId) || cancelledCards.contains(cardId);
+    }
+
+    /**
+     * Agregado do dia, ou {@code null} se o dia já estiver fora da retenção.
+     */
+    private DayBucket bucket(final Long boardId, final long day) {
+        var oldest = Math.floorDiv(clock.millis(), MILLIS_PER_DAY) - retentionDays + 1;
+        if (day < oldest) {
+            return null;
+        }
+        var days = daysByBoard.computeIfAbsent(boardId, ignored -> new TreeMap<>());
+        var bucket = days.get(day);
+        if (bucket == null) {
+            days.headMap(oldest).clear();
+            bucket = new DayBucket();
+            days.put(day, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * A exclusão de um card não gera movimentação: os cards abertos que não existem mais saem do
+     * estado, consultados em lotes por shard.
+     */
+    private void forgetDeletedCards(final DataSource dataSource) throws SQLException {
+        var idsByShard = new LinkedHashMap<DataSource, List<Long>>();
+        for (var cardId : openCards.keySet()) {
+            idsByShard.computeIfAbsent(shardFor(dataSource, cardId), ignored -> new ArrayList<>()).add(cardId);
+        }
+        var existing = new HashSet<Long>();
+        for (var entry : idsByShard.entrySet()) {
+            withConnection(entry.getKey(), connection -> new CardDAO(connection).findStatusByIds(entry.getValue()))
+                    .forEach(status -> existing.add(status.id()));
+        }
+        openCards.keySet().retainAll(existing);
+    }
+
+    private void afterCommit(final Runnable change) {
+        Runnable apply = () -> {
+            synchronized (this) {
+                change.run();
+            }
+        };
+        runAfterCommit(apply);
+    }
+
+    private static FlowTimeDTO toDTO(final DurationSketch sketch) {
+        return new FlowTimeDTO(sketch.count(), sketch.quantile(0.50), sketch.quantile(0.85), sketch.quantile(0.95));
+    }
+
+    private static final class OpenCard {
+
+        private final Long boardId;
+        private BoardColumnKindEnum kind;
+        private long since;
+        private long createdAt = -1;
+        private long startedAt = -1;
+
+        private OpenCard(final Long boardId) {
+            this.boardId = boardId;
+        }
+
+    }
+
+    private static final class DayBucket {
+
+        private final long[] entered = new long[KINDS.length];
+        // Criados sob demanda: a maioria dos dias não conclui tempos em todos os tipos
+        private final DurationSketch[] timeInKind = new DurationSketch[KINDS.length];
+        private DurationSketch leadTime;
+        private DurationSketch cycleTime;
+
+        private DurationSketch timeInKind(final BoardColumnKindEnum kind) {
+            var sketch = timeInKind[kind.ordinal()];
+            if (sketch == null) {
+                sketch = new DurationSketch();
+                timeInKind[kind.ordinal()] = sketch;
+            }
+            return sketch;
+        }
+
+        private DurationSketch leadTime() {
+            if (leadTime == null) {
+                leadTime = new DurationSketch();
+            }
+            return leadTime;
+        }
+
+        private DurationSketch cycleTime() {
+            if (cycleTime == null) {
+                cycleTime = new DurationSketch();
+            }
+            return cycleTime;
+        }
+
+    }
+
+}
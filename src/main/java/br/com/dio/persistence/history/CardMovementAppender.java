@@ -0,0 +1,335 @@
+package br.com.dio.persistence.history;
+
+import br.com.dio.persistence.dao.CardMovementDAO;
+import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.entity.CardMovementEntity;
+import br.com.dio.persistence.transaction.TransactionScope;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.transaction.TransactionManager.inTransaction;
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Grava o histórico de movimentação dos cards ({@code card_movement}) fora do caminho da
+ * requisição. Os serviços registram a entrada do card na coluna; depois do commit ela vai para uma
+ * fila, e uma thread grava a fila em lotes de até {@code batchSize} linhas, no shard de cada card,
+ * assim que o lote enche ou {@code flushInterval} depois da primeira movimentação do lote.
+ * <p>
+ * O commit nunca espera pela fila. Com {@code capacity} movimentações pendentes, os serviços
+ * esperam até {@code offerTimeout} por espaço em {@link #awaitCapacity()}, antes de emprestar a
+ * conexão da transação; se a fila continuar cheia, a movimentação entra assim mesmo depois do
+ * commit e o excesso é contado em {@link #overflowed()} e registrado em log. Um lote que falha é repetido
+ * algumas vezes antes de ser descartado e contado em {@link #dropped()}. Movimentações pendentes de
+ * um board excluído são descartadas sem gravar. {@link #shutdown(Duration)} para de aceitar
+ * movimentações e grava as pendentes antes de as conexões serem fechadas.
+ * <p>
+ * O histórico é eventualmente consistente: uma movimentação aparece na tabela em até
+ * {@code flushInterval} após o commit. Os ouvintes de {@link #addListener(Consumer)} recebem cada
+ * lote depois de gravado, na thread de gravação.
+ */
+public final class CardMovementAppender {
+
+    private static final System.Logger LOGGER = System.getLogger(CardMovementAppender.class.getName());
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    // Uma movimentação registrada antes da exclusão do board pode chegar à fila logo depois dela
+    private static final long DELETED_BOARD_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static volatile CardMovementAppender shared;
+
+    private final BlockingQueue<CardMovementEntity> queue = new LinkedBlockingQueue<>();
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    // Registros entre a verificação de aceitação e a entrada na fila; a gravação só termina sem eles
+    private final AtomicInteger appending = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    // Sinalizado pela thread de gravação quando tira movimentações da fila
+    private final Object spaceFreed = new Object();
+    private final Map<Long, Long> deletedBoards = new ConcurrentHashMap<>();
+    private final List<Consumer<List<CardMovementEntity>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean accepting = true;
+    private Thread writer;
+
+    public CardMovementAppender(final int capacity, final int batchSize, final Duration flushInterval,
+                                final Duration offerTimeout) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("A capacidade da fila e o tamanho do lote devem ser maiores que zero.");
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+    }
+
+    /**
+     * Instância compartilhada, configurada por {@code board.history.queue-capacity},
+     * {@code board.history.batch-size}, {@code board.history.flush-ms} e
+     * {@code board.history.offer-timeout-ms}.
+     */
+    public static CardMovementAppender shared() {
+        if (shared == null) {
+            synchronized (CardMovementAppender.class) {
+                if (shared == null) {
+                    shared = new CardMovementAppender(
+                            Integer.getInteger("board.history.queue-capacity", 10_000),
+                            Integer.getInteger("board.history.batch-size", 500),
+                            Duration.ofMillis(Long.getLong("board.history.flush-ms", 200)),
+                            Duration.ofMillis(Long.getLong("board.history.offer-timeout-ms", 1_000)));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Registra a entrada do card na coluna depois do commit da transação atual (ou imediatamente,
+     * fora de uma); o horário é o do commit.
+     */
+    public void moved(final Long cardId, final Long boardId, final Long boardColumnId,
+                      final BoardColumnKindEnum boardColumnKind) {
+        Runnable append = () -> {
+            var movement = new CardMovementEntity();
+            movement.setCardId(cardId);
+            movement.setBoardId(boardId);
+            movement.setBoardColumnId(boardColumnId);
+            movement.setBoardColumnKind(boardColumnKind);
+            movement.setMovedAt(OffsetDateTime.now());
+            append(movement);
+        };
+        runAfterCommit(append);
+    }
+
+    /**
+     * Descarta, depois do commit da exclusão, as movimentações do board ainda não gravadas.
+     */
+    public void boardDeleted(final Long boardId) {
+        runAfterCommit(() -> {
+            deletedBoards.put(boardId, System.nanoTime());
+            queue.removeIf(movement -> boardId.equals(movement.getBoardId()));
+        });
+    }
+
+    public void addListener(final Consumer<List<CardMovementEntity>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Inicia a gravação em {@code dataSource}; chamadas seguintes são ignoradas.
+     */
+    public synchronized void start(final DataSource dataSource) {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(() -> run(dataSource), "board-card-history");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Para de aceitar movimentações e espera até {@code timeout} a gravação das pendentes.
+     */
+    public synchronized void shutdown(final Duration timeout) {
+        accepting = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(Math.max(1, timeout.toMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            LOGGER.log(WARNING, "Encerramento sem gravar " + queue.size() + " movimentação(ões) de card.");
+        }
+    }
+
+    public long written() {
+        return written.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Movimentações que entraram com a fila já cheia.
+     */
+    public long overflowed() {
+        return overflowed.get();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Contrapressão: com a fila cheia, espera até {@code offerTimeout} por espaço. Deve ser chamado
+     * antes de a transação emprestar uma conexão; dentro de uma transação retorna na hora, para não
+     * segurar a conexão e as linhas travadas de que a gravação da fila depende.
+     */
+    public void awaitCapacity() {
+        if (queue.size() < capacity || TransactionScope.current().isPresent()) {
+            return;
+        }
+        var deadline = System.nanoTime() + offerTimeoutNanos;
+        synchronized (spaceFreed) {
+            while (queue.size() >= capacity && accepting) {
+                var remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    NANOSECONDS.timedWait(spaceFreed, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void append(final CardMovementEntity movement) {
+        appending.incrementAndGet();
+        try {
+            if (!accepting) {
+                drop(1, null);
+                return;
+            }
+            queue.add(movement);
+            if (queue.size() > capacity) {
+                var total = overflowed.incrementAndGet();
+                // Avisa no primeiro excesso e a cada mil
+                if (total == 1 || total % 1_000 == 0) {
+                    LOGGER.log(WARNING, "Fila do histórico de movimentação acima da capacidade de " + capacity
+                            + " (excedentes: " + total + ").");
+                }
+            }
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    private void run(final DataSource dataSource) {
+        var batch = new ArrayList<CardMovementEntity>(batchSize);
+        while (accepting || appending.get() > 0 || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushIntervalNanos, NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                var deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    var remaining = deadline - System.nanoTime();
+                    // No encerramento o lote sai sem esperar o intervalo
+                    if (remaining <= 0 || !accepting) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                signalSpaceFreed();
+                write(dataSource, batch);
+            } catch (InterruptedException e) {
+                // A thread só termina quando a fila estiver vazia
+                write(dataSource, batch);
+            } catch (RuntimeException e) {
+                drop(batch.size(), e);
+            }
+            batch.clear();
+            var expired = System.nanoTime() - DELETED_BOARD_RETENTION_NANOS;
+            deletedBoards.values().removeIf(deletedAt -> deletedAt - expired < 0);
+        }
+    }
+
+    private void signalSpaceFreed() {
+        synchronized (spaceFreed) {
+            spaceFreed.notifyAll();
+        }
+    }
+
+    private void write(final DataSource dataSource, final List<CardMovementEntity> batch) {
+        var byShard = new LinkedHashMap<DataSource, List<CardMovementEntity>>();
+        for (var movement : batch) {
+            if (deletedBoards.containsKey(movement.getBoardId())) {
+                continue;
+            }
+            byShard.computeIfAbsent(shardFor(dataSource, movement.getCardId()), ignored -> new ArrayList<>()).add(movement);
+        }
+        for (var entry : byShard.entrySet()) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    inTransaction(entry.getKey(), connection -> {
+                        new CardMovementDAO(connection).insertAll(entry.getValue());
+                        return null;
+                    });
+                    written.addAndGet(entry.getValue().size());
+                    notifyListeners(entry.getValue());
+                    break;
+                } catch (SQLException | RuntimeException e) {
+                    if (attempt >= MAX_ATTEMPTS) {
+                        drop(entry.getValue().size(), e);
+                        break;
+                    }
+                    pause(RETRY_BACKOFF_MILLIS << (attempt - 1));
+                }
+            }
+        }
+    }
+
+    private void notifyListeners(final List<CardMovementEntity> movements) {
+        for (var listener : listeners) {
+            try {
+                listener.accept(movements);
+            } catch (RuntimeException e) {
+                LOGGER.log(WARNING, "Falha em um ouvinte do histórico de movimentação.", e);
+            }
+        }
+    }
+
+    private static void pause(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drop(final int count, final Exception cause) {
+        var total = dropped.addAndGet(count);
+        // Com a fila cheia os descartes são um a um: avisa no primeiro e a cada mil
+        if (cause != null || total == 1 || total % 1_000 == 0) {
+            LOGGER.log(WARNING, count + " movimentação(ões) de card descartada(s) do histórico (total: " + total + ").", cause);
+        }
+    }
+
+}
@@ -10,10 +10,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.sql.Connection;
-import java.sql.SQLException;
-
-import static br.com.dio.persistence.config.ConnectionConfig.getConnection;
 
+/**
+ * Aplica o changelog do Liquibase no banco da conexão recebida, que continua aberta; com shards,
+ * é executada uma vez para cada shard.
+ */
 @AllArgsConstructor
 public class MigrationStrategy {
 
@@ -25,16 +26,14 @@ public class MigrationStrategy {
         try(var fos = new FileOutputStream("liquibase.log")){
             System.setOut(new PrintStream(fos));
             System.setErr(new PrintStream(fos));
-            try(
-                    var connection = getConnection();
-                    var jdbcConnection = new JdbcConnection(connection);
-            ){
+            try {
+                var jdbcConnection = new JdbcConnection(connection);
                 var liquibase = new Liquibase(
                         "/db/changelog/db.changelog-master.yml",
                         new ClassLoaderResourceAccessor(),
                         jdbcConnection);
                 liquibase.update();
-            } catch (SQLException | LiquibaseException e) {
+            } catch (LiquibaseException e) {
                 e.printStackTrace();
                 System.setErr(originalErr);
             }
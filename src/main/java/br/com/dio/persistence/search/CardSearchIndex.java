@@ -0,0 +1,474 @@
+package br.com.dio.persistence.search;
+
+import br.com.dio.dto.CardCursorDTO;
+import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.entity.CardEntity;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
+import static br.com.dio.persistence.transaction.TransactionManager.streamWithConnection;
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+
+/**
+ * Índice invertido em memória sobre título e descrição dos cards, com ranking BM25. O título pesa
+ * {@value #TITLE_WEIGHT} vezes mais que a descrição.
+ * <p>
+ * Cada card ocupa um documento interno; alterar ou excluir um card apenas marca o documento antigo
+ * como morto, e quando os mortos passam de um quarto dos vivos o índice é compactado (postings
+ * filtradas e documentos renumerados). Até lá o df usado no BM25 ainda conta os documentos mortos.
+ * <p>
+ * É carregado por {@link #rebuild(DataSource)} na inicialização e mantido pelos serviços; dentro de
+ * uma transação as alterações só são aplicadas depois do commit.
+ */
+public final class CardSearchIndex {
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int CATCH_UP_BATCH_SIZE = 1_000;
+    private static final int MIN_DEAD_TO_COMPACT = 1_024;
+
+    private static volatile CardSearchIndex shared;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByCardId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private long[] cardIds = new long[1_024];
+    private long[] boardIds = new long[1_024];
+    private int[] lengths = new int[1_024];
+    private int docCount;
+    private int liveCount;
+    private int deadCount;
+    private long totalLength;
+
+    public static CardSearchIndex shared() {
+        if (shared == null) {
+            synchronized (CardSearchIndex.class) {
+                if (shared == null) {
+                    shared = new CardSearchIndex();
+                }
+            }
+        }
+        return shared;
+    }
+
+    public record Hit(Long cardId, double score) {
+    }
+
+    public record Result(List<Hit> hits, int totalHits) {
+    }
+
+    /**
+     * Cards que contêm ao menos um termo da consulta, do mais relevante para o menos relevante
+     * (empates pelo menor ID), pulando {@code offset} resultados. {@code boardId} nulo busca em
+     * todos os boards.
+     */
+    public Result search(final String query, final Long boardId, final int offset, final int limit) {
+        var terms = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+        if (terms.isEmpty() || limit < 1) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return new Result(List.of(), 0);
+            }
+            var averageLength = (double) totalLength / liveCount;
+            var termPostings = new ArrayList<Postings>(terms.size());
+            var candidates = 0L;
+            for (var term : terms) {
+                var found = postings.get(term);
+                if (found != null) {
+                    termPostings.add(found);
+                    candidates += found.size;
+                }
+            }
+            var scorer = new Scorer((int) Math.min(candidates, docCount));
+            for (var found : termPostings) {
+                score(found, boardId, averageLength, scorer);
+            }
+            return new Result(top(scorer, offset, limit), scorer.touchedCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void indexed(final Long cardId, final Long boardId, final String title, final String description) {
+        afterCommit(() -> put(cardId, boardId, title, description));
+    }
+
+    public void updated(final Long cardId, final String title, final String description) {
+        afterCommit(() -> {
+            var doc = docByCardId.get(cardId);
+            if (doc != null) {
+                put(cardId, boardIds[doc], title, description);
+            }
+        });
+    }
+
+    public void removed(final Long cardId) {
+        afterCommit(() -> {
+            var doc = docByCardId.get(cardId);
+            if (doc != null) {
+                removeDoc(doc);
+            }
+        });
+    }
+
+    /**
+     * Remove os cards do board excluído (a exclusão apaga os cards em cascata).
+     */
+    public void boardDeleted(final Long boardId) {
+        afterCommit(() -> {
+            for (var doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                if (boardIds[doc] == boardId) {
+                    removeDoc(doc);
+                }
+            }
+        });
+    }
+
+    /**
+     * Descarta o índice e o reconstrói lendo em streaming todos os cards de cada shard.
+     */
+    public void rebuild(final DataSource dataSource) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docByCardId.clear();
+            live.clear();
+            docCount = 0;
+            liveCount = 0;
+            deadCount = 0;
+            totalLength = 0;
+            for (var shard : shardsOf(dataSource)) {
+                try (var cards = streamWithConnection(shard, connection -> new CardDAO(connection).streamAll())) {
+                    cards.forEach(this::put);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa os cards do banco da conexão com ID maior que {@code afterId}, como os gravados pela
+     * importação em lote; retorna quantos foram indexados.
+     */
+    public int catchUp(final Connection connection, final long afterId) throws SQLException {
+        var cardDAO = new CardDAO(connection);
+        var indexed = 0;
+        var after = afterId;
+        while (true) {
+            var cards = cardDAO.findPage(new CardCursorDTO(null, null, after), CATCH_UP_BATCH_SIZE);
+            lock.writeLock().lock();
+            try {
+                for (var card : cards) {
+                    if (!docByCardId.containsKey(card.getId())) {
+                        put(card);
+                        indexed++;
+                    }
+                }
+                maybeCompact();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (cards.size() < CATCH_UP_BATCH_SIZE) {
+                return indexed;
+            }
+            after = cards.get(cards.size() - 1).getId();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void score(final Postings termPostings, final Long boardId, final double averageLength, final Scorer scorer) {
+        var df = Math.min(termPostings.size, liveCount);
+        var idf = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        for (int i = 0; i < termPostings.size; i++) {
+            var doc = termPostings.docs[i];
+            if (!live.get(doc) || (boardId != null && boardIds[doc] != boardId)) {
+                continue;
+            }
+            var tf = termPostings.frequencies[i];
+            scorer.add(doc, idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength)));
+        }
+    }
+
+    private List<Hit> top(final Scorer scorer, final int offset, final int limit) {
+        var wanted = (int) Math.min((long) offset + limit, scorer.touchedCount);
+        if (wanted <= offset) {
+            return List.of();
+        }
+        // Heap binário de posições do acumulador com o pior resultado na raiz; só entra quem supera a raiz
+        var heap = new int[wanted];
+        var size = 0;
+        for (int slot = 0; slot < scorer.touchedCount; slot++) {
+            if (size < wanted) {
+                heap[size] = slot;
+                siftUp(heap, size++, scorer);
+            } else if (isWorse(heap[0], slot, scorer)) {
+                heap[0] = slot;
+                siftDown(heap, size, scorer);
+            }
+        }
+        var ranked = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, scorer);
+        }
+        var hits = new ArrayList<Hit>(ranked.length - offset);
+        for (int i = offset; i < ranked.length; i++) {
+            hits.add(new Hit(cardIds[scorer.touched[ranked[i]]], scorer.scores[ranked[i]]));
+        }
+        return hits;
+    }
+
+    // Pior = menor score; no empate, o maior ID
+    private boolean isWorse(final int slot, final int other, final Scorer scorer) {
+        if (scorer.scores[slot] != scorer.scores[other]) {
+            return scorer.scores[slot] < scorer.scores[other];
+        }
+        return cardIds[scorer.touched[slot]] > cardIds[scorer.touched[other]];
+    }
+
+    private void siftUp(final int[] heap, int index, final Scorer scorer) {
+        var doc = heap[index];
+        while (index > 0) {
+            var parent = (index - 1) >>> 1;
+            if (!isWorse(doc, heap[parent], scorer)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private void siftDown(final int[] heap, final int size, final Scorer scorer) {
+        if (size == 0) {
+            return;
+        }
+        var doc = heap[0];
+        var index = 0;
+        while (true) {
+            var child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isWorse(heap[child + 1], heap[child], scorer)) {
+                child++;
+            }
+            if (!isWorse(heap[child], doc, scorer)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+
+    private void put(final CardEntity card) {
+        put(card.getId(), card.getBoardColumn().getBoard().getId(), card.getTitle(), card.getDescription());
+    }
+
+    private void put(final long cardId, final long boardId, final String title, final String description) {
+        var previous = docByCardId.get(cardId);
+        if (previous != null) {
+            removeDoc(previous);
+        }
+
+        var titleTerms = SearchTokenizer.tokenize(title);
+        var descriptionTerms = SearchTokenizer.tokenize(description);
+        var frequencies = new HashMap<String, Integer>();
+        titleTerms.forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        descriptionTerms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+        if (docCount == cardIds.length) {
+            var capacity = docCount * 2;
+            cardIds = Arrays.copyOf(cardIds, capacity);
+            boardIds = Arrays.copyOf(boardIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        var doc = docCount++;
+        var length = titleTerms.size() * TITLE_WEIGHT + descriptionTerms.size();
+        cardIds[doc] = cardId;
+        boardIds[doc] = boardId;
+        lengths[doc] = length;
+        live.set(doc);
+        liveCount++;
+        totalLength += length;
+        docByCardId.put(cardId, doc);
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, ignored -> new Postings()).add(doc, frequency));
+    }
+
+    private void removeDoc(final int doc) {
+        live.clear(doc);
+        liveCount--;
+        deadCount++;
+        totalLength -= lengths[doc];
+        docByCardId.remove(cardIds[doc]);
+    }
+
+    private void maybeCompact() {
+        if (deadCount < MIN_DEAD_TO_COMPACT || deadCount < liveCount / 4) {
+            return;
+        }
+        var renumbered = new int[docCount];
+        var next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (live.get(doc)) {
+                renumbered[doc] = next;
+                cardIds[next] = cardIds[doc];
+                boardIds[next] = boardIds[doc];
+                lengths[next] = lengths[doc];
+                docByCardId.put(cardIds[next], next);
+                next++;
+            } else {
+                renumbered[doc] = -1;
+            }
+        }
+        postings.values().removeIf(termPostings -> termPostings.renumber(renumbered) == 0);
+        live.clear();
+        live.set(0, next);
+        docCount = next;
+        deadCount = 0;
+    }
+
+    private void afterCommit(final Runnable change) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                maybeCompact();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        runAfterCommit(apply);
+    }
+
+    /**
+     * Documentos (em ordem crescente) e frequências de um termo.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(final int doc, final int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int renumber(final int[] renumbered) {
+            var kept = 0;
+            for (int i = 0; i < size; i++) {
+                var doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+
+    }
+
+    /**
+     * Acumulador de scores de uma busca, dimensionado pelos documentos que ela toca: uma tabela de
+     * endereçamento aberto leva o documento à sua posição em {@code touched} e {@code scores}.
+     */
+    private static final class Scorer {
+
+        private static final int MIN_CAPACITY = 16;
+        private static final int MAX_INITIAL_CAPACITY = 4_096;
+
+        // posição + 1 do documento em touched/scores; 0 é entrada livre
+        private int[] table;
+        private int[] touched;
+        private double[] scores;
+        private int touchedCount;
+
+        /**
+         * {@code expectedDocs} é um limite superior (a soma das postings) e só orienta a capacidade inicial.
+         */
+        Scorer(final int expectedDocs) {
+            var capacity = Math.min(Math.max(expectedDocs, MIN_CAPACITY), MAX_INITIAL_CAPACITY);
+            table = new int[Integer.highestOneBit(capacity - 1) << 2];
+            touched = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        void add(final int doc, final double score) {
+            var mask = table.length - 1;
+            var index = mix(doc) & mask;
+            while (table[index] != 0) {
+                var slot = table[index] - 1;
+                if (touched[slot] == doc) {
+                    scores[slot] += score;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+                scores = Arrays.copyOf(scores, touchedCount * 2);
+            }
+            touched[touchedCount] = doc;
+            scores[touchedCount] = score;
+            table[index] = ++touchedCount;
+            if (touchedCount * 2 > table.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            var mask = table.length - 1;
+            for (int slot = 0; slot < touchedCount; slot++) {
+                var index = mix(touched[slot]) & mask;
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = slot + 1;
+            }
+        }
+
+        private static int mix(final int doc) {
+            var h = doc * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package br.com.dio.persistence.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Quebra o texto em termos: remove acentos (decomposição NFD sem as marcas combinantes), converte
+ * para minúsculas e separa em sequências de letras e dígitos. Termos de uma letra e stopwords do
+ * português são descartados, de modo que "Configuração" e "configuracao" viram o mesmo termo.
+ */
+final class SearchTokenizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Já sem acentos, como saem da normalização
+    private static final Set<String> STOPWORDS = Set.of(
+            "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos", "em", "na", "no",
+            "nas", "nos", "ao", "aos", "para", "pra", "por", "pela", "pelo", "com", "sem", "que", "se",
+            "ou", "mas", "como", "ja", "nao", "sim", "eh", "foi", "ser", "sua", "seu", "esta", "este"
+    );
+
+    private SearchTokenizer() {
+    }
+
+    static List<String> tokenize(final String text) {
+        var terms = new ArrayList<String>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        var folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        var term = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            var c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else {
+                addTerm(terms, term);
+            }
+        }
+        addTerm(terms, term);
+        return terms;
+    }
+
+    private static void addTerm(final List<String> terms, final StringBuilder term) {
+        if (term.length() > 1) {
+            var value = term.toString();
+            if (!STOPWORDS.contains(value)) {
+                terms.add(value);
+            }
+        }
+        term.setLength(0);
+    }
+
+}
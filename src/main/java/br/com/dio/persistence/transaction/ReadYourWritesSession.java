@@ -0,0 +1,61 @@
+package br.com.dio.persistence.transaction;
+
+import java.time.Duration;
+
+/**
+ * Marca quando a sessão confirmou sua última escrita, para que as leituras logo em seguida sejam
+ * feitas no primário em vez de em uma réplica ainda atrasada. {@link TransactionManager#inTransaction}
+ * registra a escrita após cada commit.
+ * <p>
+ * Sem sessão associada à thread vale a sessão padrão do processo, que atende o menu de linha de
+ * comando (um único usuário). Servidores associam uma sessão por usuário com {@link #bind()}.
+ */
+public final class ReadYourWritesSession {
+
+    private static final ReadYourWritesSession DEFAULT = new ReadYourWritesSession();
+    private static final ThreadLocal<ReadYourWritesSession> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean written;
+    private volatile long lastWriteAtNanos;
+
+    public static ReadYourWritesSession current() {
+        var session = CURRENT.get();
+        return session != null ? session : DEFAULT;
+    }
+
+    /**
+     * Associa a sessão à thread até o {@link Binding} ser fechado.
+     */
+    public Binding bind() {
+        var previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public void recordWrite() {
+        lastWriteAtNanos = System.nanoTime();
+        written = true;
+    }
+
+    /**
+     * Verdadeiro enquanto a última escrita tiver acontecido há menos de {@code window}.
+     */
+    public boolean isPinned(final Duration window) {
+        return written && System.nanoTime() - lastWriteAtNanos < window.toNanos();
+    }
+
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
@@ -0,0 +1,11 @@
+package br.com.dio.persistence.transaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    T doInConnection(Connection connection) throws SQLException;
+
+}
@@ -0,0 +1,125 @@
+package br.com.dio.persistence.transaction;
+
+import lombok.NoArgsConstructor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardsOf;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Empresta uma conexão do pool apenas durante uma operação e a devolve em seguida.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class TransactionManager {
+
+    /**
+     * Executa o callback em uma transação: confirma se terminar normalmente e desfaz se lançar exceção.
+     * As ações registradas em {@link TransactionScope#afterCommit(Runnable)} rodam após o commit.
+     */
+    public static <T> T inTransaction(final DataSource dataSource, final TransactionCallback<T> callback) throws SQLException {
+        var scope = TransactionScope.begin();
+        var committed = false;
+        try (var connection = dataSource.getConnection()) {
+            try {
+                var result = callback.doInConnection(connection);
+                connection.commit();
+                committed = true;
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                // A falha do rollback não pode esconder a causa original
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            }
+        } finally {
+            // Mesmo que a devolução da conexão falhe, o que já foi confirmado precisa ser publicado
+            if (committed) {
+                ReadYourWritesSession.current().recordWrite();
+                scope.committed();
+            } else {
+                scope.end();
+            }
+        }
+    }
+
+    /**
+     * Executa uma leitura; o pool desfaz a transação implícita ao receber a conexão de volta.
+     */
+    public static <T> T withConnection(final DataSource dataSource, final TransactionCallback<T> callback) throws SQLException {
+        var scope = TransactionScope.begin();
+        try (var connection = dataSource.getConnection()) {
+            return callback.doInConnection(connection);
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Empresta uma conexão para um stream de leitura e só a devolve ao pool quando o stream for
+     * fechado. Se o callback falhar, a conexão é devolvida imediatamente.
+     */
+    public static <T> Stream<T> streamWithConnection(final DataSource dataSource,
+                                                     final TransactionCallback<Stream<T>> callback) throws SQLException {
+        var connection = dataSource.getConnection();
+        try {
+            return callback.doInConnection(connection).onClose(() -> {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    throw new RuntimeException("Erro ao devolver a conexão ao pool.", e);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executa a leitura em uma conexão de cada shard, um após o outro, e intercala os resultados
+     * em {@code order}, que deve ser a mesma ordenação das consultas de cada shard.
+     */
+    public static <T> List<T> withEachShard(final DataSource dataSource, final TransactionCallback<List<T>> callback,
+                                            final Comparator<? super T> order) throws SQLException {
+        var shards = shardsOf(dataSource);
+        if (shards.size() == 1) {
+            return withConnection(shards.get(0), callback);
+        }
+        var merged = new ArrayList<T>();
+        for (var shard : shards) {
+            merged.addAll(withConnection(shard, callback));
+        }
+        // Cada shard devolve uma sequência já ordenada; a ordenação só intercala as sequências
+        merged.sort(order);
+        return merged;
+    }
+
+    /**
+     * Como {@link #streamWithConnection}, mas percorrendo os shards em sequência, com uma conexão
+     * emprestada por vez; a ordem só vale dentro de cada shard.
+     */
+    public static <T> Stream<T> streamWithEachShard(final DataSource dataSource,
+                                                    final TransactionCallback<Stream<T>> callback) throws SQLException {
+        var shards = shardsOf(dataSource);
+        if (shards.size() == 1) {
+            return streamWithConnection(shards.get(0), callback);
+        }
+        return shards.stream().flatMap(shard -> {
+            try {
+                return streamWithConnection(shard, callback);
+            } catch (SQLException e) {
+                throw new RuntimeException("Erro ao abrir a leitura do shard.", e);
+            }
+        });
+    }
+
+}
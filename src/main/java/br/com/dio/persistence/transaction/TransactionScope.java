@@ -0,0 +1,87 @@
+package br.com.dio.persistence.transaction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Estado associado à thread enquanto uma operação do {@link TransactionManager} está em curso.
+ * Permite que componentes guardem recursos próprios da transação e registrem ações que só devem
+ * rodar depois do commit; em rollback (ou em leituras, que o pool desfaz) essas ações são descartadas.
+ * Uma ação que falha é registrada em log e não impede as seguintes: a escrita já foi confirmada.
+ */
+public final class TransactionScope {
+
+    private static final System.Logger LOGGER = System.getLogger(TransactionScope.class.getName());
+    private static final ThreadLocal<TransactionScope> CURRENT = new ThreadLocal<>();
+
+    private final TransactionScope previous;
+    private final long startedAtNanos = System.nanoTime();
+    private final Map<Object, Object> resources = new IdentityHashMap<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    private TransactionScope(final TransactionScope previous) {
+        this.previous = previous;
+    }
+
+    public static Optional<TransactionScope> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    static TransactionScope begin() {
+        var scope = new TransactionScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Instante ({@link System#nanoTime()}) em que o escopo foi aberto, antes de a conexão ser emprestada.
+     */
+    public long startedAtNanos() {
+        return startedAtNanos;
+    }
+
+    /**
+     * Recurso do escopo associado à chave (comparada por identidade), criado no primeiro acesso.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T resource(final Object key, final Supplier<T> factory) {
+        return (T) resources.computeIfAbsent(key, ignored -> factory.get());
+    }
+
+    public void afterCommit(final Runnable action) {
+        afterCommit.add(action);
+    }
+
+    /**
+     * Roda a ação depois do commit da transação atual ou, fora de uma, imediatamente.
+     */
+    public static void runAfterCommit(final Runnable action) {
+        current().ifPresentOrElse(scope -> scope.afterCommit(action), action);
+    }
+
+    void committed() {
+        end();
+        for (var action : afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(WARNING, "Falha em uma ação posterior ao commit.", e);
+            }
+        }
+    }
+
+    void end() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+}
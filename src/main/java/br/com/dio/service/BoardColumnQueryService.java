@@ -2,34 +2,50 @@ package br.com.dio.service;
 
 import br.com.dio.dto.BoardColumnInfoDTO;
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.persistence.cache.BoardStructureCache;
 import br.com.dio.persistence.dao.BoardColumnDAO;
 import br.com.dio.persistence.entity.BoardColumnEntity;
 import lombok.AllArgsConstructor;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.transaction.TransactionManager.streamWithEachShard;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionManager.withEachShard;
 
 @AllArgsConstructor
 public class BoardColumnQueryService {
 
-    private final Connection connection;
+    private static final Comparator<BoardColumnEntity> BY_BOARD_AND_ORDER =
+            Comparator.comparing((BoardColumnEntity column) -> column.getBoard().getName(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparingInt(BoardColumnEntity::getOrder);
+
+    private final DataSource dataSource;
+    private final BoardStructureCache boardStructureCache;
+
+    public BoardColumnQueryService(DataSource dataSource) {
+        this(dataSource, BoardStructureCache.shared());
+    }
 
     public List<BoardColumnEntity> findColumnsByBoardId(Long boardId) throws SQLException {
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        return boardColumnDAO.findByBoardId(boardId);
+        return withConnection(shardFor(dataSource, boardId), connection -> boardStructureCache.getLayout(connection, boardId)
+                .map(layout -> layout.columns().stream().map(column -> column.toEntity(boardId)).toList())
+                .orElseGet(List::of));
     }
 
     public BoardColumnEntity findColumnById(Long columnId) throws SQLException {
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        return boardColumnDAO.findById(columnId)
-                .orElseThrow(() -> new EntityNotFoundException("BoardColumn", columnId));
+        return withConnection(shardFor(dataSource, columnId), connection -> new BoardColumnDAO(connection).findById(columnId)
+                .orElseThrow(() -> new EntityNotFoundException("BoardColumn", columnId)));
     }
 
     public List<BoardColumnInfoDTO> getColumnsInfo(Long boardId) throws SQLException {
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        var columns = boardColumnDAO.findByBoardId(boardId);
-        
+        var columns = findColumnsByBoardId(boardId);
+
         return columns.stream()
                 .map(column -> new BoardColumnInfoDTO(
                         column.getId(),
@@ -39,9 +55,19 @@ public class BoardColumnQueryService {
                 .toList();
     }
 
+    /**
+     * Colunas de todos os shards, por nome do board e ordem da coluna.
+     */
     public List<BoardColumnEntity> findAllColumns() throws SQLException {
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        return boardColumnDAO.findAll();
+        return withEachShard(dataSource, connection -> new BoardColumnDAO(connection).findAll(), BY_BOARD_AND_ORDER);
+    }
+
+    /**
+     * Todas as colunas em streaming, shard a shard; use em try-with-resources para devolver a
+     * conexão ao pool.
+     */
+    public Stream<BoardColumnEntity> streamAllColumns() throws SQLException {
+        return streamWithEachShard(dataSource, connection -> new BoardColumnDAO(connection).streamAll());
     }
 
 }
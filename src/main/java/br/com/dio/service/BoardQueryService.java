@@ -2,57 +2,113 @@ package br.com.dio.service;
 
 import br.com.dio.dto.BoardDetailsDTO;
 import br.com.dio.dto.BoardColumnDTO;
+import br.com.dio.dto.BoardFlowMetricsDTO;
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.persistence.cache.BoardLayout;
+import br.com.dio.persistence.cache.BoardStructureCache;
+import br.com.dio.persistence.cache.ColumnCardCounters;
+import br.com.dio.persistence.dao.BoardAggregateDAO;
 import br.com.dio.persistence.dao.BoardDAO;
-import br.com.dio.persistence.dao.BoardColumnDAO;
-import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.entity.BoardAggregate;
 import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.history.CardFlowAnalytics;
 import lombok.AllArgsConstructor;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionManager.withEachShard;
+
 @AllArgsConstructor
 public class BoardQueryService {
 
-    private final Connection connection;
+    private static final Comparator<BoardEntity> BY_NAME = Comparator.comparing(BoardEntity::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final DataSource dataSource;
+    private final BoardStructureCache boardStructureCache;
+    private final ColumnCardCounters columnCardCounters;
+    private final CardFlowAnalytics cardFlowAnalytics;
+
+    public BoardQueryService(DataSource dataSource) {
+        this(dataSource, BoardStructureCache.shared(), ColumnCardCounters.shared(), CardFlowAnalytics.shared());
+    }
 
+    /**
+     * Boards de todos os shards, por nome.
+     */
     public List<BoardEntity> findAllBoards() throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        return boardDAO.findAll();
+        return withEachShard(dataSource, connection -> new BoardDAO(connection).findAll(), BY_NAME);
     }
 
     public BoardEntity findBoardById(Long id) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        return boardDAO.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Board", id));
+        return withConnection(shardFor(dataSource, id), connection -> new BoardDAO(connection).findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Board", id)));
+    }
+
+    /**
+     * Lead time, cycle time e vazão do board entre {@code from} e {@code to} (dias UTC), servidos
+     * pelos agregados em memória; só a existência do board é consultada no banco.
+     */
+    public BoardFlowMetricsDTO getFlowMetrics(Long boardId, LocalDate from, LocalDate to) throws SQLException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("O início do período deve ser anterior ao fim.");
+        }
+        findBoardById(boardId);
+        return cardFlowAnalytics.metrics(boardId, from, to);
     }
 
+    /**
+     * Com os {@link ColumnCardCounters} carregados, as colunas vêm do {@link BoardStructureCache} e
+     * as contagens da memória, e só o board é lido do banco; antes disso elas vêm do agregado.
+     */
     public BoardDetailsDTO getBoardDetails(Long boardId) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        var cardDAO = new CardDAO(connection);
-
-        var board = boardDAO.findById(boardId)
-                .orElseThrow(() -> new EntityNotFoundException("Board", boardId));
-
-        var columns = boardColumnDAO.findByBoardId(boardId);
-        
-        var columnDTOs = columns.stream()
-                .map(column -> {
-                    try {
-                        int cardsAmount = cardDAO.countByBoardColumnId(column.getId());
-                        return new BoardColumnDTO(
-                                column.getId(),
-                                column.getName(),
-                                column.getKind(),
-                                cardsAmount
-                        );
-                    } catch (SQLException e) {
-                        throw new RuntimeException("Erro ao contar cards da coluna: " + column.getId(), e);
-                    }
-                })
+        if (!columnCardCounters.isLoaded()) {
+            return toDetails(getBoardAggregate(boardId, false));
+        }
+        return withConnection(shardFor(dataSource, boardId), connection -> {
+            var board = new BoardDAO(connection).findById(boardId)
+                    .orElseThrow(() -> new EntityNotFoundException("Board", boardId));
+            var columnDTOs = boardStructureCache.getLayout(connection, boardId)
+                    .map(BoardLayout::columns)
+                    .orElse(List.of())
+                    .stream()
+                    .map(column -> new BoardColumnDTO(
+                            column.id(),
+                            column.name(),
+                            column.kind(),
+                            columnCardCounters.cardsAmount(column.id()),
+                            columnCardCounters.blockedAmount(column.id())
+                    ))
+                    .toList();
+            return new BoardDetailsDTO(board.getId(), board.getName(), columnDTOs);
+        });
+    }
+
+    /**
+     * Board com colunas e contagem de cards em uma consulta; com {@code withCards}, uma segunda
+     * consulta preenche os cards de cada coluna.
+     */
+    public BoardAggregate getBoardAggregate(Long boardId, boolean withCards) throws SQLException {
+        return withConnection(shardFor(dataSource, boardId), connection -> new BoardAggregateDAO(connection).findById(boardId, withCards)
+                .orElseThrow(() -> new EntityNotFoundException("Board", boardId)));
+    }
+
+    private static BoardDetailsDTO toDetails(BoardAggregate aggregate) {
+        var board = aggregate.board();
+
+        var columnDTOs = board.getBoardColumns().stream()
+                .map(column -> new BoardColumnDTO(
+                        column.getId(),
+                        column.getName(),
+                        column.getKind(),
+                        aggregate.cardsAmount(column.getId()),
+                        aggregate.blockedAmount(column.getId())
+                ))
                 .toList();
 
         return new BoardDetailsDTO(board.getId(), board.getName(), columnDTOs);
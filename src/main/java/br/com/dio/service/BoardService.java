@@ -1,34 +1,71 @@
 package br.com.dio.service;
 
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.persistence.cache.BlockedCardIndex;
+import br.com.dio.persistence.cache.BoardStructureCache;
+import br.com.dio.persistence.cache.CardCache;
+import br.com.dio.persistence.cache.ColumnCardCounters;
 import br.com.dio.persistence.dao.BoardDAO;
 import br.com.dio.persistence.dao.BoardColumnDAO;
+import br.com.dio.persistence.dao.CardMovementDAO;
 import br.com.dio.persistence.entity.BoardEntity;
 import br.com.dio.persistence.entity.BoardColumnEntity;
 import br.com.dio.persistence.entity.BoardColumnKindEnum;
+import br.com.dio.persistence.history.CardFlowAnalytics;
+import br.com.dio.persistence.history.CardMovementAppender;
+import br.com.dio.persistence.search.CardSearchIndex;
+import br.com.dio.service.feed.BoardChangeFeed;
 import lombok.AllArgsConstructor;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
 
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.config.ShardedDataSource.shardForNewBoard;
+import static br.com.dio.persistence.transaction.TransactionManager.inTransaction;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.service.feed.BoardEventType.*;
+
+/**
+ * Cria e altera boards. Com shards, o board novo vai para o próximo shard do rodízio e leva
+ * consigo as colunas e os cards; as demais operações seguem o shard indicado pelo ID.
+ */
 @AllArgsConstructor
 public class BoardService {
 
-    private final Connection connection;
+    private final DataSource dataSource;
+    private final BoardStructureCache boardStructureCache;
+    private final CardCache cardCache;
+    private final BlockedCardIndex blockedCardIndex;
+    private final ColumnCardCounters columnCardCounters;
+    private final CardSearchIndex cardSearchIndex;
+    private final BoardChangeFeed boardChangeFeed;
+    private final CardFlowAnalytics cardFlowAnalytics;
+    private final CardMovementAppender cardMovementAppender;
+
+    public BoardService(DataSource dataSource) {
+        this(dataSource, BoardStructureCache.shared(), CardCache.shared(), BlockedCardIndex.shared(),
+                ColumnCardCounters.shared(), CardSearchIndex.shared(), BoardChangeFeed.shared(), CardFlowAnalytics.shared(),
+                CardMovementAppender.shared());
+    }
 
     public BoardEntity createBoard(String name) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-
-        // Criar o board
-        var board = new BoardEntity();
-        board.setName(name);
-        board = boardDAO.save(board);
-
-        // Criar as colunas padrão
-        createDefaultColumns(board, boardColumnDAO);
-
-        return board;
+        var created = inTransaction(shardForNewBoard(dataSource), connection -> {
+            var boardDAO = new BoardDAO(connection);
+            var boardColumnDAO = new BoardColumnDAO(connection);
+
+            // Criar o board
+            var board = new BoardEntity();
+            board.setName(name);
+            board = boardDAO.save(board);
+
+            // Criar as colunas padrão
+            createDefaultColumns(board, boardColumnDAO);
+
+            return board;
+        });
+        boardStructureCache.invalidate(created.getId());
+        return created;
     }
 
     private void createDefaultColumns(BoardEntity board, BoardColumnDAO boardColumnDAO) throws SQLException {
@@ -38,7 +75,7 @@ public class BoardService {
         initialColumn.setOrder(1);
         initialColumn.setKind(BoardColumnKindEnum.INITIAL);
         initialColumn.setBoard(board);
-        boardColumnDAO.save(initialColumn);
+        board.addColumn(initialColumn);
 
         // Coluna em progresso
         var progressColumn = new BoardColumnEntity();
@@ -46,7 +83,7 @@ public class BoardService {
         progressColumn.setOrder(2);
         progressColumn.setKind(BoardColumnKindEnum.PENDING);
         progressColumn.setBoard(board);
-        boardColumnDAO.save(progressColumn);
+        board.addColumn(progressColumn);
 
         // Coluna finalizada
         var finalColumn = new BoardColumnEntity();
@@ -54,7 +91,7 @@ public class BoardService {
         finalColumn.setOrder(3);
         finalColumn.setKind(BoardColumnKindEnum.FINAL);
         finalColumn.setBoard(board);
-        boardColumnDAO.save(finalColumn);
+        board.addColumn(finalColumn);
 
         // Coluna cancelada
         var cancelColumn = new BoardColumnEntity();
@@ -62,72 +99,123 @@ public class BoardService {
         cancelColumn.setOrder(4);
         cancelColumn.setKind(BoardColumnKindEnum.CANCEL);
         cancelColumn.setBoard(board);
-        boardColumnDAO.save(cancelColumn);
+        board.addColumn(cancelColumn);
+
+        // Inserir todas as colunas em um único round trip
+        boardColumnDAO.saveAll(board.getBoardColumns());
     }
 
     public BoardEntity updateBoard(Long id, String name) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        
-        var board = boardDAO.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Board", id));
-        
-        board.setName(name);
-        return boardDAO.save(board);
+        var updated = inTransaction(shardFor(dataSource, id), connection -> {
+            var boardDAO = new BoardDAO(connection);
+
+            var board = boardDAO.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Board", id));
+
+            board.setName(name);
+            var saved = boardDAO.save(board);
+            boardChangeFeed.publish(id, BOARD_UPDATED, null, null);
+            return saved;
+        });
+        // Os cards em cache copiam o nome do board
+        cardCache.invalidateAll();
+        return updated;
     }
 
     public void deleteBoard(Long id) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        
-        if (!boardDAO.existsById(id)) {
-            throw new EntityNotFoundException("Board", id);
-        }
-        
-        boardDAO.deleteById(id);
+        inTransaction(shardFor(dataSource, id), connection -> {
+            var boardDAO = new BoardDAO(connection);
+
+            if (!boardDAO.existsById(id)) {
+                throw new EntityNotFoundException("Board", id);
+            }
+
+            boardDAO.deleteById(id);
+            // O histórico não tem chave estrangeira para sobreviver à exclusão de cards; o do board sai junto
+            new CardMovementDAO(connection).deleteByBoardId(id);
+            cardMovementAppender.boardDeleted(id);
+            cardFlowAnalytics.boardDeleted(id);
+            boardChangeFeed.publish(id, BOARD_DELETED, null, null);
+            return null;
+        });
+        boardStructureCache.invalidate(id);
+        cardCache.invalidateAll();
+        blockedCardIndex.boardDeleted(id);
+        columnCardCounters.boardDeleted(id);
+        cardSearchIndex.boardDeleted(id);
+    }
+
+    /**
+     * Renomeia a coluna se ela ainda estiver na versão informada; caso contrário lança
+     * {@link br.com.dio.exception.OptimisticLockException}.
+     */
+    public BoardColumnEntity renameColumn(Long columnId, long expectedVersion, String name) throws SQLException {
+        var column = inTransaction(shardFor(dataSource, columnId), connection -> {
+            var boardColumnDAO = new BoardColumnDAO(connection);
+
+            var boardColumn = boardColumnDAO.findById(columnId)
+                    .orElseThrow(() -> new EntityNotFoundException("BoardColumn", columnId));
+
+            boardColumn.setVersion(expectedVersion);
+            boardColumn.setName(name);
+            var saved = boardColumnDAO.save(boardColumn);
+            boardChangeFeed.publish(saved.getBoard().getId(), COLUMN_RENAMED, null, columnId);
+            return saved;
+        });
+        boardStructureCache.invalidate(column.getBoard().getId());
+        cardCache.invalidateAll();
+        return column;
     }
 
     public BoardEntity findById(Long id) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        return boardDAO.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Board", id));
+        return withConnection(shardFor(dataSource, id), connection -> new BoardDAO(connection).findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Board", id)));
     }
 
     public BoardEntity createBoardWithCustomColumns(String boardName, String[] columnNames) throws SQLException {
-        var boardDAO = new BoardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-
-        // Criar o board
-        var board = new BoardEntity();
-        board.setName(boardName);
-        board = boardDAO.save(board);
-
-        // Criar colunas customizadas
-        for (int i = 0; i < columnNames.length; i++) {
-            var column = new BoardColumnEntity();
-            column.setName(columnNames[i]);
-            column.setOrder(i + 1);
-            
-            // Definir o tipo da coluna baseado na posição
-            if (i == 0) {
-                column.setKind(BoardColumnKindEnum.INITIAL);
-            } else if (i == columnNames.length - 1) {
-                column.setKind(BoardColumnKindEnum.FINAL);
-            } else {
-                column.setKind(BoardColumnKindEnum.PENDING);
+        var created = inTransaction(shardForNewBoard(dataSource), connection -> {
+            var boardDAO = new BoardDAO(connection);
+            var boardColumnDAO = new BoardColumnDAO(connection);
+
+            // Criar o board
+            var board = new BoardEntity();
+            board.setName(boardName);
+            board = boardDAO.save(board);
+
+            // Criar colunas customizadas
+            for (int i = 0; i < columnNames.length; i++) {
+                var column = new BoardColumnEntity();
+                column.setName(columnNames[i]);
+                column.setOrder(i + 1);
+
+                // Definir o tipo da coluna baseado na posição
+                if (i == 0) {
+                    column.setKind(BoardColumnKindEnum.INITIAL);
+                } else if (i == columnNames.length - 1) {
+                    column.setKind(BoardColumnKindEnum.FINAL);
+                } else {
+                    column.setKind(BoardColumnKindEnum.PENDING);
+                }
+
+                column.setBoard(board);
+                board.addColumn(column);
             }
-            
-            column.setBoard(board);
-            boardColumnDAO.save(column);
-        }
-
-        // Sempre criar uma coluna de cancelamento
-        var cancelColumn = new BoardColumnEntity();
-        cancelColumn.setName("Cancelado");
-        cancelColumn.setOrder(columnNames.length + 1);
-        cancelColumn.setKind(BoardColumnKindEnum.CANCEL);
-        cancelColumn.setBoard(board);
-        boardColumnDAO.save(cancelColumn);
 
-        return board;
+            // Sempre criar uma coluna de cancelamento
+            var cancelColumn = new BoardColumnEntity();
+            cancelColumn.setName("Cancelado");
+            cancelColumn.setOrder(columnNames.length + 1);
+            cancelColumn.setKind(BoardColumnKindEnum.CANCEL);
+            cancelColumn.setBoard(board);
+            board.addColumn(cancelColumn);
+
+            // Inserir todas as colunas em um único round trip
+            boardColumnDAO.saveAll(board.getBoardColumns());
+
+            return board;
+        });
+        boardStructureCache.invalidate(created.getId());
+        return created;
     }
 
 }
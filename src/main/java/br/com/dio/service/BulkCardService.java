@@ -0,0 +1,302 @@
+package br.com.dio.service;
+
+import br.com.dio.dto.BulkCardResultDTO;
+import br.com.dio.dto.CardFailureDTO;
+import br.com.dio.dto.CardStatusDTO;
+import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.persistence.cache.BlockedCardIndex;
+import br.com.dio.persistence.cache.BoardStructureCache;
+import br.com.dio.persistence.cache.ColumnCardCounters;
+import br.com.dio.persistence.dao.BlockDAO;
+import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.history.CardMovementAppender;
+import br.com.dio.service.feed.BoardChangeFeed;
+import lombok.AllArgsConstructor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.CANCEL;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.FINAL;
+import static br.com.dio.persistence.transaction.TransactionManager.inTransaction;
+import static br.com.dio.service.feed.BoardEventType.*;
+
+/**
+ * Variantes em massa das operações de {@link CardService}. As regras de bloqueio e finalização
+ * são verificadas com uma única consulta de situação para todos os cards e a alteração é
+ * aplicada com statements de conjunto ({@code UPDATE ... WHERE id IN (...)} ou INSERTs de
+ * múltiplas linhas) que repetem as regras sobre as linhas travadas. Cards que violam alguma regra,
+ * inclusive os alterados por outra operação depois da consulta, ficam de fora e aparecem em
+ * {@link BulkCardResultDTO#failures()}; os demais são alterados na mesma transação. Com shards,
+ * as variantes por lista de IDs usam uma transação por shard envolvido.
+ */
+@AllArgsConstructor
+public class BulkCardService {
+
+    private final DataSource dataSource;
+    private final BoardStructureCache boardStructureCache;
+    private final BlockedCardIndex blockedCardIndex;
+    private final ColumnCardCounters columnCardCounters;
+    private final BoardChangeFeed boardChangeFeed;
+    private final CardMovementAppender cardMovementAppender;
+
+    public BulkCardService(DataSource dataSource) {
+        this(dataSource, BoardStructureCache.shared(), BlockedCardIndex.shared(), ColumnCardCounters.shared(),
+                BoardChangeFeed.shared(), CardMovementAppender.shared());
+    }
+
+    /**
+     * Com shards, só os cards do shard da coluna de destino são encontrados.
+     */
+    public BulkCardResultDTO moveCards(Collection<Long> cardIds, Long targetColumnId) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        return inTransaction(shardFor(dataSource, targetColumnId), connection ->
+                move(connection, byIds(connection, cardIds), cardIds, targetColumnId));
+    }
+
+    public BulkCardResultDTO moveColumn(Long columnId, Long targetColumnId) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        return inTransaction(shardFor(dataSource, columnId), connection ->
+                move(connection, byColumn(connection, columnId), List.of(), targetColumnId));
+    }
+
+    public BulkCardResultDTO blockCards(Collection<Long> cardIds, String reason) throws SQLException {
+        return inEachShard(cardIds, (connection, shardCardIds) ->
+                block(connection, byIds(connection, shardCardIds), shardCardIds, reason));
+    }
+
+    public BulkCardResultDTO blockColumn(Long columnId, String reason) throws SQLException {
+        return inTransaction(shardFor(dataSource, columnId), connection ->
+                block(connection, byColumn(connection, columnId), List.of(), reason));
+    }
+
+    public BulkCardResultDTO unblockCards(Collection<Long> cardIds, String reason) throws SQLException {
+        return inEachShard(cardIds, (connection, shardCardIds) ->
+                unblock(connection, byIds(connection, shardCardIds), shardCardIds, reason));
+    }
+
+    public BulkCardResultDTO unblockColumn(Long columnId, String reason) throws SQLException {
+        return inTransaction(shardFor(dataSource, columnId), connection ->
+                unblock(connection, byColumn(connection, columnId), List.of(), reason));
+    }
+
+    public BulkCardResultDTO cancelCards(Collection<Long> cardIds) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        return inEachShard(cardIds, (connection, shardCardIds) ->
+                cancel(connection, byIds(connection, shardCardIds), shardCardIds));
+    }
+
+    public BulkCardResultDTO cancelColumn(Long columnId) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        return inTransaction(shardFor(dataSource, columnId), connection ->
+                cancel(connection, byColumn(connection, columnId), List.of()));
+    }
+
+    private BulkCardResultDTO move(Connection connection, List<CardStatusDTO> statuses,
+                                  Collection<Long> requestedIds, Long targetColumnId) throws SQLException {
+        var targetColumn = boardStructureCache.findColumn(connection, targetColumnId)
+                .orElseThrow(() -> new EntityNotFoundException("BoardColumn", targetColumnId));
+
+        var result = new Partition(statuses, requestedIds, status -> {
+            if (status.blocked()) {
+                return "O card com ID " + status.id() + " está bloqueado e não pode ser movido ou finalizado.";
+            }
+            if (isFinished(status) && !targetColumn.getKind().equals(FINAL)) {
+                return "O card com ID " + status.id() + " já foi finalizado e não pode ser modificado.";
+            }
+            return null;
+        });
+
+        if (!result.accepted.isEmpty()) {
+            var moved = result.applied(new CardDAO(connection).moveAllIfAllowed(result.acceptedIds(), targetColumnId));
+            var boardId = targetColumn.getBoard().getId();
+            moved.forEach(status -> {
+                columnCardCounters.moved(boardId, status.columnId(), targetColumnId);
+                boardChangeFeed.publish(boardId, CARD_MOVED, status.id(), targetColumnId);
+                cardMovementAppender.moved(status.id(), boardId, targetColumnId, targetColumn.getKind());
+            });
+        }
+        return result.toDTO();
+    }
+
+    private BulkCardResultDTO block(Connection connection, List<CardStatusDTO> statuses,
+                                   Collection<Long> requestedIds, String reason) throws SQLException {
+        var result = new Partition(statuses, requestedIds, status ->
+                status.blocked() ? "O card com ID " + status.id() + " já está bloqueado." : null);
+
+        if (!result.accepted.isEmpty()) {
+            var blocked = result.applied(new BlockDAO(connection).blockAll(result.acceptedIds(), reason, OffsetDateTime.now()));
+            blocked.forEach(status -> {
+                blockedCardIndex.blocked(status.id(), status.boardId());
+                columnCardCounters.blocked(status.columnId());
+                boardChangeFeed.publish(status.boardId(), CARD_BLOCKED, status.id(), status.columnId());
+            });
+        }
+        return result.toDTO();
+    }
+
+    private BulkCardResultDTO unblock(Connection connection, List<CardStatusDTO> statuses,
+                                     Collection<Long> requestedIds, String reason) throws SQLException {
+        var result = new Partition(statuses, requestedIds, status ->
+                status.blocked() ? null : "O card com ID " + status.id() + " não está bloqueado.");
+
+        if (!result.accepted.isEmpty()) {
+            var unblocked = result.applied(new BlockDAO(connection).unblockAll(result.acceptedIds(), reason, OffsetDateTime.now()));
+            unblocked.forEach(status -> {
+                blockedCardIndex.unblocked(status.id(), status.boardId());
+                columnCardCounters.unblocked(status.columnId());
+                boardChangeFeed.publish(status.boardId(), CARD_UNBLOCKED, status.id(), status.columnId());
+            });
+        }
+        return result.toDTO();
+    }
+
+    private BulkCardResultDTO cancel(Connection connection, List<CardStatusDTO> statuses,
+                                    Collection<Long> requestedIds) throws SQLException {
+        // Colunas de cancelamento dos boards envolvidos, resolvidas pelo cache de estrutura
+        var cancelColumns = new HashMap<Long, BoardColumnEntity>();
+        for (var boardId : statuses.stream().map(CardStatusDTO::boardId).collect(Collectors.toSet())) {
+            boardStructureCache.findColumn(connection, boardId, CANCEL)
+                    .ifPresent(column -> cancelColumns.put(boardId, column));
+        }
+
+        var result = new Partition(statuses, requestedIds, status -> {
+            if (status.blocked()) {
+                return "O card com ID " + status.id() + " está bloqueado e não pode ser movido ou finalizado.";
+            }
+            if (!cancelColumns.containsKey(status.boardId())) {
+                return "Coluna de cancelamento não encontrada para o board do card com ID " + status.id() + ".";
+            }
+            return null;
+        });
+
+        var cardDAO = new CardDAO(connection);
+        var cardIdsByBoard = result.accepted.stream()
+                .collect(Collectors.groupingBy(CardStatusDTO::boardId,
+                        Collectors.mapping(CardStatusDTO::id, Collectors.toList())));
+        var cancelled = new ArrayList<CardStatusDTO>();
+        for (var entry : cardIdsByBoard.entrySet()) {
+            var cancelColumnId = cancelColumns.get(entry.getKey()).getId();
+            cancelled.addAll(cardDAO.cancelAllIfUnblocked(entry.getValue(), cancelColumnId));
+        }
+        for (var status : result.applied(cancelled)) {
+            var cancelColumnId = cancelColumns.get(status.boardId()).getId();
+            columnCardCounters.moved(status.boardId(), status.columnId(), cancelColumnId);
+            boardChangeFeed.publish(status.boardId(), CARD_CANCELLED, status.id(), cancelColumnId);
+            cardMovementAppender.moved(status.id(), status.boardId(), cancelColumnId, CANCEL);
+        }
+        return result.toDTO();
+    }
+
+    /**
+     * Separa os cards por shard e aplica {@code operation} em uma transação por shard, juntando os
+     * resultados; sem shards, é uma única transação.
+     */
+    private BulkCardResultDTO inEachShard(Collection<Long> cardIds, ShardOperation operation) throws SQLException {
+        var cardIdsByShard = new LinkedHashMap<DataSource, List<Long>>();
+        for (var cardId : new LinkedHashSet<>(cardIds)) {
+            cardIdsByShard.computeIfAbsent(shardFor(dataSource, cardId), ignored -> new ArrayList<>()).add(cardId);
+        }
+        if (cardIdsByShard.isEmpty()) {
+            return new BulkCardResultDTO(List.of(), List.of());
+        }
+        if (cardIdsByShard.size() == 1) {
+            var shard = cardIdsByShard.keySet().iterator().next();
+            return inTransaction(shard, connection -> operation.apply(connection, cardIds));
+        }
+        var updatedIds = new ArrayList<Long>();
+        var failures = new ArrayList<CardFailureDTO>();
+        for (var entry : cardIdsByShard.entrySet()) {
+            var result = inTransaction(entry.getKey(), connection -> operation.apply(connection, entry.getValue()));
+            updatedIds.addAll(result.updatedIds());
+            failures.addAll(result.failures());
+        }
+        return new BulkCardResultDTO(List.copyOf(updatedIds), List.copyOf(failures));
+    }
+
+    @FunctionalInterface
+    private interface ShardOperation {
+
+        BulkCardResultDTO apply(Connection connection, Collection<Long> cardIds) throws SQLException;
+
+    }
+
+    private List<CardStatusDTO> byIds(Connection connection, Collection<Long> cardIds) throws SQLException {
+        return new CardDAO(connection).findStatusByIds(new LinkedHashSet<>(cardIds));
+    }
+
+    private List<CardStatusDTO> byColumn(Connection connection, Long columnId) throws SQLException {
+        return new CardDAO(connection).findStatusByBoardColumnId(columnId);
+    }
+
+    private static boolean isFinished(CardStatusDTO status) {
+        return status.columnKind().equals(FINAL) || status.columnKind().equals(CANCEL);
+    }
+
+    /**
+     * Separa os cards entre os que passam na regra ({@code null}) e os que falham (motivo).
+     */
+    private static final class Partition {
+
+        private final List<CardStatusDTO> accepted = new ArrayList<>();
+        private final List<CardFailureDTO> failures = new ArrayList<>();
+
+        private Partition(List<CardStatusDTO> statuses, Collection<Long> requestedIds,
+                          Function<CardStatusDTO, String> rule) {
+            var found = statuses.stream().map(CardStatusDTO::id).collect(Collectors.toSet());
+            new LinkedHashSet<>(requestedIds).stream()
+                    .filter(id -> !found.contains(id))
+                    .forEach(id -> failures.add(new CardFailureDTO(id, "Card com ID " + id + " não foi encontrado.")));
+
+            for (var status : statuses) {
+                var reason = rule.apply(status);
+                if (reason == null) {
+                    accepted.add(status);
+                } else {
+                    failures.add(new CardFailureDTO(status.id(), reason));
+                }
+            }
+        }
+
+        /**
+         * Mantém como aceitos só os cards alterados pelo statement, cuja situação travada ele
+         * devolveu e que é retornada; os demais mudaram depois da consulta de situação e passam
+         * para as falhas.
+         */
+        private List<CardStatusDTO> applied(List<CardStatusDTO> changedStatuses) {
+            var changed = changedStatuses.stream().map(CardStatusDTO::id).collect(Collectors.toSet());
+            var iterator = accepted.iterator();
+            while (iterator.hasNext()) {
+                var status = iterator.next();
+                if (!changed.contains(status.id())) {
+                    iterator.remove();
+                    failures.add(new CardFailureDTO(status.id(),
+                            "O card com ID " + status.id() + " foi alterado por outra operação e não foi modificado."));
+                }
+            }
+            return changedStatuses;
+        }
+
+        private List<Long> acceptedIds() {
+            return accepted.stream().map(CardStatusDTO::id).toList();
+        }
+
+        private BulkCardResultDTO toDTO() {
+            return new BulkCardResultDTO(acceptedIds(), List.copyOf(failures));
+        }
+
+    }
+
+}
@@ -1,82 +1,214 @@
 package br.com.dio.service;
 
+import br.com.dio.dto.CardCursorDTO;
 import br.com.dio.dto.CardDetailsDTO;
+import br.com.dio.dto.CardPageDTO;
+import br.com.dio.dto.CardSearchPageDTO;
+import br.com.dio.dto.CardSearchResultDTO;
+import br.com.dio.dto.CardStatusDTO;
 import br.com.dio.exception.EntityNotFoundException;
-import br.com.dio.persistence.dao.BlockDAO;
+import br.com.dio.persistence.cache.BlockedCardIndex;
 import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.dao.CardDetailsDAO;
+import br.com.dio.persistence.dao.CardMovementDAO;
 import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.persistence.entity.CardMovementEntity;
+import br.com.dio.persistence.search.CardSearchIndex;
 import lombok.AllArgsConstructor;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.transaction.TransactionManager.streamWithEachShard;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.persistence.transaction.TransactionManager.withEachShard;
 
 @AllArgsConstructor
 public class CardQueryService {
 
-    private final Connection connection;
+    private static final Comparator<CardEntity> BY_BOARD_COLUMN_AND_TITLE =
+            Comparator.comparing((CardEntity card) -> card.getBoardColumn().getBoard().getName(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparingInt(card -> card.getBoardColumn().getOrder())
+                    .thenComparing(CardEntity::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    private final DataSource dataSource;
+    private final BlockedCardIndex blockedCardIndex;
+    private final CardSearchIndex cardSearchIndex;
+
+    public CardQueryService(DataSource dataSource) {
+        this(dataSource, BlockedCardIndex.shared(), CardSearchIndex.shared());
+    }
 
     public List<CardEntity> findCardsByBoardId(Long boardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        return cardDAO.findByBoardId(boardId);
+        return withConnection(shardFor(dataSource, boardId), connection -> new CardDAO(connection).findByBoardId(boardId));
     }
 
     public List<CardEntity> findCardsByColumnId(Long columnId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        return cardDAO.findByBoardColumnId(columnId);
+        return withConnection(shardFor(dataSource, columnId), connection -> new CardDAO(connection).findByBoardColumnId(columnId));
+    }
+
+    public CardPageDTO findCardsPageByBoardId(Long boardId, CardCursorDTO after, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        return withConnection(shardFor(dataSource, boardId), connection ->
+                toPage(new CardDAO(connection).findPageByBoardId(boardId, after, pageSize + 1), pageSize));
+    }
+
+    public CardPageDTO findCardsPageByColumnId(Long columnId, CardCursorDTO after, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        return withConnection(shardFor(dataSource, columnId), connection ->
+                toPage(new CardDAO(connection).findPageByBoardColumnId(columnId, after, pageSize + 1), pageSize));
+    }
+
+    /**
+     * Página de cards de todos os boards por id; com shards, cada shard contribui com até uma
+     * página e a intercalação decide quais entram.
+     */
+    public CardPageDTO findCardsPage(CardCursorDTO after, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        return toPage(withEachShard(dataSource, connection -> new CardDAO(connection).findPage(after, pageSize + 1),
+                Comparator.comparing(CardEntity::getId)), pageSize);
     }
 
     public CardEntity findCardById(Long cardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        return cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
+        return withConnection(shardFor(dataSource, cardId), connection -> new CardDAO(connection).findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card", cardId)));
     }
 
     public CardDetailsDTO getCardDetails(Long cardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Verificar se o card está bloqueado
-        var activeBlock = blockDAO.findActiveBlockByCardId(cardId);
-        boolean isBlocked = activeBlock.isPresent();
-        
-        // Contar total de bloqueios
-        int blocksAmount = blockDAO.countBlocksByCardId(cardId);
-
-        return new CardDetailsDTO(
-                card.getId(),
-                card.getTitle(),
-                card.getDescription(),
-                isBlocked,
-                isBlocked ? activeBlock.get().getBlockedAt() : null,
-                isBlocked ? activeBlock.get().getBlockReason() : null,
-                blocksAmount,
-                card.getBoardColumn().getId(),
-                card.getBoardColumn().getName()
-        );
+        return withConnection(shardFor(dataSource, cardId), connection -> new CardDetailsDAO(connection).findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card", cardId)));
+    }
+
+    /**
+     * Colunas por onde o card passou, da criação à situação atual. O histórico é gravado em
+     * segundo plano, então a última movimentação pode demorar alguns instantes para aparecer.
+     */
+    public List<CardMovementEntity> findMovementsByCardId(Long cardId) throws SQLException {
+        return withConnection(shardFor(dataSource, cardId), connection -> new CardMovementDAO(connection).findByCardId(cardId));
+    }
+
+    /**
+     * Detalhes dos cards informados, com uma consulta por shard envolvido.
+     */
+    public List<CardDetailsDTO> getCardDetails(Collection<Long> cardIds) throws SQLException {
+        var cardIdsByShard = new LinkedHashMap<DataSource, List<Long>>();
+        for (var cardId : cardIds) {
+            cardIdsByShard.computeIfAbsent(shardFor(dataSource, cardId), ignored -> new ArrayList<>()).add(cardId);
+        }
+        var details = new ArrayList<CardDetailsDTO>(cardIds.size());
+        for (var entry : cardIdsByShard.entrySet()) {
+            details.addAll(withConnection(entry.getKey(), connection -> new CardDetailsDAO(connection).findByIds(entry.getValue())));
+        }
+        return details;
     }
 
     public List<CardEntity> findAllCards() throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        return cardDAO.findAll();
+        return withEachShard(dataSource, connection -> new CardDAO(connection).findAll(), BY_BOARD_COLUMN_AND_TITLE);
+    }
+
+    /**
+     * Todos os cards em streaming, shard a shard, para relatórios e exportações; use em
+     * try-with-resources para devolver a conexão ao pool.
+     */
+    public Stream<CardEntity> streamAllCards() throws SQLException {
+        return streamWithEachShard(dataSource, connection -> new CardDAO(connection).streamAll());
     }
 
     public List<CardEntity> findBlockedCards() throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-        
-        return cardDAO.findAll().stream()
-                .filter(card -> {
-                    try {
-                        return blockDAO.findActiveBlockByCardId(card.getId()).isPresent();
-                    } catch (SQLException e) {
-                        throw new RuntimeException("Erro ao verificar bloqueio do card: " + card.getId(), e);
-                    }
-                })
-                .toList();
+        if (blockedCardIndex.isLoaded() && blockedCardIndex.count() == 0) {
+            return List.of();
+        }
+        return withEachShard(dataSource, connection -> new CardDAO(connection).findBlocked(), BY_BOARD_COLUMN_AND_TITLE);
+    }
+
+    public List<CardEntity> findBlockedCardsByBoardId(Long boardId) throws SQLException {
+        if (blockedCardIndex.isLoaded() && blockedCardIndex.countByBoardId(boardId) == 0) {
+            return List.of();
+        }
+        return withConnection(shardFor(dataSource, boardId), connection -> new CardDAO(connection).findBlockedByBoardId(boardId));
+    }
+
+    /**
+     * Respondido pelo {@link BlockedCardIndex} quando carregado; caso contrário consulta o banco.
+     */
+    public boolean isCardBlocked(Long cardId) throws SQLException {
+        if (blockedCardIndex.isLoaded()) {
+            return blockedCardIndex.isBlocked(cardId);
+        }
+        return withConnection(shardFor(dataSource, cardId), connection -> new CardDAO(connection).findStatusByIds(List.of(cardId)).stream()
+                .findFirst()
+                .map(CardStatusDTO::blocked)
+                .orElseThrow(() -> new EntityNotFoundException("Card", cardId)));
+    }
+
+    public int countBlockedCardsByBoardId(Long boardId) throws SQLException {
+        if (blockedCardIndex.isLoaded()) {
+            return blockedCardIndex.countByBoardId(boardId);
+        }
+        return withConnection(shardFor(dataSource, boardId), connection -> new CardDAO(connection).findBlockedByBoardId(boardId).size());
+    }
+
+    public List<Long> findBlockedCardIdsByBoardId(Long boardId) throws SQLException {
+        if (blockedCardIndex.isLoaded()) {
+            return blockedCardIndex.findIdsByBoardId(boardId);
+        }
+        return withConnection(shardFor(dataSource, boardId), connection -> new CardDAO(connection).findBlockedByBoardId(boardId).stream()
+                .map(CardEntity::getId)
+                .sorted()
+                .toList());
+    }
+
+    /**
+     * Busca textual em título e descrição, ranqueada por BM25; {@code boardId} nulo busca em todos
+     * os boards. O índice responde em memória e só os cards da página são lidos do banco.
+     */
+    public CardSearchPageDTO searchCards(String query, Long boardId, int page, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        if (page < 1) {
+            throw new IllegalArgumentException("A página deve ser maior que zero.");
+        }
+        var result = cardSearchIndex.search(query, boardId, (page - 1) * pageSize, pageSize);
+        if (result.hits().isEmpty()) {
+            return new CardSearchPageDTO(List.of(), page, pageSize, result.totalHits());
+        }
+
+        var cardIds = result.hits().stream().map(CardSearchIndex.Hit::cardId).toList();
+        var detailsById = getCardDetails(cardIds).stream()
+                .collect(Collectors.toMap(CardDetailsDTO::id, Function.identity()));
+        var results = new ArrayList<CardSearchResultDTO>(cardIds.size());
+        for (var hit : result.hits()) {
+            var details = detailsById.get(hit.cardId());
+            if (details != null) {
+                results.add(new CardSearchResultDTO(details.id(), details.title(), details.columnName(), hit.score()));
+            }
+        }
+        return new CardSearchPageDTO(results, page, pageSize, result.totalHits());
+    }
+
+    private static void checkPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("O tamanho da página deve ser maior que zero.");
+        }
+    }
+
+    /**
+     * As consultas buscam um card a mais que o tamanho da página só para saber se há próxima.
+     */
+    private static CardPageDTO toPage(List<CardEntity> cards, int pageSize) {
+        if (cards.size() <= pageSize) {
+            return new CardPageDTO(cards, null);
+        }
+        var page = List.copyOf(cards.subList(0, pageSize));
+        return new CardPageDTO(page, CardCursorDTO.after(page.get(pageSize - 1)));
     }
 
 }
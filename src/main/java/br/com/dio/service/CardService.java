@@ -1,184 +1,273 @@
 package br.com.dio.service;
 
+import br.com.dio.dto.CardStatusDTO;
 import br.com.dio.exception.CardBlockedException;
 import br.com.dio.exception.CardFinishedException;
+import br.com.dio.exception.CardNotBlockedException;
 import br.com.dio.exception.EntityNotFoundException;
+import br.com.dio.exception.OptimisticLockException;
+import br.com.dio.persistence.cache.BlockedCardIndex;
+import br.com.dio.persistence.cache.BoardStructureCache;
+import br.com.dio.persistence.cache.ColumnCardCounters;
 import br.com.dio.persistence.dao.BlockDAO;
-import br.com.dio.persistence.dao.BoardColumnDAO;
 import br.com.dio.persistence.dao.CardDAO;
 import br.com.dio.persistence.entity.BlockEntity;
-import br.com.dio.persistence.entity.BoardColumnKindEnum;
 import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.persistence.history.CardFlowAnalytics;
+import br.com.dio.persistence.history.CardMovementAppender;
+import br.com.dio.persistence.search.CardSearchIndex;
+import br.com.dio.persistence.transaction.TransactionCallback;
+import br.com.dio.service.feed.BoardChangeFeed;
+import br.com.dio.service.feed.BoardEventType;
 import lombok.AllArgsConstructor;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.util.List;
 
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
 import static br.com.dio.persistence.entity.BoardColumnKindEnum.*;
+import static br.com.dio.persistence.transaction.TransactionManager.inTransaction;
+import static br.com.dio.persistence.transaction.TransactionManager.withConnection;
+import static br.com.dio.service.feed.BoardEventType.*;
 
 @AllArgsConstructor
 public class CardService {
 
-    private final Connection connection;
+    private final DataSource dataSource;
+    private final BoardStructureCache boardStructureCache;
+    private final BlockedCardIndex blockedCardIndex;
+    private final ColumnCardCounters columnCardCounters;
+    private final CardSearchIndex cardSearchIndex;
+    private final BoardChangeFeed boardChangeFeed;
+    private final CardMovementAppender cardMovementAppender;
+    private final CardFlowAnalytics cardFlowAnalytics;
+
+    public CardService(DataSource dataSource) {
+        this(dataSource, BoardStructureCache.shared(), BlockedCardIndex.shared(), ColumnCardCounters.shared(),
+                CardSearchIndex.shared(), BoardChangeFeed.shared(), CardMovementAppender.shared(), CardFlowAnalytics.shared());
+    }
 
     public CardEntity createCard(String title, String description, Long boardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-
-        // Buscar a coluna inicial do board
-        var initialColumn = boardColumnDAO.findByBoardIdAndKind(boardId, INITIAL)
-                .orElseThrow(() -> new EntityNotFoundException("Coluna inicial não encontrada para o board com ID " + boardId));
-
-        var card = new CardEntity();
-        card.setTitle(title);
-        card.setDescription(description);
-        card.setBoardColumn(initialColumn);
-
-        return cardDAO.save(card);
+        cardMovementAppender.awaitCapacity();
+        return inTransaction(shardFor(dataSource, boardId), connection -> {
+            var cardDAO = new CardDAO(connection);
+
+            // Buscar a coluna inicial do board
+            var initialColumn = boardStructureCache.findColumn(connection, boardId, INITIAL)
+                    .orElseThrow(() -> new EntityNotFoundException("Coluna inicial não encontrada para o board com ID " + boardId));
+
+            var card = new CardEntity();
+            card.setTitle(title);
+            card.setDescription(description);
+            card.setBoardColumn(initialColumn);
+
+            cardDAO.save(card);
+            cardSearchIndex.indexed(card.getId(), boardId, title, description);
+            columnCardCounters.added(boardId, initialColumn.getId());
+            boardChangeFeed.publish(boardId, CARD_CREATED, card.getId(), initialColumn.getId());
+            cardMovementAppender.moved(card.getId(), boardId, initialColumn.getId(), INITIAL);
+            return card;
+        });
     }
 
-    public CardEntity updateCard(Long cardId, String title, String description) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Verificar se o card está bloqueado
-        if (isCardBlocked(cardId, blockDAO)) {
-            throw new CardBlockedException(cardId);
-        }
-
-        // Verificar se o card está finalizado
-        if (isCardFinished(card)) {
-            throw new CardFinishedException(cardId);
-        }
-
-        card.setTitle(title);
-        card.setDescription(description);
-
-        return cardDAO.save(card);
+    public void updateCard(Long cardId, String title, String description) throws SQLException {
+        updateCard(cardId, null, title, description);
     }
 
-    public CardEntity moveCard(Long cardId, Long targetColumnId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
+    /**
+     * Atualiza o card somente se ele ainda estiver na versão lida pelo chamador; caso contrário
+     * lança {@link OptimisticLockException}.
+     */
+    public void updateCard(Long cardId, Long expectedVersion, String title, String description) throws SQLException {
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            if (new CardDAO(connection).updateIfEditable(cardId, expectedVersion, title, description) == 0) {
+                var status = statusOf(connection, cardId);
+                if (status.blocked()) {
+                    throw new CardBlockedException(cardId);
+                }
+                if (isFinished(status)) {
+                    throw new CardFinishedException(cardId);
+                }
+                throw conflict(status, expectedVersion);
+            }
+            cardSearchIndex.updated(cardId, title, description);
+            publish(connection, cardId, CARD_UPDATED);
+            return null;
+        });
+    }
 
-        var targetColumn = boardColumnDAO.findById(targetColumnId)
-                .orElseThrow(() -> new EntityNotFoundException("BoardColumn", targetColumnId));
+    public void moveCard(Long cardId, Long targetColumnId) throws SQLException {
+        moveCard(cardId, null, targetColumnId);
+    }
 
-        // Verificar se o card está bloqueado
-        if (isCardBlocked(cardId, blockDAO)) {
-            throw new CardBlockedException(cardId);
-        }
+    /**
+     * Move o card somente se ele ainda estiver na versão lida pelo chamador; caso contrário
+     * lança {@link OptimisticLockException}. Com shards, uma coluna de destino de outro shard
+     * não é encontrada.
+     */
+    public void moveCard(Long cardId, Long expectedVersion, Long targetColumnId) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            // A coluna lida entra na guarda: se o card saiu dela, a atualização não afeta nenhuma linha
+            var source = statusOf(connection, cardId);
+            if (new CardDAO(connection).moveIfAllowed(cardId, expectedVersion, source.columnId(), targetColumnId) == 0) {
+                var status = statusOf(connection, cardId);
+                var targetColumn = boardStructureCache.findColumn(connection, targetColumnId)
+                        .orElseThrow(() -> new EntityNotFoundException("BoardColumn", targetColumnId));
+                if (status.blocked()) {
+                    throw new CardBlockedException(cardId);
+                }
+                // Card finalizado só pode ir para uma coluna final
+                if (isFinished(status) && !targetColumn.getKind().equals(FINAL)) {
+                    throw new CardFinishedException(cardId);
+                }
+                throw conflict(status, expectedVersion);
+            }
+            var targetColumn = boardStructureCache.findColumn(connection, targetColumnId)
+                    .orElseThrow(() -> new EntityNotFoundException("BoardColumn", targetColumnId));
+            var boardId = targetColumn.getBoard().getId();
+            columnCardCounters.moved(boardId, source.columnId(), targetColumnId);
+            boardChangeFeed.publish(boardId, CARD_MOVED, cardId, targetColumnId);
+            cardMovementAppender.moved(cardId, boardId, targetColumnId, targetColumn.getKind());
+            return null;
+        });
+    }
 
-        // Verificar se o card já está finalizado e tentando mover para uma coluna que não é final
-        if (isCardFinished(card) && !targetColumn.getKind().equals(FINAL)) {
-            throw new CardFinishedException(cardId);
+    /**
+     * Executa {@code operation} em uma transação no shard do board, coluna ou card {@code shardKey}
+     * e a repete, relendo os dados, quando ela falha por conflito de versão. A leitura não trava
+     * linhas; o conflito é detectado pela atualização com compare-and-set. Após {@code maxAttempts}
+     * tentativas o último conflito é propagado.
+     */
+    public <T> T retryOnConflict(Long shardKey, int maxAttempts, TransactionCallback<T> operation) throws SQLException {
+        var shard = shardFor(dataSource, shardKey);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return inTransaction(shard, operation);
+            } catch (OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
         }
-
-        card.setBoardColumn(targetColumn);
-        return cardDAO.save(card);
     }
 
     public void deleteCard(Long cardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Verificar se o card está bloqueado
-        if (isCardBlocked(cardId, blockDAO)) {
-            throw new CardBlockedException(cardId);
-        }
-
-        cardDAO.deleteById(cardId);
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            // O board e a coluna do evento precisam ser lidos antes de a linha sumir; a coluna lida
+            // entra na guarda da exclusão
+            var status = statusOf(connection, cardId);
+            if (new CardDAO(connection).deleteIfUnblocked(cardId, status.columnId()) == 0) {
+                var current = statusOf(connection, cardId);
+                if (current.blocked()) {
+                    throw new CardBlockedException(cardId);
+                }
+                throw conflict(current, null);
+            }
+            cardSearchIndex.removed(cardId);
+            columnCardCounters.removed(status.columnId());
+            cardFlowAnalytics.cardDeleted(cardId);
+            boardChangeFeed.publish(status.boardId(), CARD_DELETED, cardId, status.columnId());
+            return null;
+        });
     }
 
-    public CardEntity blockCard(Long cardId, String reason) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Verificar se o card já está bloqueado
-        if (isCardBlocked(cardId, blockDAO)) {
-            throw new CardBlockedException("O card com ID " + cardId + " já está bloqueado.");
-        }
-
-        // Criar um novo bloqueio
-        var block = new BlockEntity();
-        block.setBlockedAt(OffsetDateTime.now());
-        block.setBlockReason(reason);
-        block = blockDAO.save(block);
-
-        // Associar o bloqueio ao card
-        blockDAO.linkCardToBlock(cardId, block.getId());
-
-        return card;
+    public void blockCard(Long cardId, String reason) throws SQLException {
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            var cardDAO = new CardDAO(connection);
+            var blockDAO = new BlockDAO(connection);
+
+            // A reserva guardada trava o card antes do INSERT: de dois bloqueios concorrentes, o
+            // segundo espera o primeiro e não encontra mais o card desbloqueado
+            if (cardDAO.reserveForBlockIfUnblocked(cardId) == 0) {
+                statusOf(connection, cardId);
+                throw new CardBlockedException("O card com ID " + cardId + " já está bloqueado.");
+            }
+            var block = new BlockEntity();
+            block.setBlockedAt(OffsetDateTime.now());
+            block.setBlockReason(reason);
+            var blockId = blockDAO.save(block).getId();
+            cardDAO.activateBlock(cardId, blockId);
+            blockDAO.linkCardToBlock(cardId, blockId);
+            var status = statusOf(connection, cardId);
+            blockedCardIndex.blocked(cardId, status.boardId());
+            columnCardCounters.blocked(status.columnId());
+            boardChangeFeed.publish(status.boardId(), CARD_BLOCKED, cardId, status.columnId());
+            return null;
+        });
     }
 
-    public CardEntity unblockCard(Long cardId, String reason) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Buscar o bloqueio ativo
-        var activeBlock = blockDAO.findActiveBlockByCardId(cardId)
-                .orElseThrow(() -> new RuntimeException("O card com ID " + cardId + " não está bloqueado."));
-
-        // Desbloquear
-        activeBlock.setUnblockedAt(OffsetDateTime.now());
-        activeBlock.setUnblockReason(reason);
-        blockDAO.save(activeBlock);
-
-        return card;
+    public void unblockCard(Long cardId, String reason) throws SQLException {
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            if (new BlockDAO(connection).closeActiveBlock(cardId, reason, OffsetDateTime.now()) == 0) {
+                statusOf(connection, cardId);
+                throw new CardNotBlockedException(cardId);
+            }
+            new CardDAO(connection).updateActiveBlock(cardId, null);
+            var status = statusOf(connection, cardId);
+            blockedCardIndex.unblocked(cardId, status.boardId());
+            columnCardCounters.unblocked(status.columnId());
+            boardChangeFeed.publish(status.boardId(), CARD_UNBLOCKED, cardId, status.columnId());
+            return null;
+        });
     }
 
-    public CardEntity cancelCard(Long cardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        var boardColumnDAO = new BoardColumnDAO(connection);
-        var blockDAO = new BlockDAO(connection);
-
-        var card = cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
-
-        // Verificar se o card está bloqueado
-        if (isCardBlocked(cardId, blockDAO)) {
-            throw new CardBlockedException(cardId);
-        }
+    public void cancelCard(Long cardId) throws SQLException {
+        cardMovementAppender.awaitCapacity();
+        inTransaction(shardFor(dataSource, cardId), connection -> {
+            var source = statusOf(connection, cardId);
+            if (new CardDAO(connection).cancelIfUnblocked(cardId, source.columnId()) == 0) {
+                var status = statusOf(connection, cardId);
+                if (status.blocked()) {
+                    throw new CardBlockedException(cardId);
+                }
+                if (!status.columnId().equals(source.columnId())) {
+                    throw conflict(status, null);
+                }
+                throw new EntityNotFoundException("Coluna de cancelamento não encontrada para o board.");
+            }
+            var status = statusOf(connection, cardId);
+            columnCardCounters.moved(status.boardId(), source.columnId(), status.columnId());
+            boardChangeFeed.publish(status.boardId(), CARD_CANCELLED, cardId, status.columnId());
+            cardMovementAppender.moved(cardId, status.boardId(), status.columnId(), status.columnKind());
+            return null;
+        });
+    }
 
-        // Buscar a coluna de cancelamento do board
-        var boardId = card.getBoardColumn().getBoard().getId();
-        var cancelColumn = boardColumnDAO.findByBoardIdAndKind(boardId, CANCEL)
-                .orElseThrow(() -> new EntityNotFoundException("Coluna de cancelamento não encontrada para o board."));
+    public CardEntity findById(Long cardId) throws SQLException {
+        return withConnection(shardFor(dataSource, cardId), connection -> new CardDAO(connection).findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card", cardId)));
+    }
 
-        card.setBoardColumn(cancelColumn);
-        return cardDAO.save(card);
+    /**
+     * Nenhuma regra impede a alteração, então o card mudou desde a leitura (ou entre a guarda e a
+     * consulta de situação, nas chamadas sem versão).
+     */
+    private static OptimisticLockException conflict(CardStatusDTO status, Long expectedVersion) {
+        return new OptimisticLockException("Card", status.id(),
+                expectedVersion != null ? expectedVersion : status.version());
     }
 
-    public CardEntity findById(Long cardId) throws SQLException {
-        var cardDAO = new CardDAO(connection);
-        return cardDAO.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
+    private static boolean isFinished(CardStatusDTO status) {
+        return status.columnKind().equals(FINAL) || status.columnKind().equals(CANCEL);
     }
 
-    private boolean isCardBlocked(Long cardId, BlockDAO blockDAO) throws SQLException {
-        return blockDAO.findActiveBlockByCardId(cardId).isPresent();
+    private void publish(Connection connection, Long cardId, BoardEventType type) throws SQLException {
+        var status = statusOf(connection, cardId);
+        boardChangeFeed.publish(status.boardId(), type, cardId, status.columnId());
     }
 
-    private boolean isCardFinished(CardEntity card) {
-        return card.getBoardColumn().getKind().equals(FINAL) || 
-               card.getBoardColumn().getKind().equals(CANCEL);
+    /**
+     * Situação atual do card: quando uma mutação guardada não afeta nenhuma linha, mostra qual regra
+     * impediu a alteração; nas alterações bem-sucedidas, dá o board e a coluna para o feed e os índices.
+     */
+    private CardStatusDTO statusOf(Connection connection, Long cardId) throws SQLException {
+        return new CardDAO(connection).findStatusByIds(List.of(cardId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Card", cardId));
     }
 
 }
@@ -0,0 +1,138 @@
+package br.com.dio.service.async;
+
+import br.com.dio.dto.BoardDetailsDTO;
+import br.com.dio.dto.CardCursorDTO;
+import br.com.dio.dto.CardDetailsDTO;
+import br.com.dio.dto.CardPageDTO;
+import br.com.dio.dto.CardSearchPageDTO;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.BoardEntity;
+import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.service.BoardColumnQueryService;
+import br.com.dio.service.BoardQueryService;
+import br.com.dio.service.CardQueryService;
+import br.com.dio.service.CardService;
+import lombok.AllArgsConstructor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versão assíncrona das operações de board e card usadas por integrações, sobre os serviços
+ * bloqueantes. Cada chamada vira um {@link CompletableFuture} executado pelo {@link AsyncExecutor};
+ * as consultas de um board contam no limite por board, e todas falham com
+ * {@link java.util.concurrent.TimeoutException} depois de {@code timeout}. Uma mutação que já
+ * começou não é interrompida pelo timeout: o future falha, mas a alteração pode ter sido gravada.
+ * <p>
+ * Exemplo: {@code facade.getBoardDetails(id).thenCombine(facade.findBlockedCardsByBoardId(id), ...)}
+ * consulta os detalhes e os bloqueios em paralelo.
+ */
+@AllArgsConstructor
+public class AsyncBoardFacade {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(Long.getLong("board.async.timeout-ms", 30_000));
+
+    private final BoardQueryService boardQueryService;
+    private final BoardColumnQueryService boardColumnQueryService;
+    private final CardQueryService cardQueryService;
+    private final CardService cardService;
+    private final AsyncExecutor executor;
+    private final Duration timeout;
+
+    /**
+     * As consultas usam {@code readDataSource} e as alterações, {@code dataSource}, como nos menus.
+     */
+    public AsyncBoardFacade(DataSource dataSource, DataSource readDataSource) {
+        this(new BoardQueryService(readDataSource), new BoardColumnQueryService(readDataSource),
+                new CardQueryService(readDataSource), new CardService(dataSource), AsyncExecutor.shared(), DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Mesma fachada com outro tempo limite por chamada.
+     */
+    public AsyncBoardFacade withTimeout(Duration timeout) {
+        return new AsyncBoardFacade(boardQueryService, boardColumnQueryService, cardQueryService, cardService,
+                executor, timeout);
+    }
+
+    public CompletableFuture<List<BoardEntity>> findAllBoards() {
+        return executor.submit(timeout, boardQueryService::findAllBoards);
+    }
+
+    public CompletableFuture<BoardDetailsDTO> getBoardDetails(Long boardId) {
+        return executor.submit(boardId, timeout, () -> boardQueryService.getBoardDetails(boardId));
+    }
+
+    public CompletableFuture<List<BoardColumnEntity>> findColumnsByBoardId(Long boardId) {
+        return executor.submit(boardId, timeout, () -> boardColumnQueryService.findColumnsByBoardId(boardId));
+    }
+
+    public CompletableFuture<CardPageDTO> findCardsPageByBoardId(Long boardId, CardCursorDTO after, int pageSize) {
+        return executor.submit(boardId, timeout, () -> cardQueryService.findCardsPageByBoardId(boardId, after, pageSize));
+    }
+
+    public CompletableFuture<List<CardEntity>> findBlockedCardsByBoardId(Long boardId) {
+        return executor.submit(boardId, timeout, () -> cardQueryService.findBlockedCardsByBoardId(boardId));
+    }
+
+    public CompletableFuture<Integer> countBlockedCardsByBoardId(Long boardId) {
+        return executor.submit(boardId, timeout, () -> cardQueryService.countBlockedCardsByBoardId(boardId));
+    }
+
+    public CompletableFuture<CardDetailsDTO> getCardDetails(Long cardId) {
+        return executor.submit(timeout, () -> cardQueryService.getCardDetails(cardId));
+    }
+
+    public CompletableFuture<CardSearchPageDTO> searchCards(String query, Long boardId, int page, int pageSize) {
+        return executor.submit(boardId, timeout, () -> cardQueryService.searchCards(query, boardId, page, pageSize));
+    }
+
+    public CompletableFuture<CardEntity> createCard(String title, String description, Long boardId) {
+        return executor.submit(boardId, timeout, () -> cardService.createCard(title, description, boardId));
+    }
+
+    public CompletableFuture<Void> updateCard(Long cardId, Long expectedVersion, String title, String description) {
+        return executor.submit(timeout, () -> {
+            cardService.updateCard(cardId, expectedVersion, title, description);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> moveCard(Long cardId, Long expectedVersion, Long targetColumnId) {
+        return executor.submit(timeout, () -> {
+            cardService.moveCard(cardId, expectedVersion, targetColumnId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> blockCard(Long cardId, String reason) {
+        return executor.submit(timeout, () -> {
+            cardService.blockCard(cardId, reason);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> unblockCard(Long cardId, String reason) {
+        return executor.submit(timeout, () -> {
+            cardService.unblockCard(cardId, reason);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> cancelCard(Long cardId) {
+        return executor.submit(timeout, () -> {
+            cardService.cancelCard(cardId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteCard(Long cardId) {
+        return executor.submit(timeout, () -> {
+            cardService.deleteCard(cardId);
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,207 @@
+package br.com.dio.service.async;
+
+import br.com.dio.persistence.transaction.ReadYourWritesSession;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Executa chamadas bloqueantes dos serviços fora da thread do chamador e devolve
+ * {@link CompletableFuture}s.
+ * <p>
+ * As chamadas rodam em {@link VirtualThreads}: virtual threads em Java 21 ou superior, um pool de
+ * {@code maxConcurrency} threads de plataforma antes disso. Nos dois casos no máximo
+ * {@code maxConcurrency} chamadas executam ao mesmo tempo, o que mantém a espera por conexões
+ * fora do pool JDBC, e cada board tem no máximo {@code perBoardLimit} chamadas em andamento; as
+ * excedentes aguardam em fila sem ocupar threads.
+ * <p>
+ * Cancelar o future ou estourar o tempo limite descarta a chamada que ainda não começou, inclusive
+ * a que aguarda vaga no limite de concorrência. A que já está em andamento não é interrompida (em
+ * uma virtual thread a interrupção fecharia o socket JDBC no meio da transação) e termina
+ * normalmente, com o resultado ignorado. A {@link ReadYourWritesSession} do chamador acompanha a
+ * chamada.
+ */
+public final class AsyncExecutor {
+
+    private static final System.Logger LOGGER = System.getLogger(AsyncExecutor.class.getName());
+
+    private static volatile AsyncExecutor shared;
+
+    private final ExecutorService executor;
+    private final Semaphore running;
+    private final int perBoardLimit;
+    private final Map<Long, BoardLane> lanes = new HashMap<>();
+
+    public AsyncExecutor(final int maxConcurrency, final int perBoardLimit) {
+        if (maxConcurrency < 1 || perBoardLimit < 1) {
+            throw new IllegalArgumentException("Os limites de concorrência devem ser maiores que zero.");
+        }
+        // Sem virtual threads, o limite de concorrência também é o tamanho do pool
+        this.executor = VirtualThreads.newExecutor("board-async", maxConcurrency);
+        this.running = new Semaphore(maxConcurrency);
+        this.perBoardLimit = perBoardLimit;
+    }
+
+    /**
+     * Instância compartilhada; os limites vêm de {@code board.async.max-concurrency} (padrão: o
+     * tamanho máximo do pool) e {@code board.async.per-board-limit}.
+     */
+    public static AsyncExecutor shared() {
+        if (shared == null) {
+            synchronized (AsyncExecutor.class) {
+                if (shared == null) {
+                    shared = new AsyncExecutor(
+                            Integer.getInteger("board.async.max-concurrency", Integer.getInteger("board.pool.max-size", 10)),
+                            Integer.getInteger("board.async.per-board-limit", 4));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Executa {@code call} sem limite por board.
+     */
+    public <T> CompletableFuture<T> submit(final Duration timeout, final Callable<T> call) {
+        return submit(null, timeout, call);
+    }
+
+    /**
+     * Executa {@code call} contando no limite do board {@code boardId} (nulo para nenhum); o
+     * future falha com {@link TimeoutException} se não terminar em {@code timeout}.
+     */
+    public <T> CompletableFuture<T> submit(final Long boardId, final Duration timeout, final Callable<T> call) {
+        var future = new CompletableFuture<T>();
+        var task = new Task<>(future, call, ReadYourWritesSession.current());
+        future.whenComplete((result, failure) -> {
+            if (failure instanceof CancellationException || failure instanceof TimeoutException) {
+                task.cancel();
+            }
+        });
+        future.orTimeout(timeout.toNanos(), NANOSECONDS);
+        try {
+            if (boardId == null) {
+                executor.execute(task);
+            } else {
+                enqueue(boardId, task);
+            }
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void enqueue(final Long boardId, final Runnable task) {
+        synchronized (lanes) {
+            var lane = lanes.computeIfAbsent(boardId, ignored -> new BoardLane());
+            if (lane.running >= perBoardLimit) {
+                lane.waiting.addLast(task);
+                return;
+            }
+            lane.running++;
+        }
+        dispatch(boardId, task);
+    }
+
+    private void dispatch(final Long boardId, final Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release(boardId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(boardId);
+            throw e;
+        }
+    }
+
+    private void release(final Long boardId) {
+        Runnable next;
+        synchronized (lanes) {
+            var lane = lanes.get(boardId);
+            next = lane.waiting.pollFirst();
+            if (next == null && --lane.running == 0) {
+                lanes.remove(boardId);
+            }
+        }
+        if (next != null) {
+            try {
+                dispatch(boardId, next);
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(WARNING, "Chamada assíncrona descartada no encerramento do executor.", e);
+            }
+        }
+    }
+
+    /**
+     * Chamadas de um board em andamento e as que aguardam vaga, em ordem de chegada.
+     */
+    private static final class BoardLane {
+
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+    }
+
+    private final class Task<T> implements Runnable {
+
+        private final CompletableFuture<T> future;
+        private final Callable<T> call;
+        private final ReadYourWritesSession session;
+        private volatile boolean cancelled;
+
+        private Task(final CompletableFuture<T> future, final Callable<T> call, final ReadYourWritesSession session) {
+            this.future = future;
+            this.call = call;
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled || future.isDone()) {
+                return;
+            }
+            var binding = session.bind();
+            try {
+                running.acquire();
+                try {
+                    // Cancelada enquanto aguardava vaga: ainda não começou
+                    if (!cancelled && !future.isDone()) {
+                        future.complete(call.call());
+                    }
+                } finally {
+                    running.release();
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                binding.close();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package br.com.dio.service.async;
+
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Executores de uma thread por tarefa. O projeto compila para Java 17: em Java 21 ou superior as
+ * tarefas rodam em virtual threads, obtidas por reflexão; antes disso, em um pool fixo de threads
+ * de plataforma daemon.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class VirtualThreads {
+
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Virtual thread por tarefa ou, sem suporte, {@code platformThreads} threads nomeadas
+     * {@code name-N}.
+     */
+    public static ExecutorService newExecutor(final String name, final int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            var sequence = new AtomicInteger();
+            return Executors.newFixedThreadPool(platformThreads, runnable -> {
+                var thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
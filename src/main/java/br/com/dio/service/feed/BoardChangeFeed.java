@@ -0,0 +1,354 @@
+package br.com.dio.service.feed;
+
+import br.com.dio.exception.BoardEventsLostException;
+import br.com.dio.service.async.VirtualThreads;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static br.com.dio.persistence.transaction.TransactionScope.runAfterCommit;
+import static br.com.dio.service.feed.BoardEventType.BOARD_DELETED;
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Feed em memória das alterações confirmadas em cada board, para que telas e integrações apliquem
+ * os deltas em vez de recarregar o board.
+ * <p>
+ * Os serviços publicam dentro da transação e o evento só entra no feed depois do commit; em
+ * rollback ele é descartado. Cada board numera seus eventos em ordem de publicação e retém os
+ * últimos {@code retention}, e uma assinatura pode ser retomada a partir de qualquer sequência
+ * retida. As sequências recomeçam a cada processo, então cada instância do feed tem um
+ * {@link #epoch()} aleatório; uma retomada com epoch de outra instância recebe
+ * {@link BoardEventsLostException}.
+ * <p>
+ * A entrega segue {@link Flow}: o assinante recebe, em ordem e um de cada vez, no máximo tantos
+ * eventos quantos pediu em {@link Flow.Subscription#request(long)}; os demais esperam no feed.
+ * Quem fica mais de {@code retention} eventos para trás recebe {@link BoardEventsLostException}
+ * em {@code onError}. Os eventos não sobrevivem ao processo nem são vistos por outras instâncias.
+ */
+public final class BoardChangeFeed {
+
+    public static final int DEFAULT_RETENTION = 1_024;
+
+    /**
+     * Sequência para assinar apenas os eventos publicados a partir de agora.
+     */
+    public static final long LATEST = -1;
+
+    private static final System.Logger LOGGER = System.getLogger(BoardChangeFeed.class.getName());
+    private static final BoardEvent LOST = new BoardEvent(null, -1, null, null, null, null, null);
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static volatile BoardChangeFeed shared;
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final int retention;
+    private final Executor executor;
+    private final Map<Long, BoardLog> logs = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor onde os eventos são entregues aos assinantes
+     */
+    public BoardChangeFeed(final int retention, final Executor executor) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("A retenção do feed deve ser maior que zero.");
+        }
+        this.retention = retention;
+        this.executor = executor;
+    }
+
+    /**
+     * Instância compartilhada; a retenção por board vem de {@code board.feed.retention} e as
+     * entregas usam {@code board.feed.threads} threads quando não há virtual threads.
+     */
+    public static BoardChangeFeed shared() {
+        if (shared == null) {
+            synchronized (BoardChangeFeed.class) {
+                if (shared == null) {
+                    shared = new BoardChangeFeed(Integer.getInteger("board.feed.retention", DEFAULT_RETENTION),
+                            VirtualThreads.newExecutor("board-feed", Integer.getInteger("board.feed.threads", 4)));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Publica o evento depois do commit da transação atual (ou imediatamente, fora de uma).
+     */
+    public void publish(final Long boardId, final BoardEventType type, final Long cardId, final Long columnId) {
+        Runnable append = () -> {
+            // Depois da exclusão nada mais é publicado no board; quem ainda o assina termina no evento
+            var log = type == BOARD_DELETED ? logs.remove(boardId) : logs.computeIfAbsent(boardId, BoardLog::new);
+            if (log != null) {
+                log.append(type, cardId, columnId);
+            }
+        };
+        runAfterCommit(append);
+    }
+
+    /**
+     * Identifica esta instância do feed nos IDs dos eventos.
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Sequência do último evento publicado no board, ou zero se não houver nenhum.
+     */
+    public long lastSequence(final Long boardId) {
+        var log = logs.get(boardId);
+        return log == null ? 0 : log.head();
+    }
+
+    /**
+     * Eventos do board posteriores a {@code afterSequence}: zero para todos os retidos,
+     * {@link #LATEST} para só os próximos. A sequência é deste feed; uma maior que a última
+     * publicada resulta em {@link BoardEventsLostException}.
+     */
+    public Flow.Publisher<BoardEvent> events(final Long boardId, final long afterSequence) {
+        return events(boardId, epoch, afterSequence);
+    }
+
+    /**
+     * Como {@link #events(Long, long)}, para uma sequência recebida no {@code epoch} informado; um
+     * epoch diferente do deste feed (o processo reiniciou) resulta em {@link BoardEventsLostException}.
+     */
+    public Flow.Publisher<BoardEvent> events(final Long boardId, final String epoch, final long afterSequence) {
+        var sameEpoch = this.epoch.equals(epoch);
+        return subscriber -> logs.computeIfAbsent(boardId, BoardLog::new).subscribe(subscriber, sameEpoch, afterSequence);
+    }
+
+    /**
+     * Entrega ao {@code listener} cada evento publicado no board a partir de agora, sem limite de
+     * demanda, até a assinatura devolvida ser cancelada. Para observadores que só anotam o evento.
+     */
+    public Flow.Subscription watch(final Long boardId, final Consumer<BoardEvent> listener) {
+        var watcher = new Watcher(boardId, listener);
+        events(boardId, LATEST).subscribe(watcher);
+        return watcher.subscription;
+    }
+
+    /**
+     * Eventos retidos de um board, em um buffer circular que cresce sob demanda até
+     * {@code retention}, e as assinaturas que os consomem.
+     */
+    private final class BoardLog {
+
+        private final Long boardId;
+        private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private BoardEvent[] events = new BoardEvent[Math.min(retention, INITIAL_CAPACITY)];
+        private int start;
+        private int size;
+        private long head;
+
+        private BoardLog(final Long boardId) {
+            this.boardId = boardId;
+        }
+
+        private void append(final BoardEventType type, final Long cardId, final Long columnId) {
+            synchronized (this) {
+                if (size == events.length) {
+                    if (events.length < retention) {
+                        grow();
+                    } else {
+                        start = (start + 1) % events.length;
+                        size--;
+                    }
+                }
+                head++;
+                events[(start + size) % events.length] =
+                        new BoardEvent(epoch, head, boardId, type, cardId, columnId, OffsetDateTime.now());
+                size++;
+            }
+            subscriptions.forEach(FeedSubscription::drain);
+        }
+
+        private void grow() {
+            var grown = new BoardEvent[Math.min(retention, events.length * 2)];
+            for (int i = 0; i < size; i++) {
+                grown[i] = events[(start + i) % events.length];
+            }
+            events = grown;
+            start = 0;
+        }
+
+        private synchronized long head() {
+            return head;
+        }
+
+        /**
+         * Evento da sequência, {@code null} se ainda não publicado ou {@link #LOST} se já descartado.
+         */
+        private synchronized BoardEvent eventAt(final long sequence) {
+            if (sequence > head) {
+                return null;
+            }
+            var first = head - size + 1;
+            if (sequence < first) {
+                return LOST;
+            }
+            return events[(int) ((start + sequence - first) % events.length)];
+        }
+
+        private void subscribe(final Flow.Subscriber<? super BoardEvent> subscriber, final boolean sameEpoch,
+                               final long afterSequence) {
+            Objects.requireNonNull(subscriber);
+            FeedSubscription subscription;
+            synchronized (this) {
+                subscription = new FeedSubscription(this, subscriber, afterSequence < 0 ? head : afterSequence);
+                if ((!sameEpoch && afterSequence >= 0) || afterSequence > head) {
+                    subscription.failure = new BoardEventsLostException(boardId, afterSequence);
+                }
+            }
+            subscriptions.add(subscription);
+            subscriber.onSubscribe(subscription);
+            subscription.drain();
+        }
+
+    }
+
+    /**
+     * Cursor de um assinante. As entregas de uma assinatura nunca se sobrepõem: {@code pending}
+     * conta os pedidos de drenagem e só quem o tira de zero agenda uma execução, que repete até
+     * não restar pedido.
+     */
+    private final class FeedSubscription implements Flow.Subscription {
+
+        private final BoardLog log;
+        private final Flow.Subscriber<? super BoardEvent> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private long delivered;
+        private volatile Throwable failure;
+        private volatile boolean done;
+
+        private FeedSubscription(final BoardLog log, final Flow.Subscriber<? super BoardEvent> subscriber,
+                                 final long delivered) {
+            this.log = log;
+            this.subscriber = subscriber;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("A quantidade pedida deve ser maior que zero.");
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            log.subscriptions.remove(this);
+        }
+
+        private void drain() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                cancel();
+            }
+        }
+
+        private void deliver() {
+            var missed = 1;
+            do {
+                if (!done) {
+                    deliverAvailable();
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliverAvailable() {
+            if (failure != null) {
+                fail(failure);
+                return;
+            }
+            while (!done && requested.get() > 0) {
+                var event = log.eventAt(delivered + 1);
+                if (event == null) {
+                    return;
+                }
+                if (event == LOST) {
+                    fail(new BoardEventsLostException(log.boardId, delivered));
+                    return;
+                }
+                delivered++;
+                requested.decrementAndGet();
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    // Regra 2.13 do Reactive Streams: o assinante que lança é considerado cancelado
+                    cancel();
+                    LOGGER.log(WARNING, "Assinante do feed do board " + log.boardId + " falhou e foi cancelado.", e);
+                    return;
+                }
+                if (event.type() == BOARD_DELETED) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+        }
+
+        private void fail(final Throwable cause) {
+            cancel();
+            subscriber.onError(cause);
+        }
+
+    }
+
+    private static final class Watcher implements Flow.Subscriber<BoardEvent> {
+
+        private final Long boardId;
+        private final Consumer<BoardEvent> listener;
+        private Flow.Subscription subscription;
+
+        private Watcher(final Long boardId, final Consumer<BoardEvent> listener) {
+            this.boardId = boardId;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final BoardEvent event) {
+            listener.accept(event);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            LOGGER.log(WARNING, "Observação do board " + boardId + " encerrada.", throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+    }
+
+}
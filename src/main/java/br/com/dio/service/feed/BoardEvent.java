@@ -0,0 +1,25 @@
+package br.com.dio.service.feed;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Alteração confirmada em um board. {@code sequence} cresce de um em um por board e, junto com o
+ * {@code epoch} do processo que a publicou, serve para retomar uma assinatura; {@code cardId} e
+ * {@code columnId} são nulos quando não se aplicam, e {@code columnId} é a coluna em que o card ficou.
+ */
+public record BoardEvent(String epoch,
+                         long sequence,
+                         Long boardId,
+                         BoardEventType type,
+                         Long cardId,
+                         Long columnId,
+                         OffsetDateTime occurredAt) {
+
+    /**
+     * Identificador para retomada, no formato {@code epoch:sequence}.
+     */
+    public String id() {
+        return epoch + ":" + sequence;
+    }
+
+}
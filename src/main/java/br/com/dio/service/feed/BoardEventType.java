@@ -0,0 +1,23 @@
+package br.com.dio.service.feed;
+
+public enum BoardEventType {
+
+    CARD_CREATED,
+    CARD_UPDATED,
+    CARD_MOVED,
+    CARD_BLOCKED,
+    CARD_UNBLOCKED,
+    CARD_CANCELLED,
+    CARD_DELETED,
+    /**
+     * Cards inseridos em lote pela importação; o evento não identifica os cards.
+     */
+    CARDS_IMPORTED,
+    COLUMN_RENAMED,
+    BOARD_UPDATED,
+    /**
+     * Último evento do board: as assinaturas terminam depois dele.
+     */
+    BOARD_DELETED
+
+}
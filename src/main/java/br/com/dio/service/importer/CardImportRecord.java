@@ -0,0 +1,10 @@
+package br.com.dio.service.importer;
+
+/**
+ * Um card lido do arquivo de importação, ainda sem a coluna de destino resolvida.
+ */
+public record CardImportRecord(long lineNumber,
+                               Long boardId,
+                               String title,
+                               String description) {
+}
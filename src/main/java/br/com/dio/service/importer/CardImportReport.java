@@ -0,0 +1,21 @@
+package br.com.dio.service.importer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Progresso (ou resultado final) de uma importação de cards. {@code imported} conta apenas
+ * cards já confirmados no banco; {@code errors} guarda no máximo as primeiras rejeições.
+ */
+public record CardImportReport(long read,
+                               long imported,
+                               long rejected,
+                               Duration elapsed,
+                               List<String> errors) {
+
+    public double cardsPerSecond() {
+        var seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : imported / seconds;
+    }
+
+}
@@ -0,0 +1,302 @@
+package br.com.dio.service.importer;
+
+import br.com.dio.exception.InvalidImportRecordException;
+import br.com.dio.persistence.cache.ColumnCardCounters;
+import br.com.dio.persistence.dao.BoardColumnDAO;
+import br.com.dio.persistence.dao.CardDAO;
+import br.com.dio.persistence.dao.CardMovementDAO;
+import br.com.dio.persistence.entity.BoardColumnEntity;
+import br.com.dio.persistence.entity.CardEntity;
+import br.com.dio.persistence.entity.CardMovementEntity;
+import br.com.dio.persistence.history.CardFlowAnalytics;
+import br.com.dio.persistence.search.CardSearchIndex;
+import br.com.dio.service.feed.BoardChangeFeed;
+import lombok.AllArgsConstructor;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static br.com.dio.persistence.config.ShardedDataSource.shardFor;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.INITIAL;
+import static br.com.dio.service.feed.BoardEventType.CARDS_IMPORTED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Importa cards em massa a partir de CSV ou NDJSON lendo o arquivo em streaming. Os cards entram
+ * na coluna inicial do board, resolvida uma única vez por board, são gravados em lotes JDBC de
+ * {@code batchSize} e confirmados a cada {@code commitInterval} cards. A memória usada depende
+ * apenas do tamanho do lote e da quantidade de boards distintos, não do tamanho do arquivo.
+ * <p>
+ * Com shards, cada shard envolvido recebe sua própria conexão e seus próprios lotes.
+ * <p>
+ * Cada lote grava também a entrada de cada card na coluna inicial em {@code card_movement}, na
+ * mesma transação dos cards; as entradas confirmadas alimentam o {@link CardFlowAnalytics}.
+ * <p>
+ * Se a importação falhar no meio, os blocos já confirmados permanecem no banco. Cada commit
+ * publica um {@link br.com.dio.service.feed.BoardEventType#CARDS_IMPORTED} por board envolvido.
+ */
+@AllArgsConstructor
+public class CardImportService {
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+    public static final int DEFAULT_COMMIT_INTERVAL = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final DataSource dataSource;
+    private final int batchSize;
+    private final int commitInterval;
+    private final CardSearchIndex cardSearchIndex;
+    private final ColumnCardCounters columnCardCounters;
+    private final BoardChangeFeed boardChangeFeed;
+    private final CardFlowAnalytics cardFlowAnalytics;
+
+    public CardImportService(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL, CardSearchIndex.shared(),
+                ColumnCardCounters.shared(), BoardChangeFeed.shared(), CardFlowAnalytics.shared());
+    }
+
+    public CardImportReport importFile(Path file, Consumer<CardImportReport> progressListener) throws IOException, SQLException {
+        try (var reader = openReader(file)) {
+            return importCards(reader, progressListener);
+        }
+    }
+
+    public CardImportReport importCards(CardRecordReader reader, Consumer<CardImportReport> progressListener) throws IOException, SQLException {
+        var progress = new Progress(System.nanoTime());
+        // Uma conexão por shard envolvido, aberta no primeiro card do shard
+        var writers = new LinkedHashMap<DataSource, ShardWriter>();
+
+        try {
+            while (true) {
+                CardImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (InvalidImportRecordException e) {
+                    progress.read++;
+                    progress.reject(e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                progress.read++;
+
+                var writer = record.boardId() > 0 ? writerFor(record.boardId(), writers) : null;
+                var column = writer != null ? writer.resolveInitialColumn(record.boardId()) : Optional.<BoardColumnEntity>empty();
+                if (column.isEmpty()) {
+                    progress.reject("Linha " + record.lineNumber() + " inválida: board " + record.boardId()
+                            + " não encontrado ou sem coluna inicial");
+                    continue;
+                }
+
+                var card = new CardEntity();
+                card.setTitle(record.title());
+                card.setDescription(record.description());
+                card.setBoardColumn(column.get());
+                writer.pending.add(card);
+                writer.uncommittedBoards.add(record.boardId());
+
+                if (writer.pending.size() >= batchSize) {
+                    writer.flush();
+                }
+                if (writer.uncommitted >= commitInterval) {
+                    progress.imported += writer.commit();
+                    progressListener.accept(progress.snapshot());
+                }
+            }
+            for (var writer : writers.values()) {
+                writer.flush();
+                progress.imported += writer.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (var writer : writers.values()) {
+                try {
+                    writer.connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e;
+        } finally {
+            closeAll(writers.values());
+        }
+
+        var report = progress.snapshot();
+        progressListener.accept(report);
+        return report;
+    }
+
+    private ShardWriter writerFor(Long boardId, Map<DataSource, ShardWriter> writers) throws SQLException {
+        var shard = shardFor(dataSource, boardId);
+        var writer = writers.get(shard);
+        if (writer == null) {
+            writer = new ShardWriter(shard.getConnection());
+            writers.put(shard, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * Indexa na busca os cards confirmados em cada shard, reconta as colunas iniciais que os receberam e devolve as conexões,
+     * mesmo após falha.
+     */
+    private void closeAll(Collection<ShardWriter> writers) throws SQLException {
+        SQLException failure = null;
+        for (var writer : writers) {
+            try (var connection = writer.connection) {
+                // Os cards confirmados entram na busca pelo ID, acima do maior existente antes da importação
+                cardSearchIndex.catchUp(connection, writer.maxIdBefore);
+                columnCardCounters.recount(connection, writer.initialColumns.values().stream()
+                        .flatMap(Optional::stream)
+                        .map(BoardColumnEntity::getId)
+                        .toList());
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Estado da importação em um shard: conexão, colunas iniciais já resolvidas e o lote corrente.
+     */
+    private final class ShardWriter {
+
+        private final Connection connection;
+        private final CardDAO cardDAO;
+        private final CardMovementDAO cardMovementDAO;
+        private final BoardColumnDAO boardColumnDAO;
+        private final long maxIdBefore;
+        // Coluna inicial de cada board; vazio quando o board não existe ou não tem coluna inicial
+        private final Map<Long, Optional<BoardColumnEntity>> initialColumns = new HashMap<>();
+        private final List<CardEntity> pending = new ArrayList<>(batchSize);
+        private final Set<Long> uncommittedBoards = new HashSet<>();
+        private final List<CardMovementEntity> uncommittedMovements = new ArrayList<>();
+        private long uncommitted;
+
+        private ShardWriter(Connection connection) throws SQLException {
+            this.connection = connection;
+            try {
+                this.cardDAO = new CardDAO(connection);
+                this.cardMovementDAO = new CardMovementDAO(connection);
+                this.boardColumnDAO = new BoardColumnDAO(connection);
+                this.maxIdBefore = cardDAO.findMaxId();
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        private Optional<BoardColumnEntity> resolveInitialColumn(Long boardId) throws SQLException {
+            var column = initialColumns.get(boardId);
+            if (column == null) {
+                column = boardColumnDAO.findByBoardIdAndKind(boardId, INITIAL);
+                initialColumns.put(boardId, column);
+            }
+            return column;
+        }
+
+        private void flush() throws SQLException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            cardDAO.insertAll(pending);
+            var movedAt = OffsetDateTime.now();
+            var movements = new ArrayList<CardMovementEntity>(pending.size());
+            for (var card : pending) {
+                var movement = new CardMovementEntity();
+                movement.setCardId(card.getId());
+                movement.setBoardId(card.getBoardColumn().getBoard().getId());
+                movement.setBoardColumnId(card.getBoardColumn().getId());
+                movement.setBoardColumnKind(INITIAL);
+                movement.setMovedAt(movedAt);
+                movements.add(movement);
+            }
+            cardMovementDAO.insertAll(movements);
+            uncommittedMovements.addAll(movements);
+            uncommitted += pending.size();
+            pending.clear();
+        }
+
+        private long commit() throws SQLException {
+            connection.commit();
+            for (var boardId : uncommittedBoards) {
+                boardChangeFeed.publish(boardId, CARDS_IMPORTED, null, initialColumns.get(boardId).get().getId());
+            }
+            uncommittedBoards.clear();
+            cardFlowAnalytics.record(uncommittedMovements);
+            uncommittedMovements.clear();
+            var committed = uncommitted;
+            uncommitted = 0;
+            return committed;
+        }
+
+    }
+
+    private static CardRecordReader openReader(Path file) throws IOException {
+        var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new NdjsonCardRecordReader(Files.newBufferedReader(file, UTF_8));
+        }
+        if (!name.endsWith(".csv")) {
+            throw new IllegalArgumentException("Formato não suportado: use arquivos .csv, .ndjson ou .jsonl.");
+        }
+        var reader = Files.newBufferedReader(file, UTF_8);
+        try {
+            return new CsvCardRecordReader(reader);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private static final class Progress {
+
+        private final long startNanos;
+        private final List<String> errors = new ArrayList<>();
+        private long read;
+        private long imported;
+        private long rejected;
+
+        private Progress(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        private void reject(String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(reason);
+            }
+        }
+
+        private CardImportReport snapshot() {
+            return new CardImportReport(read, imported, rejected,
+                    Duration.ofNanos(System.nanoTime() - startNanos), List.copyOf(errors));
+        }
+
+    }
+
+}
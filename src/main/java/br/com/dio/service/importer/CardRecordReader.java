@@ -0,0 +1,20 @@
+package br.com.dio.service.importer;
+
+import java.io.IOException;
+
+/**
+ * Lê um arquivo de importação um registro por vez, sem carregar o arquivo inteiro em memória.
+ */
+public interface CardRecordReader extends AutoCloseable {
+
+    /**
+     * @return o próximo registro ou {@code null} no fim do arquivo
+     * @throws br.com.dio.exception.InvalidImportRecordException se o registro atual estiver malformado;
+     *         a leitura pode continuar a partir do registro seguinte
+     */
+    CardImportRecord next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+}
@@ -0,0 +1,175 @@
+package br.com.dio.service.importer;
+
+import br.com.dio.exception.InvalidImportRecordException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Leitor de CSV (RFC 4180) com cabeçalho contendo {@code board_id}, {@code title} e,
+ * opcionalmente, {@code description}. Campos entre aspas podem conter vírgulas, quebras de
+ * linha e aspas duplicadas. Um registro com mais de {@value #MAX_RECORD_LENGTH} caracteres, como o
+ * resto do arquivo após aspas não fechadas, é rejeitado sem ser guardado em memória.
+ */
+public final class CsvCardRecordReader implements CardRecordReader {
+
+    /**
+     * Tamanho máximo de um registro, suficiente para um título e uma descrição {@code TEXT}.
+     */
+    static final int MAX_RECORD_LENGTH = 65_536;
+
+    /**
+     * Tamanho da coluna {@code card.title}.
+     */
+    static final int MAX_TITLE_LENGTH = 255;
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+    private final int boardIdIndex;
+    private final int titleIndex;
+    private final int descriptionIndex;
+    private long lineNumber;
+
+    public CsvCardRecordReader(final Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        var header = readRow();
+        if (header == null) {
+            throw new InvalidImportRecordException("Arquivo CSV vazio: cabeçalho ausente.");
+        }
+        var columns = header.stream().map(CsvCardRecordReader::normalizeHeader).toList();
+        this.boardIdIndex = columns.indexOf("boardid");
+        this.titleIndex = columns.indexOf("title");
+        this.descriptionIndex = columns.indexOf("description");
+        if (boardIdIndex < 0 || titleIndex < 0) {
+            throw new InvalidImportRecordException("O cabeçalho do CSV deve conter as colunas board_id e title.");
+        }
+    }
+
+    @Override
+    public CardImportRecord next() throws IOException {
+        List<String> row;
+        long recordLine;
+        do {
+            recordLine = lineNumber + 1;
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isBlank());
+        return toRecord(recordLine, row);
+    }
+
+    private CardImportRecord toRecord(final long recordLine, final List<String> row) {
+        if (row.size() <= Math.max(boardIdIndex, titleIndex)) {
+            throw new InvalidImportRecordException(recordLine, "quantidade de campos menor que o cabeçalho");
+        }
+        var title = parseTitle(recordLine, row.get(titleIndex));
+        var description = descriptionIndex >= 0 && descriptionIndex < row.size() ? row.get(descriptionIndex) : null;
+        return new CardImportRecord(recordLine, parseBoardId(recordLine, row.get(boardIdIndex)), title, description);
+    }
+
+    /**
+     * Lê um registro; ao passar de {@link #MAX_RECORD_LENGTH} caracteres o restante é descartado
+     * até o fim do registro e o registro é rejeitado.
+     */
+    private List<String> readRow() throws IOException {
+        var recordLine = lineNumber + 1;
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        var read = false;
+        var length = 0;
+        var oversized = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (oversized || ++length > MAX_RECORD_LENGTH) {
+                // Descarta o que já foi lido; o parse continua só para achar o fim do registro
+                oversized = true;
+                fields.clear();
+                field.setLength(0);
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    var next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                lineNumber++;
+                fields.add(field.toString());
+                return checkLength(recordLine, oversized, fields);
+            } else if (c != '\r' && c != BYTE_ORDER_MARK) {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        lineNumber++;
+        if (quoted) {
+            throw new InvalidImportRecordException(oversized ? recordLine : lineNumber,
+                    "aspas não fechadas");
+        }
+        fields.add(field.toString());
+        return checkLength(recordLine, oversized, fields);
+    }
+
+    private static List<String> checkLength(final long recordLine, final boolean oversized, final List<String> fields) {
+        if (oversized) {
+            throw new InvalidImportRecordException(recordLine, "registro com mais de " + MAX_RECORD_LENGTH + " caracteres");
+        }
+        return fields;
+    }
+
+    static String parseTitle(final long recordLine, final String value) {
+        var title = value == null ? "" : value.trim();
+        if (title.isEmpty()) {
+            throw new InvalidImportRecordException(recordLine, "título vazio");
+        }
+        if (title.codePointCount(0, title.length()) > MAX_TITLE_LENGTH) {
+            throw new InvalidImportRecordException(recordLine, "título com mais de " + MAX_TITLE_LENGTH + " caracteres");
+        }
+        return title;
+    }
+
+    static Long parseBoardId(final long recordLine, final String value) {
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidImportRecordException(recordLine, "board_id não numérico: " + value);
+        }
+    }
+
+    private static String normalizeHeader(final String name) {
+        return name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,212 @@
+package br.com.dio.service.importer;
+
+import br.com.dio.exception.InvalidImportRecordException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Leitor de NDJSON: um objeto JSON plano por linha, com {@code boardId} (ou {@code board_id}),
+ * {@code title} e, opcionalmente, {@code description}. Valores aninhados não são aceitos e linhas
+ * com mais de {@value CsvCardRecordReader#MAX_RECORD_LENGTH} caracteres são rejeitadas.
+ */
+public final class NdjsonCardRecordReader implements CardRecordReader {
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    public NdjsonCardRecordReader(final Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    @Override
+    public CardImportRecord next() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+        if (line.length() > CsvCardRecordReader.MAX_RECORD_LENGTH) {
+            throw new InvalidImportRecordException(lineNumber,
+                    "registro com mais de " + CsvCardRecordReader.MAX_RECORD_LENGTH + " caracteres");
+        }
+
+        var fields = new FlatObjectParser(line, lineNumber).parse();
+        var boardId = fields.containsKey("boardId") ? fields.get("boardId") : fields.get("board_id");
+        var title = fields.get("title");
+        if (boardId == null) {
+            throw new InvalidImportRecordException(lineNumber, "boardId ausente");
+        }
+        return new CardImportRecord(
+                lineNumber,
+                CsvCardRecordReader.parseBoardId(lineNumber, boardId),
+                CsvCardRecordReader.parseTitle(lineNumber, title),
+                fields.get("description"));
+    }
+
+    /**
+     * Como {@link BufferedReader#readLine()}, mas guarda no máximo um caractere além de
+     * {@link CsvCardRecordReader#MAX_RECORD_LENGTH}; o resto de uma linha maior é descartado.
+     */
+    private String readLine() throws IOException {
+        var line = new StringBuilder();
+        var read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (line.length() <= CsvCardRecordReader.MAX_RECORD_LENGTH) {
+                line.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        var end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class FlatObjectParser {
+
+        private final String text;
+        private final long lineNumber;
+        private int position;
+
+        private FlatObjectParser(final String text, final long lineNumber) {
+            this.text = text;
+            this.lineNumber = lineNumber;
+        }
+
+        private Map<String, String> parse() {
+            var fields = new HashMap<String, String>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return fields;
+            }
+            while (true) {
+                var key = readString();
+                expect(':');
+                fields.put(key, readValue());
+                var separator = next();
+                if (separator == '}') {
+                    break;
+                }
+                if (separator != ',') {
+                    throw error("esperado ',' ou '}'");
+                }
+            }
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("conteúdo após o fim do objeto");
+            }
+            return fields;
+        }
+
+        private String readValue() {
+            var c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("valores aninhados não são suportados");
+            }
+            var start = position;
+            while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            var literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("valor ausente");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() {
+            expect('"');
+            var value = new StringBuilder();
+            while (position < text.length()) {
+                var c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                var escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("escape unicode incompleto");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape unicode inválido");
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("texto não terminado");
+        }
+
+        private void expect(final char expected) {
+            if (next() != expected) {
+                throw error("esperado '" + expected + "'");
+            }
+        }
+
+        private char next() {
+            var c = peek();
+            position++;
+            return c;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("fim inesperado da linha");
+            }
+            return text.charAt(position);
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private InvalidImportRecordException error(final String reason) {
+            return new InvalidImportRecordException(lineNumber, reason + " (posição " + position + ")");
+        }
+
+    }
+
+}
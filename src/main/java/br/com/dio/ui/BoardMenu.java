@@ -1,20 +1,54 @@
 package br.com.dio.ui;
 
 import br.com.dio.service.*;
+import br.com.dio.dto.BoardColumnDTO;
+import br.com.dio.dto.FlowTimeDTO;
+import br.com.dio.service.feed.BoardChangeFeed;
 import lombok.AllArgsConstructor;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.CANCEL;
+import static br.com.dio.persistence.entity.BoardColumnKindEnum.INITIAL;
+import static br.com.dio.service.feed.BoardEventType.BOARD_DELETED;
+import static br.com.dio.service.feed.BoardEventType.BOARD_UPDATED;
 
 @AllArgsConstructor
 public class BoardMenu {
 
-    private final Connection connection;
+    private static final int CARDS_PAGE_SIZE = 20;
+
+    private final DataSource dataSource;
+    private final DataSource readDataSource;
     private final Long boardId;
     private final Scanner scanner = new Scanner(System.in);
+    // Nome exibido no cabeçalho, relido só quando o feed indica alteração no board
+    private final AtomicLong boardChanges = new AtomicLong();
+    private final AtomicReference<CachedBoardName> boardName = new AtomicReference<>();
 
     public void execute() throws SQLException {
+        var watch = BoardChangeFeed.shared().watch(boardId, event -> {
+            if (event.type() == BOARD_UPDATED || event.type() == BOARD_DELETED) {
+                boardChanges.incrementAndGet();
+            }
+        });
+        try {
+            run();
+        } finally {
+            watch.cancel();
+        }
+    }
+
+    private void run() {
         while (true) {
             try {
                 showBoardInfo();
@@ -32,6 +66,9 @@ public class BoardMenu {
                     case 8 -> showCardDetails();
                     case 9 -> updateCard();
                     case 10 -> deleteCard();
+                    case 11 -> bulkOperation();
+                    case 12 -> searchCards();
+                    case 13 -> showFlowMetrics();
                     case 0 -> {
                         return; // Voltar ao menu principal
                     }
@@ -39,15 +76,20 @@ public class BoardMenu {
                 }
             } catch (Exception e) {
                 System.err.println("Erro: " + e.getMessage());
-                connection.rollback();
             }
         }
     }
 
     private void showBoardInfo() throws SQLException {
-        var boardQueryService = new BoardQueryService(connection);
-        var board = boardQueryService.findBoardById(boardId);
-        System.out.println("\n=== BOARD: " + board.getName().toUpperCase() + " ===");
+        var cached = boardName.get();
+        if (cached == null || cached.changes() != boardChanges.get()) {
+            // Lido antes da consulta: uma alteração durante ela invalida o nome obtido
+            var changes = boardChanges.get();
+            var board = new BoardQueryService(readDataSource).findBoardById(boardId);
+            cached = new CachedBoardName(board.getName(), changes);
+            boardName.set(cached);
+        }
+        System.out.println("\n=== BOARD: " + cached.name().toUpperCase() + " ===");
     }
 
     private void showBoardMenu() {
@@ -61,12 +103,15 @@ public class BoardMenu {
         System.out.println("8. Detalhes do Card");
         System.out.println("9. Editar Card");
         System.out.println("10. Excluir Card");
+        System.out.println("11. Operações em Massa");
+        System.out.println("12. Buscar Cards");
+        System.out.println("13. Métricas de Fluxo");
         System.out.println("0. Voltar ao Menu Principal");
         System.out.println("==============================");
     }
 
     private void showBoardDetails() throws SQLException {
-        var boardQueryService = new BoardQueryService(connection);
+        var boardQueryService = new BoardQueryService(readDataSource);
         var boardDetails = boardQueryService.getBoardDetails(boardId);
 
         System.out.println("\n=== DETALHES DO BOARD ===");
@@ -74,11 +119,15 @@ public class BoardMenu {
         System.out.println("\nColunas:");
         
         boardDetails.columns().forEach(column -> 
-            System.out.printf("- %s (%s): %d cards%n", 
+            System.out.printf("- %s (%s): %d cards, %d bloqueado(s)%n", 
                 column.name(), 
                 column.kind(), 
-                column.cardsAmount())
+                column.cardsAmount(),
+                column.blockedAmount())
         );
+
+        var blockedCards = boardDetails.columns().stream().mapToInt(BoardColumnDTO::blockedAmount).sum();
+        System.out.println("\nCards bloqueados: " + blockedCards);
     }
 
     private void createCard() throws SQLException {
@@ -94,35 +143,105 @@ public class BoardMenu {
         System.out.print("Descrição do Card: ");
         var description = scanner.nextLine().trim();
 
-        var cardService = new CardService(connection);
+        var cardService = new CardService(dataSource);
         var card = cardService.createCard(title, description, boardId);
-        connection.commit();
         
         System.out.println("Card '" + card.getTitle() + "' criado com sucesso! ID: " + card.getId());
     }
 
     private void listCards() throws SQLException {
-        var cardQueryService = new CardQueryService(connection);
-        var cards = cardQueryService.findCardsByBoardId(boardId);
+        var cardQueryService = new CardQueryService(readDataSource);
+        var page = cardQueryService.findCardsPageByBoardId(boardId, null, CARDS_PAGE_SIZE);
 
         System.out.println("\n=== LISTA DE CARDS ===");
-        if (cards.isEmpty()) {
+        if (page.cards().isEmpty()) {
             System.out.println("Nenhum card encontrado neste board.");
-        } else {
-            cards.forEach(card -> 
+            return;
+        }
+        while (true) {
+            page.cards().forEach(card -> 
                 System.out.printf("%d - %s [%s]%n", 
                     card.getId(), 
                     card.getTitle(), 
                     card.getBoardColumn().getName())
             );
+            if (!page.hasNext()) {
+                return;
+            }
+            System.out.print("Enter para a próxima página, 0 para voltar: ");
+            if (scanner.nextLine().trim().equals("0")) {
+                return;
+            }
+            page = cardQueryService.findCardsPageByBoardId(boardId, page.nextCursor(), CARDS_PAGE_SIZE);
         }
     }
 
+    private void searchCards() throws SQLException {
+        System.out.print("Buscar: ");
+        var query = scanner.nextLine().trim();
+        if (query.isEmpty()) {
+            System.out.println("A busca não pode estar vazia!");
+            return;
+        }
+
+        var cardQueryService = new CardQueryService(readDataSource);
+        var page = cardQueryService.searchCards(query, boardId, 1, CARDS_PAGE_SIZE);
+        System.out.println("\n=== RESULTADOS (" + page.totalHits() + ") ===");
+        while (true) {
+            page.results().forEach(result ->
+                System.out.printf("%d - %s [%s]%n", result.id(), result.title(), result.columnName())
+            );
+            if (!page.hasNext()) {
+                return;
+            }
+            System.out.print("Enter para a próxima página, 0 para voltar: ");
+            if (scanner.nextLine().trim().equals("0")) {
+                return;
+            }
+            page = cardQueryService.searchCards(query, boardId, page.page() + 1, CARDS_PAGE_SIZE);
+        }
+    }
+
+    private void showFlowMetrics() throws SQLException {
+        var days = getIntInput("Período em dias (ex.: 30): ");
+        if (days < 1) {
+            System.out.println("O período deve ter pelo menos um dia!");
+            return;
+        }
+        var to = LocalDate.now(ZoneOffset.UTC);
+        var metrics = new BoardQueryService(readDataSource).getFlowMetrics(boardId, to.minusDays(days - 1L), to);
+
+        System.out.println("\n=== MÉTRICAS DE FLUXO (" + metrics.from() + " a " + metrics.to() + ") ===");
+        System.out.printf("Finalizados: %d | Cancelados: %d | Criados: %d%n",
+                metrics.throughput(), metrics.entered().get(CANCEL), metrics.entered().get(INITIAL));
+        System.out.println("Lead time:  " + formatFlowTime(metrics.leadTime()));
+        System.out.println("Cycle time: " + formatFlowTime(metrics.cycleTime()));
+        metrics.timeInKind().forEach((kind, time) -> System.out.printf("Tempo em %s: %s%n", kind, formatFlowTime(time)));
+    }
+
+    private static String formatFlowTime(FlowTimeDTO time) {
+        if (time.count() == 0) {
+            return "sem dados";
+        }
+        return "p50 " + formatDuration(time.p50()) + ", p85 " + formatDuration(time.p85())
+                + ", p95 " + formatDuration(time.p95()) + " (" + time.count() + " cards)";
+    }
+
+    private static String formatDuration(Duration duration) {
+        if (duration.toDays() > 0) {
+            return duration.toDays() + "d " + duration.toHoursPart() + "h";
+        }
+        if (duration.toHours() > 0) {
+            return duration.toHours() + "h " + duration.toMinutesPart() + "min";
+        }
+        return duration.toMinutes() + "min " + duration.toSecondsPart() + "s";
+    }
+
     private void moveCard() throws SQLException {
         System.out.print("ID do Card: ");
         var cardId = getLongInput("");
 
-        var boardColumnQueryService = new BoardColumnQueryService(connection);
+        var boardColumnQueryService = new BoardColumnQueryService(readDataSource);
         var columns = boardColumnQueryService.findColumnsByBoardId(boardId);
 
         System.out.println("\nColunas disponíveis:");
@@ -133,11 +252,10 @@ public class BoardMenu {
         System.out.print("ID da Coluna de destino: ");
         var targetColumnId = getLongInput("");
 
-        var cardService = new CardService(connection);
-        var card = cardService.moveCard(cardId, targetColumnId);
-        connection.commit();
+        var cardService = new CardService(dataSource);
+        cardService.moveCard(cardId, targetColumnId);
         
-        System.out.println("Card '" + card.getTitle() + "' movido com sucesso!");
+        System.out.println("Card com ID " + cardId + " movido com sucesso!");
     }
 
     private void blockCard() throws SQLException {
@@ -152,11 +270,10 @@ public class BoardMenu {
             return;
         }
 
-        var cardService = new CardService(connection);
-        var card = cardService.blockCard(cardId, reason);
-        connection.commit();
+        var cardService = new CardService(dataSource);
+        cardService.blockCard(cardId, reason);
         
-        System.out.println("Card '" + card.getTitle() + "' bloqueado com sucesso!");
+        System.out.println("Card com ID " + cardId + " bloqueado com sucesso!");
     }
 
     private void unblockCard() throws SQLException {
@@ -171,29 +288,27 @@ public class BoardMenu {
             return;
         }
 
-        var cardService = new CardService(connection);
-        var card = cardService.unblockCard(cardId, reason);
-        connection.commit();
+        var cardService = new CardService(dataSource);
+        cardService.unblockCard(cardId, reason);
         
-        System.out.println("Card '" + card.getTitle() + "' desbloqueado com sucesso!");
+        System.out.println("Card com ID " + cardId + " desbloqueado com sucesso!");
     }
 
     private void cancelCard() throws SQLException {
         System.out.print("ID do Card: ");
         var cardId = getLongInput("");
 
-        var cardService = new CardService(connection);
-        var card = cardService.cancelCard(cardId);
-        connection.commit();
+        var cardService = new CardService(dataSource);
+        cardService.cancelCard(cardId);
         
-        System.out.println("Card '" + card.getTitle() + "' cancelado com sucesso!");
+        System.out.println("Card com ID " + cardId + " cancelado com sucesso!");
     }
 
     private void showCardDetails() throws SQLException {
         System.out.print("ID do Card: ");
         var cardId = getLongInput("");
 
-        var cardQueryService = new CardQueryService(connection);
+        var cardQueryService = new CardQueryService(readDataSource);
         var cardDetails = cardQueryService.getCardDetails(cardId);
 
         System.out.println("\n=== DETALHES DO CARD ===");
@@ -215,6 +330,11 @@ public class BoardMenu {
         System.out.print("ID do Card: ");
         var cardId = getLongInput("");
 
+        var cardService = new CardService(dataSource);
+        var card = cardService.findById(cardId);
+        System.out.println("Título atual: " + card.getTitle());
+        System.out.println("Descrição atual: " + card.getDescription());
+
         System.out.print("Novo título: ");
         var title = scanner.nextLine().trim();
 
@@ -226,11 +346,10 @@ public class BoardMenu {
             return;
         }
 
-        var cardService = new CardService(connection);
-        var card = cardService.updateCard(cardId, title, description);
-        connection.commit();
+        // Falha com conflito se outra pessoa alterou o card enquanto os dados eram digitados
+        cardService.updateCard(cardId, card.getVersion(), title, description);
         
-        System.out.println("Card '" + card.getTitle() + "' atualizado com sucesso!");
+        System.out.println("Card com ID " + cardId + " atualizado com sucesso!");
     }
 
     private void deleteCard() throws SQLException {
@@ -245,13 +364,77 @@ public class BoardMenu {
             return;
         }
 
-        var cardService = new CardService(connection);
+        var cardService = new CardService(dataSource);
         cardService.deleteCard(cardId);
-        connection.commit();
         
         System.out.println("Card excluído com sucesso!");
     }
 
+    private void bulkOperation() throws SQLException {
+        System.out.println("\n=== OPERAÇÕES EM MASSA ===");
+        System.out.println("1. Mover Cards");
+        System.out.println("2. Bloquear Cards");
+        System.out.println("3. Desbloquear Cards");
+        System.out.println("4. Cancelar Cards");
+        var operation = getIntInput("Operação: ");
+        if (operation < 1 || operation > 4) {
+            System.out.println("Operação inválida!");
+            return;
+        }
+
+        System.out.println("Aplicar a: 1. Lista de Cards  2. Todos os Cards de uma Coluna");
+        var scope = getIntInput("Escopo: ");
+        List<Long> cardIds = List.of();
+        Long columnId = null;
+        if (scope == 2) {
+            columnId = getLongInput("ID da Coluna de origem: ");
+        } else {
+            System.out.print("IDs dos Cards (separados por vírgula): ");
+            try {
+                cardIds = Arrays.stream(scanner.nextLine().split(","))
+                        .map(String::trim)
+                        .filter(id -> !id.isEmpty())
+                        .map(Long::valueOf)
+                        .toList();
+            } catch (NumberFormatException e) {
+                System.out.println("Por favor, digite apenas números separados por vírgula.");
+                return;
+            }
+        }
+
+        var bulkCardService = new BulkCardService(dataSource);
+        var result = switch (operation) {
+            case 1 -> {
+                var targetColumnId = getLongInput("ID da Coluna de destino: ");
+                yield columnId != null
+                        ? bulkCardService.moveColumn(columnId, targetColumnId)
+                        : bulkCardService.moveCards(cardIds, targetColumnId);
+            }
+            case 2 -> {
+                System.out.print("Motivo do bloqueio: ");
+                var reason = scanner.nextLine().trim();
+                yield columnId != null
+                        ? bulkCardService.blockColumn(columnId, reason)
+                        : bulkCardService.blockCards(cardIds, reason);
+            }
+            case 3 -> {
+                System.out.print("Motivo do desbloqueio: ");
+                var reason = scanner.nextLine().trim();
+                yield columnId != null
+                        ? bulkCardService.unblockColumn(columnId, reason)
+                        : bulkCardService.unblockCards(cardIds, reason);
+            }
+            default -> columnId != null
+                    ? bulkCardService.cancelColumn(columnId)
+                    : bulkCardService.cancelCards(cardIds);
+        };
+
+        System.out.println(result.updatedIds().size() + " card(s) alterado(s) com sucesso.");
+        result.failures().forEach(failure ->
+            System.out.printf("- Card %d: %s%n", failure.cardId(), failure.reason())
+        );
+    }
+
     private int getIntInput(String prompt) {
         while (true) {
             try {
@@ -274,4 +457,7 @@ public class BoardMenu {
         }
     }
 
+    private record CachedBoardName(String name, long changes) {
+    }
+
 }
@@ -2,15 +2,26 @@ package br.com.dio.ui;
 
 import br.com.dio.service.BoardQueryService;
 import br.com.dio.service.BoardService;
+import br.com.dio.service.CardQueryService;
+import br.com.dio.service.importer.CardImportService;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.Scanner;
 
-import static br.com.dio.persistence.config.ConnectionConfig.getConnection;
+import static br.com.dio.persistence.config.ConnectionConfig.getDataSource;
+import static br.com.dio.persistence.config.ConnectionConfig.getReadDataSource;
 
 public class MainMenu {
 
+    private static final int CARDS_PAGE_SIZE = 20;
+
     private final Scanner scanner = new Scanner(System.in);
+    private final DataSource dataSource = getDataSource();
+    private final DataSource readDataSource = getReadDataSource();
 
     public void execute() {
         while (true) {
@@ -22,6 +33,8 @@ public class MainMenu {
                     case 1 -> listBoards();
                     case 2 -> createBoard();
                     case 3 -> openBoard();
+                    case 4 -> importCards();
+                    case 5 -> searchCards();
                     case 0 -> {
                         System.out.println("Saindo do sistema...");
                         return;
@@ -40,23 +53,23 @@ public class MainMenu {
         System.out.println("1. Listar Boards");
         System.out.println("2. Criar Novo Board");
         System.out.println("3. Abrir Board");
+        System.out.println("4. Importar Cards (CSV/NDJSON)");
+        System.out.println("5. Buscar Cards em Todos os Boards");
         System.out.println("0. Sair");
         System.out.println("==========================================");
     }
 
     private void listBoards() throws SQLException {
-        try (var connection = getConnection()) {
-            var boardQueryService = new BoardQueryService(connection);
-            var boards = boardQueryService.findAllBoards();
-
-            System.out.println("\n=== LISTA DE BOARDS ===");
-            if (boards.isEmpty()) {
-                System.out.println("Nenhum board encontrado.");
-            } else {
-                boards.forEach(board -> 
-                    System.out.printf("%d - %s%n", board.getId(), board.getName())
-                );
-            }
+        var boardQueryService = new BoardQueryService(readDataSource);
+        var boards = boardQueryService.findAllBoards();
+
+        System.out.println("\n=== LISTA DE BOARDS ===");
+        if (boards.isEmpty()) {
+            System.out.println("Nenhum board encontrado.");
+        } else {
+            boards.forEach(board -> 
+                System.out.printf("%d - %s%n", board.getId(), board.getName())
+            );
         }
     }
 
@@ -76,22 +89,19 @@ public class MainMenu {
         
         var type = getIntInput("Tipo: ");
 
-        try (var connection = getConnection()) {
-            var boardService = new BoardService(connection);
-            
-            switch (type) {
-                case 1 -> {
-                    var board = boardService.createBoard(boardName);
-                    connection.commit();
-                    System.out.println("Board '" + board.getName() + "' criado com sucesso! ID: " + board.getId());
-                }
-                case 2 -> createCustomBoard(boardService, boardName, connection);
-                default -> System.out.println("Tipo inválido!");
+        var boardService = new BoardService(dataSource);
+
+        switch (type) {
+            case 1 -> {
+                var board = boardService.createBoard(boardName);
+                System.out.println("Board '" + board.getName() + "' criado com sucesso! ID: " + board.getId());
             }
+            case 2 -> createCustomBoard(boardService, boardName);
+            default -> System.out.println("Tipo inválido!");
         }
     }
 
-    private void createCustomBoard(BoardService boardService, String boardName, java.sql.Connection connection) throws SQLException {
+    private void createCustomBoard(BoardService boardService, String boardName) throws SQLException {
         System.out.print("Quantas colunas deseja criar? ");
         var columnCount = getIntInput("");
 
@@ -112,7 +122,6 @@ public class MainMenu {
         }
 
         var board = boardService.createBoardWithCustomColumns(boardName, columnNames);
-        connection.commit();
         System.out.println("Board customizado '" + board.getName() + "' criado com sucesso! ID: " + board.getId());
     }
 
@@ -120,12 +129,58 @@ public class MainMenu {
         System.out.print("ID do Board: ");
         var boardId = getLongInput("");
 
-        try (var connection = getConnection()) {
-            var boardQueryService = new BoardQueryService(connection);
-            var board = boardQueryService.findBoardById(boardId);
-            
-            System.out.println("Abrindo board: " + board.getName());
-            new BoardMenu(connection, boardId).execute();
+        var boardQueryService = new BoardQueryService(readDataSource);
+        var board = boardQueryService.findBoardById(boardId);
+
+        System.out.println("Abrindo board: " + board.getName());
+        new BoardMenu(dataSource, readDataSource, boardId).execute();
+    }
+
+    private void importCards() throws IOException, SQLException {
+        System.out.println("\n=== IMPORTAR CARDS ===");
+        System.out.println("CSV: cabeçalho board_id,title,description | NDJSON: {\"boardId\":1,\"title\":\"...\"}");
+        System.out.print("Caminho do arquivo: ");
+        var path = Path.of(scanner.nextLine().trim());
+
+        if (!Files.isRegularFile(path)) {
+            System.out.println("Arquivo não encontrado!");
+            return;
+        }
+
+        var importService = new CardImportService(dataSource);
+        var report = importService.importFile(path, progress ->
+                System.out.printf("... %d lidos, %d importados, %d rejeitados (%.0f cards/s)%n",
+                        progress.read(), progress.imported(), progress.rejected(), progress.cardsPerSecond())
+        );
+
+        System.out.printf("Importação concluída em %d ms: %d cards importados, %d rejeitados.%n",
+                report.elapsed().toMillis(), report.imported(), report.rejected());
+        report.errors().forEach(error -> System.out.println("- " + error));
+    }
+
+    private void searchCards() throws SQLException {
+        System.out.print("Buscar: ");
+        var query = scanner.nextLine().trim();
+        if (query.isEmpty()) {
+            System.out.println("A busca não pode estar vazia!");
+            return;
+        }
+
+        var cardQueryService = new CardQueryService(readDataSource);
+        var page = cardQueryService.searchCards(query, null, 1, CARDS_PAGE_SIZE);
+        System.out.println("\n=== RESULTADOS (" + page.totalHits() + ") ===");
+        while (true) {
+            page.results().forEach(result ->
+                System.out.printf("%d - %s [%s]%n", result.id(), result.title(), result.columnName())
+            );
+            if (!page.hasNext()) {
+                return;
+            }
+            System.out.print("Enter para a próxima página, 0 para voltar: ");
+            if (scanner.nextLine().trim().equals("0")) {
+                return;
+            }
+            page = cardQueryService.searchCards(query, null, page.page() + 1, CARDS_PAGE_SIZE);
         }
     }
 
@@ -0,0 +1,38 @@
+package br.com.dio.persistence.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void countsUpToTheFourBitLimit() {
+        var sketch = new FrequencySketch(64);
+        for (int i = 0; i < 3; i++) {
+            sketch.increment(42);
+        }
+        assertTrue(sketch.frequency(42) >= 3);
+
+        for (int i = 0; i < 30; i++) {
+            sketch.increment(42);
+        }
+        assertEquals(15, sketch.frequency(42));
+    }
+
+    @Test
+    void agesCountersAfterTheSampleSize() {
+        var sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(1);
+        }
+        // 16 de capacidade: os contadores caem pela metade no 160º incremento
+        for (long key = 1_000; key < 1_145; key++) {
+            sketch.increment(key);
+        }
+
+        assertEquals(7, sketch.frequency(1));
+    }
+
+}
@@ -0,0 +1,97 @@
+package br.com.dio.persistence.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitmapTest {
+
+    @Test
+    void keepsIdsOnBothSidesOfAContainerBoundary() {
+        var bitmap = new IdBitmap();
+        bitmap.add(65_535);
+        bitmap.add(65_536);
+        bitmap.add(0);
+
+        assertTrue(bitmap.contains(65_535));
+        assertTrue(bitmap.contains(65_536));
+        assertFalse(bitmap.contains(65_537));
+        assertEquals(List.of(0L, 65_535L, 65_536L), bitmap.toList());
+
+        bitmap.remove(65_536);
+        assertFalse(bitmap.contains(65_536));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    void switchesContainerRepresentationBackAndForth() {
+        var bitmap = new IdBitmap();
+        // Mais de 4096 valores no mesmo contêiner passam para o bitmap de 8 KB
+        for (long id = 0; id < 10_000; id += 2) {
+            bitmap.add(id);
+        }
+        assertEquals(5_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9_998));
+        assertFalse(bitmap.contains(9_999));
+
+        for (long id = 0; id < 4_000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertEquals(3_000, bitmap.cardinality());
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(4_000));
+
+        bitmap.add(4_000);
+        assertEquals(3_000, bitmap.cardinality());
+        assertEquals(4_000L, bitmap.toList().get(0));
+        assertEquals(9_998L, bitmap.toList().get(2_999));
+    }
+
+    @Test
+    void dropsEmptyContainers() {
+        var bitmap = new IdBitmap();
+        bitmap.add(1L << 40);
+        bitmap.remove(1L << 40);
+        bitmap.remove(7);
+
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+    }
+
+    @Test
+    void iteratesRangeAcrossContainers() {
+        var bitmap = new IdBitmap();
+        for (var id : List.of(10L, 65_530L, 65_536L, 65_540L, 131_072L, 200_000L)) {
+            bitmap.add(id);
+        }
+        var ids = new ArrayList<Long>();
+        bitmap.forEachInRange(10, 131_072, ids::add);
+
+        assertEquals(List.of(65_530L, 65_536L, 65_540L, 131_072L), ids);
+
+        ids.clear();
+        bitmap.forEachInRange(65_540, 65_540, ids::add);
+        assertTrue(ids.isEmpty());
+    }
+
+    @Test
+    void countsIdsMissingFromAnotherBitmap() {
+        var bitmap = new IdBitmap();
+        var other = new IdBitmap();
+        for (long id = 0; id < 70_000; id += 7) {
+            bitmap.add(id);
+            if (id % 2 == 0) {
+                other.add(id);
+            }
+        }
+
+        assertEquals(bitmap.cardinality() - other.cardinality(), bitmap.countMissingFrom(other));
+        assertEquals(0, other.countMissingFrom(bitmap));
+    }
+
+}
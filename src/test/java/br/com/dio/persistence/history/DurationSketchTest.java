@@ -0,0 +1,59 @@
+package br.com.dio.persistence.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurationSketchTest {
+
+    @Test
+    void hasNoQuantileWithoutSamples() {
+        assertNull(new DurationSketch().quantile(0.5));
+    }
+
+    @Test
+    void keepsQuantilesWithinTheRelativeError() {
+        var sketch = new DurationSketch();
+        for (long millis = 1; millis <= 10_000; millis++) {
+            sketch.add(millis);
+        }
+
+        assertEquals(10_000, sketch.count());
+        for (var quantile : new double[]{0.5, 0.85, 0.95, 1.0}) {
+            var expected = (long) Math.ceil(quantile * 10_000);
+            var actual = sketch.quantile(quantile).toMillis();
+            assertTrue(Math.abs(actual - expected) <= expected * 0.025,
+                    "p" + quantile + ": esperado " + expected + ", obtido " + actual);
+        }
+    }
+
+    @Test
+    void mapsSubMillisecondDurationsToZero() {
+        var sketch = new DurationSketch();
+        sketch.add(0);
+
+        assertEquals(Duration.ZERO, sketch.quantile(0.5));
+    }
+
+    @Test
+    void mergeMatchesAddingAllSamples() {
+        var all = new DurationSketch();
+        var first = new DurationSketch();
+        var second = new DurationSketch();
+        for (long millis = 0; millis < 5_000; millis += 3) {
+            all.add(millis);
+            (millis % 2 == 0 ? first : second).add(millis);
+        }
+        first.merge(second);
+
+        assertEquals(all.count(), first.count());
+        for (var quantile : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            assertEquals(all.quantile(quantile), first.quantile(quantile));
+        }
+    }
+
+}
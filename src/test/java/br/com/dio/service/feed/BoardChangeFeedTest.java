@@ -0,0 +1,206 @@
+package br.com.dio.service.feed;
+
+import br.com.dio.exception.BoardEventsLostException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static br.com.dio.service.feed.BoardEventType.BOARD_DELETED;
+import static br.com.dio.service.feed.BoardEventType.CARD_CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardChangeFeedTest {
+
+    private static final Long BOARD_ID = 1L;
+
+    // Entrega na thread que publica ou pede, para que cada passo do teste seja determinístico
+    private final BoardChangeFeed feed = new BoardChangeFeed(4, Runnable::run);
+
+    @Test
+    void deliversOnlyWhatWasRequested() {
+        publish(3);
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, 0).subscribe(subscriber);
+
+        subscriber.request(2);
+        assertEquals(List.of(1L, 2L), subscriber.sequences());
+
+        subscriber.request(10);
+        assertEquals(List.of(1L, 2L, 3L), subscriber.sequences());
+
+        publish(1);
+        assertEquals(List.of(1L, 2L, 3L, 4L), subscriber.sequences());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    void resumesAfterRetainedSequenceAcrossRingWrap() {
+        // Retenção 4: depois de 7 eventos o buffer já deu a volta e guarda 4..7
+        publish(7);
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, feed.epoch(), 3).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(4L, 5L, 6L, 7L), subscriber.sequences());
+        assertEquals(feed.epoch() + ":7", subscriber.events.get(3).id());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    void latestSkipsRetainedEvents() {
+        publish(3);
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, BoardChangeFeed.LATEST).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        publish(1);
+
+        assertEquals(List.of(4L), subscriber.sequences());
+    }
+
+    @Test
+    void failsWhenResumingBeforeRetainedEvents() {
+        publish(7);
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, 2).subscribe(subscriber);
+        subscriber.request(1);
+
+        assertTrue(subscriber.sequences().isEmpty());
+        assertInstanceOf(BoardEventsLostException.class, subscriber.error);
+    }
+
+    @Test
+    void failsSubscriberThatFallsBehindRetention() {
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, 0).subscribe(subscriber);
+        subscriber.request(1);
+        // Sem demanda, os eventos 2..6 esperam no feed, que só retém 3..6
+        publish(6);
+        subscriber.request(10);
+
+        assertEquals(List.of(1L), subscriber.sequences());
+        assertInstanceOf(BoardEventsLostException.class, subscriber.error);
+    }
+
+    @Test
+    void failsResumeFromAnotherEpochOrFutureSequence() {
+        publish(2);
+        var otherEpoch = new RecordingSubscriber();
+        feed.events(BOARD_ID, "outro", 1).subscribe(otherEpoch);
+        var ahead = new RecordingSubscriber();
+        feed.events(BOARD_ID, 3).subscribe(ahead);
+
+        assertInstanceOf(BoardEventsLostException.class, otherEpoch.error);
+        assertInstanceOf(BoardEventsLostException.class, ahead.error);
+    }
+
+    @Test
+    void completesAfterBoardDeletion() {
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, 0).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        publish(1);
+        feed.publish(BOARD_ID, BOARD_DELETED, null, null);
+
+        assertEquals(List.of(1L, 2L), subscriber.sequences());
+        assertTrue(subscriber.completed);
+        assertEquals(0, feed.lastSequence(BOARD_ID));
+    }
+
+    @Test
+    void rejectsNonPositiveDemand() {
+        publish(1);
+        var subscriber = new RecordingSubscriber();
+        feed.events(BOARD_ID, 0).subscribe(subscriber);
+        subscriber.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(subscriber.sequences().isEmpty());
+    }
+
+    @Test
+    void deliversConcurrentPublicationsInOrderWithoutGaps() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(4);
+        var publishers = Executors.newFixedThreadPool(4);
+        try {
+            var total = 4_000;
+            var concurrentFeed = new BoardChangeFeed(total, executor);
+            var received = new CountDownLatch(total);
+            var subscriber = new RecordingSubscriber() {
+                @Override
+                public synchronized void onNext(final BoardEvent event) {
+                    super.onNext(event);
+                    received.countDown();
+                }
+            };
+            concurrentFeed.events(BOARD_ID, 0).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+            for (int p = 0; p < 4; p++) {
+                publishers.execute(() -> {
+                    for (int i = 0; i < total / 4; i++) {
+                        concurrentFeed.publish(BOARD_ID, CARD_CREATED, (long) i, 1L);
+                    }
+                });
+            }
+
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertEquals(LongStream.rangeClosed(1, total).boxed().toList(), subscriber.sequences());
+            assertNull(subscriber.error);
+        } finally {
+            publishers.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private void publish(final int count) {
+        for (int i = 0; i < count; i++) {
+            feed.publish(BOARD_ID, CARD_CREATED, (long) i, 1L);
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<BoardEvent> {
+
+        final List<BoardEvent> events = new ArrayList<>();
+        private Flow.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(final BoardEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void request(final long n) {
+            subscription.request(n);
+        }
+
+        synchronized List<Long> sequences() {
+            return events.stream().map(BoardEvent::sequence).toList();
+        }
+
+    }
+
+}